@@ -0,0 +1,338 @@
+package org.fintech;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.random.RandomGenerator;
+
+/**
+ * Laufzeit für viele gleichzeitig handelnde Agenten.
+ *
+ * Jeder Agent läuft auf einem eigenen virtuellen Thread, entscheidet über seine {@link TraderStrategy},
+ * signiert den Trade selbst (parallel, außerhalb des Commit-Pfads) und legt ihn in eine gemeinsame,
+ * begrenzte Warteschlange. Ein einzelner Committer sammelt Aufträge zu Batches (bis {@code maxBatchSize}
+ * oder {@code maxBatchDelayMillis}), prüft sie erneut gegen die aktuellen Balances und schreibt
+ * pro Batch einen Block. Ist die Warteschlange voll, wird der Auftrag abgewiesen (Backpressure).
+ *
+ * Pro Strategie werden Durchsatz, Ablehnungen, Latenz (Einreichen → Block) und PnL geführt.
+ */
+public final class AgentRuntime {
+
+    private static final int DEFAULT_QUEUE_CAPACITY = 10_000;
+    private static final double FAST_ALPHA = 0.3;   // schneller EMA (wenige Batches)
+    private static final double SLOW_ALPHA = 0.02;  // langsamer EMA (Trend-Niveau)
+
+    private final NetworkSimulator simulator;
+    private final PriceSimulator priceSimulator;
+    private final int maxBatchSize;
+    private final long maxBatchDelayNanos;
+    private final BlockingQueue<TradeOrder> queue;
+
+    private final List<Agent> agents = new ArrayList<>();
+    private final Map<String, StrategyStats> stats = new LinkedHashMap<>();
+    private final RandomGenerator seedSource = SimulationContext.random("agents");
+
+    private volatile boolean running = false;
+    private volatile TraderStrategy.MarketView market;
+    private ExecutorService agentThreads;
+    private Thread committer;
+    private final LongAdder committedBatches = new LongAdder();
+
+    /** Ein eingereichter, bereits signierter Auftrag. */
+    private static final class TradeOrder {
+        final Agent agent;
+        final Transaction tx;
+        final long submitNanos;
+
+        TradeOrder(Agent agent, Transaction tx, long submitNanos) {
+            this.agent = agent;
+            this.tx = tx;
+            this.submitNanos = submitNanos;
+        }
+    }
+
+    private final class Agent implements Runnable {
+        final TraderStrategy strategy;
+        final Wallet wallet;
+        final StrategyStats stats;
+        final RandomGenerator random;
+        final double startNetWorth;
+
+        Agent(TraderStrategy strategy, Wallet wallet, StrategyStats stats, RandomGenerator random) {
+            this.strategy = strategy;
+            this.wallet = wallet;
+            this.stats = stats;
+            this.random = random;
+            this.startNetWorth = netWorth(wallet, priceSimulator.getCurrentPrice());
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                try {
+                    Thread.sleep(strategy.nextDecisionDelayMillis(random));
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (!running) return;
+                try {
+                    step();
+                } catch (RuntimeException e) {
+                    stats.errors.increment();
+                }
+            }
+        }
+
+        private void step() {
+            stats.decisions.increment();
+            TraderStrategy.MarketView view = market;
+            TraderStrategy.Decision decision = strategy.decide(wallet, view, random);
+            if (decision == null) return;
+
+            // Signieren im Agenten-Thread: parallel über alle Agenten, nicht im Committer
+            Transaction tx = simulator.prepareTrade(wallet, decision.getKind(), decision.getUsdAmount(), view.getPrice(), 0.0);
+            if (tx == null) {
+                stats.invalid.increment();
+                return;
+            }
+            if (queue.offer(new TradeOrder(this, tx, System.nanoTime()))) {
+                stats.submitted.increment();
+            } else {
+                stats.queueFull.increment();
+            }
+        }
+    }
+
+    /** Kennzahlen einer Strategie über alle ihre Agenten. */
+    public static final class StrategyStats {
+        private final String name;
+        private final List<Agent> agents = new CopyOnWriteArrayList<>();
+        private final LongAdder decisions = new LongAdder();
+        private final LongAdder submitted = new LongAdder();
+        private final LongAdder invalid = new LongAdder();
+        private final LongAdder queueFull = new LongAdder();
+        private final LongAdder filled = new LongAdder();
+        private final LongAdder droppedAtCommit = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final DoubleAdder volumeUsd = new DoubleAdder();
+        private final LatencyHistogram fillLatency = new LatencyHistogram();
+        private final long startNanos = System.nanoTime();
+
+        StrategyStats(String name) {
+            this.name = name;
+        }
+
+        public String getName() { return name; }
+        public int getAgentCount() { return agents.size(); }
+        public long getDecisions() { return decisions.sum(); }
+        public long getSubmitted() { return submitted.sum(); }
+        /** Entscheidungen, die schon beim Signieren nicht ausführbar waren (z.B. zu kleiner Betrag). */
+        public long getInvalid() { return invalid.sum(); }
+        /** Wegen voller Warteschlange abgewiesene Aufträge (Backpressure). */
+        public long getQueueFull() { return queueFull.sum(); }
+        public long getFilled() { return filled.sum(); }
+        /** Beim Commit verworfene Aufträge (Balance inzwischen nicht mehr ausreichend). */
+        public long getDroppedAtCommit() { return droppedAtCommit.sum(); }
+        public long getErrors() { return errors.sum(); }
+        public double getVolumeUsd() { return volumeUsd.sum(); }
+        /** Latenz vom Einreichen bis zum festgeschriebenen Block. */
+        public LatencyHistogram getFillLatency() { return fillLatency; }
+
+        public double getFillsPerSecond() {
+            double seconds = (System.nanoTime() - startNanos) / 1e9;
+            return seconds > 0 ? filled.sum() / seconds : 0.0;
+        }
+
+        /** Summe der Net-Worth-Änderungen (USD + Long zu Marktpreis) aller Agenten seit ihrem Start. */
+        public double getPnl(double price) {
+            double pnl = 0.0;
+            for (Agent a : agents) {
+                pnl += netWorth(a.wallet, price) - a.startNetWorth;
+            }
+            return pnl;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                    "%-15s %4d Agenten | %7d gefüllt (%.1f/s) | %d eingereicht, %d ungültig, %d Queue voll, %d verworfen | Volumen %.0f USD | p99 %.1f ms",
+                    name, getAgentCount(), getFilled(), getFillsPerSecond(), getSubmitted(), getInvalid(), getQueueFull(),
+                    getDroppedAtCommit(), getVolumeUsd(), fillLatency.percentileNanos(0.99) / 1e6);
+        }
+    }
+
+    public AgentRuntime(NetworkSimulator simulator, int maxBatchSize, long maxBatchDelayMillis) {
+        this(simulator, maxBatchSize, maxBatchDelayMillis, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    public AgentRuntime(NetworkSimulator simulator, int maxBatchSize, long maxBatchDelayMillis, int queueCapacity) {
+        this.simulator = simulator;
+        this.priceSimulator = simulator.getPriceSimulator();
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.maxBatchDelayNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxBatchDelayMillis));
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        double price = priceSimulator.getCurrentPrice();
+        this.market = new TraderStrategy.MarketView(price, price, price);
+    }
+
+    // Net Worth in USD: USD-Guthaben + SC zum Marktpreis
+    private static double netWorth(Wallet w, double price) {
+        return w.getUsdBalance() + w.getBalance() * price;
+    }
+
+    /** Fügt einen Agenten für die angegebene Wallet hinzu (nur vor {@link #start()}). */
+    public synchronized void addAgent(TraderStrategy strategy, Wallet wallet) {
+        if (running) throw new IllegalStateException("Agenten nur vor dem Start hinzufügen");
+        StrategyStats s = stats.computeIfAbsent(strategy.getName(), StrategyStats::new);
+        // Eigener Generator pro Agent: Threads teilen sich keinen (nicht thread-sicheren) Zufallszustand
+        Agent agent = new Agent(strategy, wallet, s, new SplittableRandom(seedSource.nextLong()));
+        agents.add(agent);
+        s.agents.add(agent);
+    }
+
+    /** Fügt {@code count} Agenten hinzu, Wallets gleichverteilt aus dem {@link TraderIndex}. */
+    public synchronized void addAgents(TraderStrategy strategy, int count) {
+        TraderIndex index = WalletManager.getTraderIndex();
+        for (int i = 0; i < count; i++) {
+            Wallet w = index.sampleUniform(seedSource);
+            if (w == null) return;
+            addAgent(strategy, w);
+        }
+    }
+
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        agentThreads = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("agent-", 0).factory());
+        for (Agent a : agents) {
+            agentThreads.execute(a);
+        }
+        committer = new Thread(this::commitLoop, "agent-committer");
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    /** Stoppt die Agenten, schreibt noch wartende Aufträge fest und beendet den Committer. */
+    public void stop() {
+        synchronized (this) {
+            if (!running) return;
+            running = false;
+        }
+        agentThreads.shutdownNow();
+        try {
+            agentThreads.awaitTermination(5, TimeUnit.SECONDS);
+            committer.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public boolean isRunning() { return running; }
+    public int getQueueDepth() { return queue.size(); }
+    public long getCommittedBatches() { return committedBatches.sum(); }
+    public TraderStrategy.MarketView getMarketView() { return market; }
+
+    public synchronized List<StrategyStats> getStats() {
+        return new ArrayList<>(stats.values());
+    }
+
+    private void commitLoop() {
+        List<TradeOrder> batch = new ArrayList<>(maxBatchSize);
+        ArrayDeque<TradeOrder> deferred = new ArrayDeque<>();
+        while (running || !queue.isEmpty() || !deferred.isEmpty()) {
+            try {
+                collectBatch(batch, deferred);
+            } catch (InterruptedException e) {
+                break;
+            }
+            if (batch.isEmpty()) continue;
+            try {
+                executeBatch(batch, deferred);
+            } catch (RuntimeException e) {
+                System.err.println("Fehler beim Festschreiben eines Agenten-Batches: " + e.getMessage());
+            }
+            batch.clear();
+        }
+    }
+
+    // Zurückgestellte Aufträge zuerst, dann bis zur Batch-Größe oder bis die Wartezeit abgelaufen ist
+    private void collectBatch(List<TradeOrder> batch, ArrayDeque<TradeOrder> deferred) throws InterruptedException {
+        while (!deferred.isEmpty() && batch.size() < maxBatchSize) {
+            batch.add(deferred.poll());
+        }
+        if (batch.isEmpty()) {
+            TradeOrder first = queue.poll(50, TimeUnit.MILLISECONDS);
+            if (first == null) return;
+            batch.add(first);
+        }
+        long deadline = System.nanoTime() + maxBatchDelayNanos;
+        while (batch.size() < maxBatchSize) {
+            if (queue.drainTo(batch, maxBatchSize - batch.size()) > 0) continue;
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0 || !running) break;
+            TradeOrder next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) break;
+            batch.add(next);
+        }
+    }
+
+    private void executeBatch(List<TradeOrder> batch, ArrayDeque<TradeOrder> deferred) {
+        Set<Wallet> inBatch = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<TradeOrder> accepted = new ArrayList<>(batch.size());
+        List<Transaction> txs = new ArrayList<>(batch.size());
+        double supplyReservedSc = 0.0;
+        double buySc = 0.0;
+        double sellSc = 0.0;
+
+        for (TradeOrder order : batch) {
+            Wallet wallet = order.agent.wallet;
+            // Höchstens ein Auftrag pro Wallet und Block: Balances sind erst nach dem Commit aktuell
+            if (!inBatch.add(wallet)) {
+                deferred.add(order);
+                continue;
+            }
+            Transaction tx = order.tx;
+            boolean buy = tx.getKind() == TransactionKind.BUY_LONG;
+            boolean executable = buy
+                    ? wallet.getUsdBalance() >= tx.getUsdValue()
+                        && WalletManager.SUPPLY_WALLET.getBalance() - supplyReservedSc >= tx.getAmount() + 0.01
+                    : wallet.getBalance() >= tx.getAmount();
+            if (!executable) {
+                order.agent.stats.droppedAtCommit.increment();
+                continue;
+            }
+            if (buy) {
+                supplyReservedSc += tx.getAmount();
+                buySc += tx.getAmount();
+            } else {
+                sellSc += tx.getAmount();
+            }
+            accepted.add(order);
+            txs.add(tx);
+        }
+
+        if (!txs.isEmpty()) {
+            // Ein Block = ein Tick: Käufe und Verkäufe verrechnet, eine Preisaktualisierung
+            priceSimulator.executeBatch(buySc, sellSc);
+            simulator.commitBlock(txs);
+            simulator.processLiquidations(); // Preis hat sich mit dem Batch bewegt
+            committedBatches.increment();
+            long now = System.nanoTime();
+            for (TradeOrder order : accepted) {
+                StrategyStats s = order.agent.stats;
+                s.filled.increment();
+                s.volumeUsd.add(order.tx.getUsdValue());
+                s.fillLatency.record(now - order.submitNanos);
+            }
+        }
+        updateMarketView(priceSimulator.getCurrentPrice());
+    }
+
+    private void updateMarketView(double price) {
+        TraderStrategy.MarketView old = market;
+        market = new TraderStrategy.MarketView(price,
+                old.getFastAverage() + FAST_ALPHA * (price - old.getFastAverage()),
+                old.getSlowAverage() + SLOW_ALPHA * (price - old.getSlowAverage()));
+    }
+}
@@ -0,0 +1,207 @@
+package org.fintech;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Preisbildung über einen Liquiditätspool mit konstantem Produkt ({@code sc · usd = k}, AMM).
+ *
+ * Der Ausführungspreis eines Trades ergibt sich aus den Reserven statt aus einer begrenzten
+ * Prozentbewegung: wer SC kauft, zahlt {@code usd·out/(sc−out)} zuzüglich Gebühr, wer verkauft, erhält
+ * {@code usd·in'/(sc+in')} mit {@code in' = in·(1−fee)}. Die Gebühr bleibt im Pool (k wächst).
+ * Trades werden zu diesem Swap-Preis abgerechnet ({@link #quote(double, boolean, double)}), nicht zum Spotpreis.
+ *
+ * Die Reserven sind ein unveränderlicher Schnappschuss in einer {@link AtomicReference}; Trades
+ * rechnen den Folgezustand aus und tauschen ihn per CAS (bei Konflikt neu rechnen). Quotes lesen
+ * nur den aktuellen Schnappschuss und sind damit lock-frei.
+ * {@link #executeBatch(double, double, double)} verrechnet Käufe und Verkäufe eines Ticks vorab
+ * und aktualisiert die Reserven nur einmal.
+ */
+public final class AmmPricing implements MarketPricing {
+
+    /** Maximaler Anteil der SC-Reserve, der in einem Swap entnommen werden kann. */
+    private static final double MAX_OUT_FRACTION = 0.5;
+
+    /** Unveränderlicher Zustand des Pools. */
+    public static final class Reserves {
+        private final double sc;
+        private final double usd;
+        private final double feesUsd;
+        private final long swaps;
+
+        Reserves(double sc, double usd, double feesUsd, long swaps) {
+            this.sc = sc;
+            this.usd = usd;
+            this.feesUsd = feesUsd;
+            this.swaps = swaps;
+        }
+
+        public double getSc() { return sc; }
+        public double getUsd() { return usd; }
+        public double getFeesUsd() { return feesUsd; }
+        public long getSwaps() { return swaps; }
+        public double getSpotPrice() { return usd / sc; }
+    }
+
+    private final AtomicReference<Reserves> reserves;
+    private final double feeRate;
+
+    private final LongAdder casRetries = new LongAdder();
+    private final LongAdder limitedSwaps = new LongAdder();
+    private final DoubleAdder slippageBpsSum = new DoubleAdder();
+    private final LongAdder slippageSamples = new LongAdder();
+
+    public AmmPricing(double initialPrice) {
+        this(initialPrice, 1_000_000_000.0, 0.003);
+    }
+
+    /**
+     * @param initialPrice Startpreis (USD je SC).
+     * @param liquidityUsd USD-Reserve des Pools; die SC-Reserve ergibt sich aus dem Startpreis.
+     * @param feeRate Gebühr je Swap (z.B. 0.003 = 0,3 %).
+     */
+    public AmmPricing(double initialPrice, double liquidityUsd, double feeRate) {
+        if (initialPrice <= 0 || liquidityUsd <= 0 || feeRate < 0 || feeRate >= 1) {
+            throw new IllegalArgumentException("Ungültige Pool-Parameter");
+        }
+        this.feeRate = feeRate;
+        this.reserves = new AtomicReference<>(new Reserves(liquidityUsd / initialPrice, liquidityUsd, 0.0, 0));
+    }
+
+    // ====================================================================
+    // Quotes (lock-frei)
+    // ====================================================================
+
+    public Reserves getReserves() {
+        return reserves.get();
+    }
+
+    public double getSpotPrice() {
+        return reserves.get().getSpotPrice();
+    }
+
+    /** USD-Kosten (inkl. Gebühr) für den Kauf von {@code amountSC}; unendlich, wenn der Pool das nicht hergibt. */
+    public double quoteBuy(double amountSC) {
+        Reserves r = reserves.get();
+        if (amountSC > r.sc * MAX_OUT_FRACTION) return Double.POSITIVE_INFINITY;
+        return r.usd * amountSC / (r.sc - amountSC) / (1.0 - feeRate);
+    }
+
+    /** USD-Erlös (nach Gebühr) für den Verkauf von {@code amountSC}. */
+    public double quoteSell(double amountSC) {
+        Reserves r = reserves.get();
+        double in = amountSC * (1.0 - feeRate);
+        return r.usd * in / (r.sc + in);
+    }
+
+    /**
+     * Swap-Preis je SC inkl. Gebühr und Slippage gegen den aktuellen Pool. Im selben Tick gegeneinander
+     * verrechnete Käufe und Verkäufe werden dabei nicht berücksichtigt (Quote ist für beide Seiten konservativ).
+     */
+    @Override
+    public double quote(double amountSC, boolean isBuy, double currentPrice) {
+        if (amountSC <= 0) return currentPrice;
+        return (isBuy ? quoteBuy(amountSC) : quoteSell(amountSC)) / amountSC;
+    }
+
+    // ====================================================================
+    // Swaps
+    // ====================================================================
+
+    @Override
+    public double executeTrade(double amountSC, boolean isBuy, double currentPrice) {
+        if (amountSC <= 0) return currentPrice;
+        Reserves next = update(isBuy ? amountSC : -amountSC, 0.0);
+        return next.getSpotPrice();
+    }
+
+    /**
+     * Verrechnet Käufe und Verkäufe eines Ticks: der gegeneinander aufgehobene Teil wird zum
+     * Spotpreis gekreuzt, nur der Saldo läuft über die Kurve. Die Gebühr des Käufers fließt als USD,
+     * die des Verkäufers als SC in den Pool, sodass der gekreuzte Teil den Spotpreis nicht verschiebt.
+     * Ein einziger CAS für den ganzen Batch.
+     */
+    @Override
+    public double executeBatch(double buySC, double sellSC, double currentPrice) {
+        if (buySC <= 0 && sellSC <= 0) return currentPrice;
+        Reserves next = update(buySC - sellSC, Math.min(buySC, sellSC));
+        return next.getSpotPrice();
+    }
+
+    // CAS-Schleife: Folgezustand aus dem gelesenen Schnappschuss berechnen und tauschen
+    private Reserves update(double netSC, double crossedSC) {
+        while (true) {
+            Reserves r = reserves.get();
+            double sc = r.sc;
+            double usd = r.usd;
+            double fees = r.feesUsd;
+            double spot = usd / sc;
+            double executionPrice = spot;
+            boolean limited = false;
+
+            if (crossedSC > 0) {
+                // Käufergebühr in USD, Verkäufergebühr in SC: beide Reserven wachsen im Spotverhältnis
+                double crossedFeeUsd = crossedSC * spot * feeRate;
+                usd += crossedFeeUsd;
+                sc += crossedSC * feeRate;
+                fees += 2.0 * crossedFeeUsd;
+            }
+            if (netSC > 0) {
+                double out = netSC;
+                if (out > sc * MAX_OUT_FRACTION) {
+                    out = sc * MAX_OUT_FRACTION;
+                    limited = true;
+                }
+                double usdInAfterFee = usd * out / (sc - out);
+                double usdIn = usdInAfterFee / (1.0 - feeRate);
+                executionPrice = usdIn / out;
+                fees += usdIn - usdInAfterFee;
+                sc -= out;
+                usd += usdIn;
+            } else if (netSC < 0) {
+                double in = -netSC;
+                double inAfterFee = in * (1.0 - feeRate);
+                double usdOut = usd * inAfterFee / (sc + inAfterFee);
+                executionPrice = usdOut / in;
+                fees += in * feeRate * spot;
+                sc += in;
+                usd -= usdOut;
+            }
+
+            Reserves next = new Reserves(sc, usd, fees, r.swaps + 1);
+            if (reserves.compareAndSet(r, next)) {
+                if (limited) limitedSwaps.increment();
+                if (netSC != 0) {
+                    slippageBpsSum.add(Math.abs(executionPrice / spot - 1.0) * 10_000.0);
+                    slippageSamples.increment();
+                }
+                return next;
+            }
+            casRetries.increment();
+        }
+    }
+
+    /** Durchschnittliche Abweichung des Ausführungspreises vom Spotpreis vor dem Swap (inkl. Gebühr). */
+    public double getAverageSlippageBps() {
+        long n = slippageSamples.sum();
+        return n == 0 ? 0.0 : slippageBpsSum.sum() / n;
+    }
+
+    public double getFeeRate() { return feeRate; }
+    public long getCasRetries() { return casRetries.sum(); }
+    public long getLimitedSwaps() { return limitedSwaps.sum(); }
+
+    @Override
+    public String getName() {
+        return "AMM";
+    }
+
+    @Override
+    public String toString() {
+        Reserves r = reserves.get();
+        return String.format(Locale.US, "AMM: %.0f SC / %.0f USD (Spot %.4f) | Gebühren %.2f USD | Ø Slippage %.1f bps | %d Swaps, %d CAS-Wiederholungen, %d begrenzt",
+                r.sc, r.usd, r.getSpotPrice(), r.feesUsd, getAverageSlippageBps(), r.swaps, getCasRetries(), getLimitedSwaps());
+    }
+}
@@ -3,7 +3,6 @@ package org.fintech;
 import com.google.gson.*;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.List;
 
 public class Block {
@@ -12,12 +11,13 @@ public class Block {
     private final List<Transaction> transactions;
     private long timeStamp;
     private int nonce;
+    private transient String txData; // 🔧 PERFORMANCE: TX-IDs nur einmal verketten, nicht bei jedem Nonce-Versuch
 
     // Normaler Block
     public Block(List<Transaction> transactions, String previousHash) {
         this.transactions = new ArrayList<>(transactions);
         this.previousHash = previousHash;
-        this.timeStamp = new Date().getTime();
+        this.timeStamp = SimulationContext.currentTimeMillis(); // Seed-Modus: manuelle Uhr
         this.nonce = 0;
         this.hash = calculateHash();
     }
@@ -32,17 +32,20 @@ public class Block {
 
         this.transactions.add(genesisTx);
         this.previousHash = "0";
-        this.timeStamp = new Date().getTime();
+        this.timeStamp = SimulationContext.currentTimeMillis(); // Seed-Modus: manuelle Uhr
         this.nonce = 0;
         this.hash = calculateHash();
     }
 
     public String calculateHash() {
-        StringBuilder txData = new StringBuilder();
         // 🛑 ANPASSUNG: Nur der Hash der Transaktion (TX-ID) sollte in den Block-Hash eingehen,
         // da die TX-ID bereits alle TX-Details (inkl. Preis) gehasht hat.
-        for (Transaction tx : transactions) {
-            txData.append(tx.getTxId());
+        if (txData == null) {
+            StringBuilder sb = new StringBuilder(transactions.size() * 64);
+            for (Transaction tx : transactions) {
+                sb.append(tx.getTxId());
+            }
+            txData = sb.toString();
         }
         String input = previousHash + timeStamp + nonce + txData;
         return StringUtil.applySha256(input);
@@ -60,6 +63,8 @@ public class Block {
     public String getHash() { return hash; }
     public String getPreviousHash() { return previousHash; }
     public List<Transaction> getTransactions() { return new ArrayList<>(transactions); }
+    /** Anzahl der Transaktionen, ohne die Liste zu kopieren. */
+    public int getTransactionCount() { return transactions.size(); }
     public long getTimeStamp() { return timeStamp; }
     public int getNonce() { return nonce; }
 
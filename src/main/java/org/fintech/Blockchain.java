@@ -3,6 +3,7 @@ package org.fintech;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList; // Behält den Import bei
+import java.util.concurrent.atomic.LongAdder;
 
 public class Blockchain {
 
@@ -70,9 +71,17 @@ public class Blockchain {
         Block last = chain.get(chain.size() - 1);
         Block newBlock = new Block(transactions, last.getHash());
         newBlock.mineBlock(difficulty);
+        hashesComputed.add(newBlock.getNonce() + 1L); // Initial-Hash + ein Hash pro Nonce-Versuch
         chain.add(newBlock);
     }
 
+    // Anzahl der beim Mining berechneten Hashes (für Hashes/s im Headless-Modus)
+    private final LongAdder hashesComputed = new LongAdder();
+
+    public long getHashesComputed() {
+        return hashesComputed.sum();
+    }
+
     public static int resets = 0;
 
     public void resetChain() {
@@ -0,0 +1,232 @@
+package org.fintech;
+
+import java.util.Locale;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Baut OHLCV-Kerzen in mehreren Auflösungen (1 s, 1 min, 5 min, 1 h) aus Preis-Ticks.
+ *
+ * Jede Auflösung liegt in einem Ringpuffer fester Größe aus primitiven Arrays (Startzeit, Open,
+ * High, Low, Close, Volumen); die ältesten Kerzen werden überschrieben. Schreiben ist O(Auflösungen)
+ * ohne Allokation, Bereichsabfragen kopieren in eine vom Aufrufer wiederverwendete {@link Series}
+ * und allokieren ebenfalls nicht. Leser lesen optimistisch ({@link StampedLock}) und blockieren den
+ * Schreiber nicht.
+ *
+ * Kerzen entstehen nur für Intervalle mit mindestens einem Tick (keine Füll-Kerzen für Lücken).
+ */
+public final class CandleEngine {
+
+    public enum Resolution {
+        SECOND_1(1_000L, 3_600, "1s"),    // 1 Stunde
+        MINUTE_1(60_000L, 1_440, "1m"),   // 1 Tag
+        MINUTE_5(300_000L, 2_016, "5m"),  // 1 Woche
+        HOUR_1(3_600_000L, 720, "1h");    // 30 Tage
+
+        private final long millis;
+        private final int capacity;
+        private final String label;
+
+        Resolution(long millis, int capacity, String label) {
+            this.millis = millis;
+            this.capacity = capacity;
+            this.label = label;
+        }
+
+        public long getMillis() { return millis; }
+        public int getCapacity() { return capacity; }
+        public String getLabel() { return label; }
+    }
+
+    /** Vom Aufrufer gehaltener, wiederverwendbarer Puffer für Abfrageergebnisse (älteste zuerst). */
+    public static final class Series {
+        private final long[] start;
+        private final double[] open;
+        private final double[] high;
+        private final double[] low;
+        private final double[] close;
+        private final double[] volume;
+        private int size;
+
+        public Series(int capacity) {
+            start = new long[capacity];
+            open = new double[capacity];
+            high = new double[capacity];
+            low = new double[capacity];
+            close = new double[capacity];
+            volume = new double[capacity];
+        }
+
+        public int size() { return size; }
+        public int capacity() { return start.length; }
+        public long getStartMillis(int i) { return start[i]; }
+        public double getOpen(int i) { return open[i]; }
+        public double getHigh(int i) { return high[i]; }
+        public double getLow(int i) { return low[i]; }
+        public double getClose(int i) { return close[i]; }
+        public double getVolume(int i) { return volume[i]; }
+    }
+
+    // Ringpuffer einer Auflösung; head = Index der aktuellen (jüngsten) Kerze
+    private static final class Ring {
+        final long width;
+        final long[] start;
+        final double[] open;
+        final double[] high;
+        final double[] low;
+        final double[] close;
+        final double[] volume;
+        int head = -1;
+        int count = 0;
+
+        Ring(Resolution resolution) {
+            int capacity = resolution.getCapacity();
+            width = resolution.getMillis();
+            start = new long[capacity];
+            open = new double[capacity];
+            high = new double[capacity];
+            low = new double[capacity];
+            close = new double[capacity];
+            volume = new double[capacity];
+        }
+
+        void add(long timestampMillis, double price, double vol) {
+            long bucket = timestampMillis - Math.floorMod(timestampMillis, width);
+            if (head >= 0 && bucket <= start[head]) {
+                // Laufende Kerze (verspätete Ticks zählen ebenfalls zur jüngsten)
+                if (price > high[head]) high[head] = price;
+                if (price < low[head]) low[head] = price;
+                close[head] = price;
+                volume[head] += vol;
+                return;
+            }
+            head = head + 1 == start.length ? 0 : head + 1;
+            if (count < start.length) count++;
+            start[head] = bucket;
+            open[head] = price;
+            high[head] = price;
+            low[head] = price;
+            close[head] = price;
+            volume[head] = vol;
+        }
+
+        // Kopiert die Kerzen mit Start in [from, to] (chronologisch) nach out
+        void copy(long from, long to, Series out) {
+            int capacity = start.length;
+            int oldest = count < capacity ? 0 : (head + 1) % capacity;
+            int n = 0;
+            for (int k = 0; k < count && n < out.capacity(); k++) {
+                int i = oldest + k;
+                if (i >= capacity) i -= capacity;
+                long s = start[i];
+                if (s < from) continue;
+                if (s > to) break;
+                out.start[n] = s;
+                out.open[n] = open[i];
+                out.high[n] = high[i];
+                out.low[n] = low[i];
+                out.close[n] = close[i];
+                out.volume[n] = volume[i];
+                n++;
+            }
+            out.size = n;
+        }
+    }
+
+    private final Ring[] rings;
+    private final StampedLock lock = new StampedLock();
+    private long ticks = 0;
+
+    public CandleEngine() {
+        Resolution[] resolutions = Resolution.values();
+        rings = new Ring[resolutions.length];
+        for (Resolution r : resolutions) {
+            rings[r.ordinal()] = new Ring(r);
+        }
+    }
+
+    /**
+     * Nimmt einen Preis-Tick auf.
+     * @param timestampMillis Zeitpunkt (Epoch-Millisekunden, auch virtuelle Zeit).
+     * @param price Preis nach dem Tick.
+     * @param volumeSc Gehandelte SC-Menge im Tick.
+     */
+    public void onTick(long timestampMillis, double price, double volumeSc) {
+        long stamp = lock.writeLock();
+        try {
+            for (Ring ring : rings) {
+                ring.add(timestampMillis, price, volumeSc);
+            }
+            ticks++;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Kopiert alle Kerzen einer Auflösung, deren Startzeit in [fromMillis, toMillis] liegt,
+     * chronologisch nach {@code out} (höchstens {@code out.capacity()} Stück). Allokiert nicht.
+     * @return Anzahl der kopierten Kerzen.
+     */
+    public int query(Resolution resolution, long fromMillis, long toMillis, Series out) {
+        Ring ring = rings[resolution.ordinal()];
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            ring.copy(fromMillis, toMillis, out);
+            if (lock.validate(stamp)) return out.size;
+        }
+        stamp = lock.readLock();
+        try {
+            ring.copy(fromMillis, toMillis, out);
+            return out.size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /** Die jüngsten {@code out.capacity()} Kerzen einer Auflösung. */
+    public int queryLatest(Resolution resolution, Series out) {
+        Ring ring = rings[resolution.ordinal()];
+        long stamp = lock.readLock();
+        long from;
+        try {
+            if (ring.count == 0) {
+                out.size = 0;
+                return 0;
+            }
+            int back = Math.min(ring.count, out.capacity()) - 1;
+            int i = Math.floorMod(ring.head - back, ring.start.length);
+            from = ring.start[i];
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        return query(resolution, from, Long.MAX_VALUE, out);
+    }
+
+    /** Anzahl gespeicherter Kerzen einer Auflösung. */
+    public int size(Resolution resolution) {
+        long stamp = lock.readLock();
+        try {
+            return rings[resolution.ordinal()].count;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public long getTickCount() {
+        long stamp = lock.readLock();
+        try {
+            return ticks;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("Kerzen:");
+        for (Resolution r : Resolution.values()) {
+            sb.append(String.format(Locale.US, " %s=%d", r.getLabel(), size(r)));
+        }
+        return sb.append(" | ").append(getTickCount()).append(" Ticks").toString();
+    }
+}
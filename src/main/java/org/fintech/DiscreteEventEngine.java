@@ -0,0 +1,113 @@
+package org.fintech;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Ereignisgesteuerte Simulation mit virtueller Uhr.
+ *
+ * Ereignisse (Trades, Wallet-Erstellung, Preis-Ticks, ...) liegen mit ihrem virtuellen Zeitpunkt in
+ * einer Prioritätswarteschlange; die Uhr springt direkt zum nächsten Ereignis, statt real zu warten.
+ * Eine Stunde Marktaktivität kostet so nur die reine Rechenzeit der Ereignisse.
+ *
+ * Vor jedem Ereignis wird die manuelle Uhr des {@link SimulationContext} auf die virtuelle Zeit
+ * gestellt, damit Blöcke mit virtueller Zeit gestempelt werden. Nicht thread-sicher: Ereignisse
+ * laufen nacheinander im Thread, der {@link #runUntil(long)} aufruft.
+ */
+public final class DiscreteEventEngine {
+
+    private static final class Event implements Comparable<Event> {
+        final long timeNanos;
+        final long sequence; // gleiche Zeit → Einplanungsreihenfolge (deterministisch)
+        final Runnable action;
+
+        Event(long timeNanos, long sequence, Runnable action) {
+            this.timeNanos = timeNanos;
+            this.sequence = sequence;
+            this.action = action;
+        }
+
+        @Override
+        public int compareTo(Event o) {
+            int c = Long.compare(timeNanos, o.timeNanos);
+            return c != 0 ? c : Long.compare(sequence, o.sequence);
+        }
+    }
+
+    private final PriorityQueue<Event> queue = new PriorityQueue<>();
+    private final long startMillis;
+    private long nowNanos = 0;
+    private long nextSequence = 0;
+    private long processedEvents = 0;
+    private long failedEvents = 0;
+
+    /**
+     * @param startMillis Virtuelle Startzeit (Epoch-Millisekunden) für Block-Timestamps.
+     */
+    public DiscreteEventEngine(long startMillis) {
+        this.startMillis = startMillis;
+    }
+
+    /** Virtuelle Zeit seit Start in Nanosekunden. */
+    public long now() { return nowNanos; }
+
+    /** Virtuelle Zeit als Epoch-Millisekunden. */
+    public long currentTimeMillis() {
+        return startMillis + TimeUnit.NANOSECONDS.toMillis(nowNanos);
+    }
+
+    public long getProcessedEvents() { return processedEvents; }
+    public long getFailedEvents() { return failedEvents; }
+    public int getPendingEvents() { return queue.size(); }
+
+    /** Plant ein einmaliges Ereignis {@code delayNanos} nach der aktuellen virtuellen Zeit ein. */
+    public void schedule(long delayNanos, Runnable action) {
+        queue.add(new Event(nowNanos + Math.max(0, delayNanos), nextSequence++, action));
+    }
+
+    /**
+     * Plant ein wiederkehrendes Ereignis ein: nach jeder Ausführung liefert {@code nextDelayNanos}
+     * den Abstand zur nächsten (fester Takt oder z.B. exponentiell verteilte Ankünfte).
+     */
+    public void scheduleRepeating(long initialDelayNanos, LongSupplier nextDelayNanos, Runnable action) {
+        schedule(initialDelayNanos, new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    action.run();
+                } finally {
+                    schedule(nextDelayNanos.getAsLong(), this);
+                }
+            }
+        });
+    }
+
+    /**
+     * Arbeitet alle Ereignisse bis einschließlich {@code endNanos} (virtuelle Zeit) ab – so schnell
+     * wie möglich – und stellt die Uhr danach auf {@code endNanos}.
+     * @return Anzahl der in diesem Aufruf verarbeiteten Ereignisse.
+     */
+    public long runUntil(long endNanos) {
+        long processed = 0;
+        while (!queue.isEmpty() && queue.peek().timeNanos <= endNanos) {
+            Event event = queue.poll();
+            nowNanos = event.timeNanos;
+            SimulationContext.advanceTimeTo(currentTimeMillis());
+            try {
+                event.action.run();
+            } catch (RuntimeException e) {
+                // Ein fehlerhaftes Ereignis beendet die Simulation nicht
+                failedEvents++;
+                if (failedEvents <= 5) {
+                    System.err.println("Fehler in Simulations-Ereignis: " + e);
+                }
+            }
+            processed++;
+        }
+        nowNanos = Math.max(nowNanos, endNanos);
+        SimulationContext.advanceTimeTo(currentTimeMillis());
+        processedEvents += processed;
+        return processed;
+    }
+}
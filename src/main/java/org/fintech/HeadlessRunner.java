@@ -0,0 +1,524 @@
+package org.fintech;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.random.RandomGenerator;
+
+/**
+ * Lasttest ohne JavaFX: treibt Blockchain, WalletManager und PriceSimulator direkt
+ * mit einer Ziel-Rate an Trades pro Sekunde und gibt am Ende einen Durchsatz-/Latenz-Bericht aus.
+ *
+ * Aufruf: {@code --headless [--tps N] [--wallets N] [--duration S] [--difficulty D] [--verbose]
+ * [--seed S [--record DATEI]] [--replay DATEI] [--agents N [--batch B]] [--adaptive [--slo-ms MS]]
+ * [--virtual-hours H [--wallet-rate R]] [--pricing impact|orderbook|amm] [--margin-share X]}
+ * Die Kette lebt nur im Speicher; blockchain.json, wallets.json und price.txt bleiben unverändert.
+ *
+ * Mit {@code --seed} läuft die Simulation deterministisch in einem einzigen Thread (siehe
+ * {@link SimulationContext}); {@code --record} schreibt die Block-Hashes mit, {@code --replay}
+ * wiederholt eine Aufzeichnung ohne Takt (volle Geschwindigkeit) und prüft sie Block für Block.
+ * Mit {@code --agents} handeln stattdessen N nebenläufige Agenten (alle Standard-Strategien gemischt,
+ * siehe {@link AgentRuntime}); {@code --batch} begrenzt die Aufträge pro Block.
+ * Mit {@code --adaptive} ist {@code --tps} nur die Startrate: ein {@link RateController} erhöht die
+ * Last, bis das p99-SLO der Commit-Latenz reißt, und meldet die nachhaltige TPS.
+ * Mit {@code --virtual-hours} läuft die Simulation ereignisgesteuert in virtueller Zeit
+ * ({@link DiscreteEventEngine}): Trades kommen als Poisson-Prozess mit {@code --tps}, neue Wallets
+ * mit {@code --wallet-rate} pro virtueller Sekunde – ohne reales Warten; der Bericht zeigt Stunden-Kerzen.
+ * {@code --pricing orderbook} ersetzt die Preiswirkungs-Formel durch ein Limit-Orderbuch
+ * ({@link OrderBookPricing}), {@code --pricing amm} durch einen x·y=k-Pool ({@link AmmPricing}).
+ * {@code --margin-share} ist der Anteil der Trades, die gehebelte Positionen eröffnen/schließen ({@link MarginEngine});
+ * ohne Angabe 0 (kein Margin-Handel).
+ */
+public final class HeadlessRunner {
+
+    private static final long TICK_MILLIS = 10;
+    // Maximaler Rückstand in Sekunden: danach wird nicht mehr aufgeholt, sondern verworfen
+    private static final double MAX_BACKLOG_SECONDS = 1.0;
+
+    private final int targetTps;
+    private final int walletCount;
+    private final int durationSeconds;
+    private final int difficulty;
+    private final boolean verbose;
+    private Long seed;                      // null = nicht deterministisch
+    private Path recordFile;
+    private SimulationRecording replay;
+    private int agentCount = 0;             // > 0 = Agenten-Modus statt TPS-Treiber
+    private int batchSize = 256;
+    private RateController rateController;  // nur mit --adaptive
+    private double tradeCredits = 0.0;      // angesammelte, noch nicht ausgeführte Trades
+    private double virtualHours = 0.0;      // > 0 = ereignisgesteuert in virtueller Zeit
+    private double walletRate = 0.1;        // neue Wallets pro virtueller Sekunde
+    private String pricingMode = "impact";
+    private double marginShare = DEFAULT_MARGIN_SHARE;
+    private static final int MAX_REPORTED_CANDLES = 24;
+    private static final double DEFAULT_MARGIN_SHARE = 0.0; // Margin-Handel nur auf Wunsch
+
+    private long attemptedTrades = 0;
+    private long droppedTrades = 0;
+
+    HeadlessRunner(int targetTps, int walletCount, int durationSeconds, int difficulty, boolean verbose) {
+        this.targetTps = targetTps;
+        this.walletCount = walletCount;
+        this.durationSeconds = durationSeconds;
+        this.difficulty = difficulty;
+        this.verbose = verbose;
+    }
+
+    public static void main(String[] args) {
+        int tps = 100;
+        int wallets = 1000;
+        int duration = 30;
+        int difficulty = 1;
+        boolean verbose = false;
+        Long seed = null;
+        Path record = null;
+        Path replay = null;
+        int agents = 0;
+        int batch = 256;
+        boolean adaptive = false;
+        long sloMillis = 20;
+        double virtualHours = 0.0;
+        double walletRate = 0.1;
+        String pricing = null; // null = Standard (impact) bzw. beim Replay aus der Aufzeichnung
+        Double marginShare = null; // null = Standard bzw. beim Replay aus der Aufzeichnung
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--headless" -> { }
+                    case "--tps" -> tps = Integer.parseInt(args[++i]);
+                    case "--wallets" -> wallets = Integer.parseInt(args[++i]);
+                    case "--duration" -> duration = Integer.parseInt(args[++i]);
+                    case "--difficulty" -> difficulty = Integer.parseInt(args[++i]);
+                    case "--verbose" -> verbose = true;
+                    case "--seed" -> seed = Long.parseLong(args[++i]);
+                    case "--record" -> record = Path.of(args[++i]);
+                    case "--replay" -> replay = Path.of(args[++i]);
+                    case "--agents" -> agents = Integer.parseInt(args[++i]);
+                    case "--batch" -> batch = Integer.parseInt(args[++i]);
+                    case "--adaptive" -> adaptive = true;
+                    case "--slo-ms" -> sloMillis = Long.parseLong(args[++i]);
+                    case "--virtual-hours" -> virtualHours = Double.parseDouble(args[++i]);
+                    case "--wallet-rate" -> walletRate = Double.parseDouble(args[++i]);
+                    case "--pricing" -> pricing = args[++i];
+                    case "--margin-share" -> marginShare = Double.parseDouble(args[++i]);
+                    default -> throw new IllegalArgumentException("Unbekanntes Argument: " + args[i]);
+                }
+            }
+            if (tps <= 0 || wallets <= 0 || duration <= 0) {
+                throw new IllegalArgumentException("--tps, --wallets und --duration müssen > 0 sein");
+            }
+            if (difficulty < 0) {
+                throw new IllegalArgumentException("--difficulty muss >= 0 sein");
+            }
+            if (record != null && seed == null) {
+                throw new IllegalArgumentException("--record benötigt --seed");
+            }
+            if (agents < 0 || batch <= 0) {
+                throw new IllegalArgumentException("--agents muss >= 0 und --batch > 0 sein");
+            }
+            if (adaptive && (agents > 0 || seed != null || replay != null)) {
+                throw new IllegalArgumentException("--adaptive regelt den TPS-Treiber und ist nicht mit --agents/--seed/--replay kombinierbar");
+            }
+            if (virtualHours < 0 || walletRate < 0) {
+                throw new IllegalArgumentException("--virtual-hours und --wallet-rate dürfen nicht negativ sein");
+            }
+            if (virtualHours > 0 && (agents > 0 || adaptive || replay != null || record != null)) {
+                throw new IllegalArgumentException("--virtual-hours ist nicht mit --agents/--adaptive/--record/--replay kombinierbar");
+            }
+            if (replay != null && (pricing != null || marginShare != null)) {
+                throw new IllegalArgumentException("--pricing/--margin-share kommen beim Replay aus der Aufzeichnung");
+            }
+            if (marginShare == null) {
+                marginShare = DEFAULT_MARGIN_SHARE;
+            }
+            if (pricing == null) {
+                pricing = "impact";
+            }
+            if (!isPricingMode(pricing)) {
+                throw new IllegalArgumentException("--pricing muss impact, orderbook oder amm sein");
+            }
+            if (marginShare < 0 || marginShare > 1) {
+                throw new IllegalArgumentException("--margin-share muss zwischen 0 und 1 liegen");
+            }
+            if (sloMillis <= 0) {
+                throw new IllegalArgumentException("--slo-ms muss > 0 sein");
+            }
+            if (agents > 0 && (seed != null || replay != null)) {
+                throw new IllegalArgumentException("--agents ist nebenläufig und nicht mit --seed/--replay kombinierbar");
+            }
+        } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
+            System.err.println("Fehler: " + (e instanceof ArrayIndexOutOfBoundsException ? "Wert fehlt" : e.getMessage()));
+            printUsage();
+            System.exit(2);
+            return;
+        }
+
+        HeadlessRunner runner;
+        if (replay != null) {
+            SimulationRecording recording;
+            try {
+                recording = SimulationRecording.read(replay);
+            } catch (IOException e) {
+                System.err.println("Fehler beim Lesen der Aufzeichnung: " + e.getMessage());
+                System.exit(1);
+                return;
+            }
+            int replayDuration = (int) Math.max(1, recording.getTrades() / recording.getTps());
+            runner = new HeadlessRunner(recording.getTps(), recording.getWallets(), replayDuration, recording.getDifficulty(), verbose);
+            runner.seed = recording.getSeed();
+            if (!isPricingMode(recording.getPricing())) {
+                System.err.println("Unbekannte Preisbildung in der Aufzeichnung: " + recording.getPricing());
+                System.exit(1);
+                return;
+            }
+            runner.pricingMode = recording.getPricing();
+            runner.marginShare = recording.getMarginShare();
+            runner.replay = recording;
+        } else {
+            runner = new HeadlessRunner(tps, wallets, duration, difficulty, verbose);
+            runner.seed = seed;
+            runner.recordFile = record;
+            runner.agentCount = agents;
+            runner.batchSize = batch;
+            runner.virtualHours = virtualHours;
+            runner.walletRate = walletRate;
+            runner.pricingMode = pricing;
+            runner.marginShare = marginShare;
+            if (adaptive) {
+                // Additiver Schritt: 10 % der Startrate pro eingehaltenem Fenster
+                runner.rateController = new RateController(tps, 1.0, 1_000_000.0, Math.max(1.0, tps * 0.1), sloMillis, tps);
+            }
+        }
+        runner.run();
+    }
+
+    private static boolean isPricingMode(String pricing) {
+        return pricing.equals("impact") || pricing.equals("orderbook") || pricing.equals("amm");
+    }
+
+    private static void printUsage() {
+        System.err.println("Verwendung: --headless [--tps N] [--wallets N] [--duration Sekunden] [--difficulty D] [--verbose]"
+                + " [--seed S [--record DATEI]] [--replay DATEI] [--agents N [--batch B]] [--adaptive [--slo-ms MS]]"
+                + " [--virtual-hours H [--wallet-rate R]] [--pricing impact|orderbook|amm] [--margin-share X]");
+    }
+
+    void run() {
+        System.out.printf(Locale.US, "=== HEADLESS-SIMULATION: %d TPS, %d Wallets, %d s, Difficulty %d%s ===%n",
+                targetTps, walletCount, durationSeconds, difficulty,
+                seed != null ? ", Seed " + seed + (replay != null ? ", Replay" : "") : "");
+
+        // Muss vor dem ersten Zugriff auf WalletManager passieren (Supply-Wallet entsteht beim Klassen-Laden)
+        if (seed != null) {
+            SimulationContext.enableSeeded(seed);
+        }
+        if (virtualHours > 0) {
+            SimulationContext.enableManualClock(seed != null ? SimulationContext.DEFAULT_START_MILLIS : System.currentTimeMillis());
+        }
+
+        Blockchain blockchain = new Blockchain("MyChain-headless", difficulty);
+        WalletManager.loadWallets(blockchain);
+
+        PriceSimulator priceSimulator = new PriceSimulator(1.00);
+        priceSimulator.setPersistent(false);
+        priceSimulator.setVerbose(verbose);
+        switch (pricingMode) {
+            case "orderbook" -> priceSimulator.setPricing(new OrderBookPricing());
+            case "amm" -> priceSimulator.setPricing(new AmmPricing(priceSimulator.getCurrentPrice()));
+            default -> { } // eingebaute Preiswirkungs-Formel
+        }
+
+        long setupStart = System.nanoTime();
+        WalletManager.createWallets(walletCount, blockchain, WalletManager.SUPPLY_WALLET);
+        System.out.printf(Locale.US, "Setup: %d Wallets in %.2f s%n", walletCount, (System.nanoTime() - setupStart) / 1e9);
+
+        NetworkSimulator simulator = new NetworkSimulator(blockchain, WalletManager.INSTANCE, priceSimulator);
+        simulator.setVerbose(verbose);
+        simulator.setMarginShare(marginShare);
+        if (rateController != null) {
+            simulator.setTradeRateController(rateController); // Commit-Latenzen fließen in den Regler
+        }
+        SimulationMetrics metrics = simulator.getMetrics();
+
+        long hashesBefore = blockchain.getHashesComputed();
+        metrics.reset();
+        long startNanos = System.nanoTime();
+
+        if (virtualHours > 0) {
+            DiscreteEventEngine engine = runVirtual(blockchain, simulator, metrics);
+            double elapsed = (System.nanoTime() - startNanos) / 1e9;
+            printReport(metrics, null, elapsed, blockchain.getHashesComputed() - hashesBefore, blockchain);
+            printVirtualReport(engine, elapsed, metrics);
+            return;
+        }
+
+        if (seed != null) {
+            long trades = replay != null ? replay.getTrades() : (long) targetTps * durationSeconds;
+            runSeeded(simulator, priceSimulator, metrics, trades, replay == null);
+            double elapsed = (System.nanoTime() - startNanos) / 1e9;
+            printReport(metrics, null, elapsed, blockchain.getHashesComputed() - hashesBefore, blockchain);
+            finishSeeded(blockchain, trades);
+            return;
+        }
+
+        if (agentCount > 0) {
+            AgentRuntime runtime = runAgents(simulator);
+            double elapsed = (System.nanoTime() - startNanos) / 1e9;
+            printReport(metrics, null, elapsed, blockchain.getHashesComputed() - hashesBefore, blockchain);
+            printAgentReport(runtime);
+            return;
+        }
+
+        long endNanos = startNanos + TimeUnit.SECONDS.toNanos(durationSeconds);
+        CountDownLatch finished = new CountDownLatch(1);
+
+        SimulationScheduler scheduler = new SimulationScheduler("headless");
+        long[] lastTick = { startNanos };
+        scheduler.scheduleAtFixedRate("price-tick", priceSimulator.getTickMillis(), priceSimulator.getTickMillis(),
+                TimeUnit.MILLISECONDS, simulator::applyPriceTick);
+        SimulationScheduler.Stream tradeStream = scheduler.scheduleAtFixedRate("trades", 0, TICK_MILLIS, TimeUnit.MILLISECONDS, () -> {
+            long now = System.nanoTime();
+            if (now >= endNanos) {
+                finished.countDown();
+                return;
+            }
+            runDueTrades(simulator, metrics, now - lastTick[0], now);
+            lastTick[0] = now;
+        });
+
+        try {
+            finished.await(durationSeconds + 60L, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        scheduler.shutdown();
+        priceSimulator.applyTick();
+
+        double elapsed = (System.nanoTime() - startNanos) / 1e9;
+        long hashes = blockchain.getHashesComputed() - hashesBefore;
+        printReport(metrics, tradeStream, elapsed, hashes, blockchain);
+    }
+
+    /**
+     * Schreibt der Rate entsprechend Trades gut (Ziel-TPS oder Regler-Rate × vergangene Zeit)
+     * und führt die fälligen aus; nicht geschaffte bleiben als Rückstand für den nächsten Takt.
+     */
+    private void runDueTrades(NetworkSimulator simulator, SimulationMetrics metrics, long elapsedNanos, long now) {
+        double rate = targetTps;
+        if (rateController != null) {
+            rateController.maybeAdjust((int) Math.min(Integer.MAX_VALUE, (long) tradeCredits));
+            rate = rateController.getRate();
+        }
+        tradeCredits += rate * elapsedNanos / 1e9;
+
+        double maxBacklog = Math.max(1.0, rate * MAX_BACKLOG_SECONDS);
+        if (tradeCredits > maxBacklog) {
+            droppedTrades += (long) (tradeCredits - maxBacklog);
+            tradeCredits = maxBacklog;
+        }
+        while (tradeCredits >= 1.0) {
+            if (System.nanoTime() >= now + TimeUnit.MILLISECONDS.toNanos(TICK_MILLIS)) break; // Rest im nächsten Takt
+            tradeCredits -= 1.0;
+            attemptedTrades++;
+            if (!simulator.simulateTrade()) {
+                metrics.recordRejectedTrade();
+            }
+        }
+    }
+
+    // Agenten gleichmäßig auf die Standard-Strategien verteilen; Wale bekommen die USD-reichsten Wallets
+    private AgentRuntime runAgents(NetworkSimulator simulator) {
+        AgentRuntime runtime = new AgentRuntime(simulator, batchSize, TICK_MILLIS);
+        List<TraderStrategy> strategies = TraderStrategies.defaults();
+        for (int i = 0; i < strategies.size(); i++) {
+            TraderStrategy strategy = strategies.get(i);
+            int count = agentCount / strategies.size() + (i < agentCount % strategies.size() ? 1 : 0);
+            if (strategy instanceof TraderStrategies.WhaleStrategy) {
+                for (Wallet w : WalletManager.getLeaderboard().topByUsdBalance(count)) {
+                    runtime.addAgent(strategy, w);
+                }
+            } else {
+                runtime.addAgents(strategy, count);
+            }
+        }
+
+        runtime.start();
+        try {
+            Thread.sleep(TimeUnit.SECONDS.toMillis(durationSeconds));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        runtime.stop();
+        return runtime;
+    }
+
+    private void printAgentReport(AgentRuntime runtime) {
+        double price = PriceSimulator.getMarketPrice();
+        System.out.printf(Locale.US, "Agenten-Batches:    %d (Batch max. %d)%n", runtime.getCommittedBatches(), batchSize);
+        for (AgentRuntime.StrategyStats s : runtime.getStats()) {
+            System.out.printf(Locale.US, "  %s | PnL %+.0f USD%n", s, s.getPnl(price));
+        }
+    }
+
+    // Exponentialverteilter Abstand → Poisson-Ankünfte mit der angegebenen Rate
+    private static long exponentialGapNanos(RandomGenerator random, double ratePerSecond) {
+        return (long) (-Math.log(1.0 - random.nextDouble()) * 1e9 / ratePerSecond);
+    }
+
+    private DiscreteEventEngine runVirtual(Blockchain blockchain, NetworkSimulator simulator, SimulationMetrics metrics) {
+        DiscreteEventEngine engine = new DiscreteEventEngine(SimulationContext.currentTimeMillis());
+        RandomGenerator arrivals = SimulationContext.random("des-arrivals");
+
+        engine.scheduleRepeating(exponentialGapNanos(arrivals, targetTps), () -> exponentialGapNanos(arrivals, targetTps), () -> {
+            attemptedTrades++;
+            if (!simulator.simulateTrade()) {
+                metrics.recordRejectedTrade();
+            }
+        });
+        if (walletRate > 0) {
+            engine.scheduleRepeating(exponentialGapNanos(arrivals, walletRate), () -> exponentialGapNanos(arrivals, walletRate),
+                    () -> WalletManager.createWallet(blockchain, WalletManager.SUPPLY_WALLET, verbose));
+        }
+        PriceSimulator priceSimulator = simulator.getPriceSimulator();
+        long impactTickNanos = TimeUnit.MILLISECONDS.toNanos(priceSimulator.getTickMillis());
+        engine.scheduleRepeating(impactTickNanos, () -> impactTickNanos, simulator::applyPriceTick);
+
+        // In Schritten von einer virtuellen Stunde, mit Fortschrittsausgabe
+        long endNanos = (long) (virtualHours * TimeUnit.HOURS.toNanos(1));
+        long wallStart = System.nanoTime();
+        for (long t = 0; t < endNanos; ) {
+            t = Math.min(endNanos, t + TimeUnit.HOURS.toNanos(1));
+            engine.runUntil(t);
+            System.out.printf(Locale.US, "  virtuell %6.2f h | real %7.2f s | %d Blöcke | %d Wallets | Preis %.4f%n",
+                    t / 3.6e12, (System.nanoTime() - wallStart) / 1e9, blockchain.getChain().size(),
+                    WalletManager.getSnapshot().size(), PriceSimulator.getMarketPrice());
+        }
+        priceSimulator.applyTick();
+        return engine;
+    }
+
+    private void printVirtualReport(DiscreteEventEngine engine, double wallSeconds, SimulationMetrics metrics) {
+        double virtualSeconds = engine.now() / 1e9;
+        System.out.printf(Locale.US, "Virtuelle Zeit:     %.2f h in %.2f s real (Faktor %.0f×)%n",
+                virtualSeconds / 3600.0, wallSeconds, virtualSeconds / Math.max(1e-9, wallSeconds));
+        System.out.printf(Locale.US, "Ereignisse:         %d (%d fehlerhaft, %.0f/s real)%n",
+                engine.getProcessedEvents(), engine.getFailedEvents(), engine.getProcessedEvents() / Math.max(1e-9, wallSeconds));
+        System.out.printf(Locale.US, "Pro virtueller s:   %.2f Blöcke, %.2f TX%n",
+                metrics.getCommittedBlocks() / virtualSeconds, metrics.getCommittedTransactions() / virtualSeconds);
+
+        // Preisverlauf aus den Stunden-Kerzen statt eigener Stichproben
+        CandleEngine candles = PriceSimulator.getActive().getCandles();
+        CandleEngine.Series hours = new CandleEngine.Series(MAX_REPORTED_CANDLES);
+        candles.queryLatest(CandleEngine.Resolution.HOUR_1, hours);
+        double low = Double.MAX_VALUE;
+        double high = 0.0;
+        for (int i = 0; i < hours.size(); i++) {
+            low = Math.min(low, hours.getLow(i));
+            high = Math.max(high, hours.getHigh(i));
+        }
+        System.out.printf(Locale.US, "Preis (%d h):        Tief %.4f, Hoch %.4f | %s%n",
+                hours.size(), hours.size() > 0 ? low : 0.0, high, candles);
+        for (int i = 0; i < hours.size(); i++) {
+            System.out.printf(Locale.US, "  %s  O %.4f  H %.4f  L %.4f  C %.4f  V %.0f SC%n",
+                    java.time.Instant.ofEpochMilli(hours.getStartMillis(i)), hours.getOpen(i), hours.getHigh(i),
+                    hours.getLow(i), hours.getClose(i), hours.getVolume(i));
+        }
+    }
+
+    /**
+     * Deterministischer Treiber: ein Thread, feste Anzahl Trades, manuelle Uhr pro Trade vorgestellt.
+     * @param paced true = im Takt der Ziel-TPS (Aufzeichnung), false = volle Geschwindigkeit (Replay).
+     */
+    private void runSeeded(NetworkSimulator simulator, PriceSimulator priceSimulator, SimulationMetrics metrics,
+                           long trades, boolean paced) {
+        long startNanos = System.nanoTime();
+        long startMillis = SimulationContext.currentTimeMillis();
+        long nextPriceTick = startMillis + priceSimulator.getTickMillis();
+        for (long i = 0; i < trades; i++) {
+            if (paced) {
+                long due = startNanos + (long) (i * 1e9 / targetTps);
+                long wait = due - System.nanoTime();
+                if (wait > 0) LockSupport.parkNanos(wait);
+            }
+            SimulationContext.advanceTimeTo(startMillis + i * 1000L / targetTps);
+            // Preis-Ticks nach der manuellen Uhr: deterministisch, unabhängig von der Laufzeit
+            if (SimulationContext.currentTimeMillis() >= nextPriceTick) {
+                simulator.applyPriceTick();
+                nextPriceTick = SimulationContext.currentTimeMillis() + priceSimulator.getTickMillis();
+            }
+            attemptedTrades++;
+            if (!simulator.simulateTrade()) {
+                metrics.recordRejectedTrade();
+            }
+        }
+        priceSimulator.applyTick();
+    }
+
+    private void finishSeeded(Blockchain blockchain, long trades) {
+        if (recordFile != null) {
+            SimulationRecording recording = new SimulationRecording(seed, targetTps, walletCount, trades, difficulty,
+                    pricingMode, marginShare, SimulationRecording.hashesOf(blockchain));
+            try {
+                recording.write(recordFile);
+                System.out.printf("Aufzeichnung:       %d Block-Hashes nach %s geschrieben%n", recording.getBlockHashes().size(), recordFile);
+            } catch (IOException e) {
+                System.err.println("Fehler beim Schreiben der Aufzeichnung: " + e.getMessage());
+            }
+        }
+        if (replay != null) {
+            int mismatch = replay.firstMismatch(blockchain);
+            if (mismatch < 0) {
+                System.out.printf("Replay:             identisch (%d Blöcke)%n", replay.getBlockHashes().size());
+            } else {
+                System.out.printf("Replay:             ABWEICHUNG ab Block #%d (aufgezeichnet %d Blöcke, jetzt %d)%n",
+                        mismatch, replay.getBlockHashes().size(), blockchain.getChain().size());
+                System.exit(3);
+            }
+        }
+    }
+
+    private static void printPricing() {
+        PriceSimulator active = PriceSimulator.getActive();
+        if (active != null && active.getAppliedTicks() > 0) {
+            System.out.printf(Locale.US, "Preis-Updates:      %d (Tick %d ms, Ø %.1f Trades pro Tick)%n",
+                    active.getAppliedTicks(), active.getTickMillis(), (double) active.getBatchedTrades() / active.getAppliedTicks());
+        }
+        if (active != null && active.getPricing() != null) {
+            System.out.println("Preisbildung:       " + active.getPricing());
+        }
+    }
+
+    private void printReport(SimulationMetrics metrics, SimulationScheduler.Stream tradeStream,
+                             double elapsed, long hashes, Blockchain blockchain) {
+        LatencyHistogram latency = metrics.getCommitLatency();
+        System.out.println();
+        System.out.println("=== HEADLESS-BERICHT ===");
+        System.out.printf(Locale.US, "Laufzeit:           %.2f s%n", elapsed);
+        if (agentCount == 0) {
+            System.out.printf(Locale.US, "Ziel-TPS:           %d%n", targetTps);
+            System.out.printf(Locale.US, "Trade-Versuche:     %d (%d ohne Block, %d verworfen wegen Rückstand)%n",
+                    attemptedTrades, metrics.getRejectedTrades(), droppedTrades);
+        }
+        System.out.printf(Locale.US, "Blöcke:             %d (%.1f Blöcke/s)%n", metrics.getCommittedBlocks(), metrics.getCommittedBlocks() / elapsed);
+        System.out.printf(Locale.US, "Transaktionen:      %d (%.1f TX/s)%n", metrics.getCommittedTransactions(), metrics.getCommittedTransactions() / elapsed);
+        System.out.printf(Locale.US, "Hashes:             %d (%.0f Hashes/s)%n", hashes, hashes / elapsed);
+        System.out.printf(Locale.US, "Commit-Latenz:      p50 %.3f ms | p99 %.3f ms | max %.3f ms | Ø %.3f ms%n",
+                latency.percentileNanos(0.50) / 1e6, latency.percentileNanos(0.99) / 1e6,
+                latency.getMaxNanos() / 1e6, latency.getMeanNanos() / 1e6);
+        if (tradeStream != null) {
+            System.out.println("Scheduler:          " + tradeStream);
+        }
+        if (rateController != null) {
+            System.out.printf(Locale.US, "Nachhaltige TPS:    %.1f (Regler: %s)%n", rateController.getSustainableRate(), rateController);
+        }
+        System.out.printf(Locale.US, "Endpreis:           %.4f USD%n", PriceSimulator.getMarketPrice());
+        printPricing();
+        System.out.println("Positionen:         " + WalletManager.getMarginEngine());
+        System.out.println("Kette gültig:       " + blockchain.isChainValid());
+    }
+}
@@ -0,0 +1,163 @@
+package org.fintech;
+
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import java.security.*;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Begrenzter Vorrat an fertigem Schlüsselmaterial (secp256k1-Schlüsselpaar, Base64 und Adresse).
+ * Hintergrund-Threads füllen den Vorrat nach, damit die Wallet-Erstellung keine
+ * EC-Schlüsselgenerierung mehr abwarten muss. Ist der Vorrat leer, wird synchron erzeugt.
+ */
+public final class KeyMaterialPool {
+
+    private static final int CAPACITY = 512;
+    private static final int REFILL_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+    private static final BlockingQueue<KeyMaterial> pool = new ArrayBlockingQueue<>(CAPACITY);
+    private static final AtomicBoolean refillStarted = new AtomicBoolean(false);
+    private static final AtomicLong poolHits = new AtomicLong();
+    private static final AtomicLong poolMisses = new AtomicLong();
+
+    // 🔧 PERFORMANCE: Provider nur einmal registrieren, Generator pro Thread wiederverwenden
+    static {
+        if (Security.getProvider(BouncyCastleProvider.PROVIDER_NAME) == null) {
+            Security.addProvider(new BouncyCastleProvider());
+        }
+    }
+
+    private static final ThreadLocal<KeyPairGenerator> GENERATOR = ThreadLocal.withInitial(() -> {
+        try {
+            KeyPairGenerator gen = KeyPairGenerator.getInstance("ECDSA", "BC");
+            gen.initialize(new ECGenParameterSpec("secp256k1"), new SecureRandom());
+            return gen;
+        } catch (Exception e) {
+            throw new RuntimeException("Key-Generator konnte nicht initialisiert werden", e);
+        }
+    });
+
+    private KeyMaterialPool() {}
+
+    /** Fertiges Schlüsselmaterial für genau eine Wallet. */
+    public static final class KeyMaterial {
+        private final PrivateKey privateKey;
+        private final PublicKey publicKey;
+        private final String privateKeyB64;
+        private final String publicKeyB64;
+        private final String address;
+
+        KeyMaterial(PrivateKey privateKey, PublicKey publicKey, String address) {
+            this.privateKey = privateKey;
+            this.publicKey = publicKey;
+            this.privateKeyB64 = Base64.getEncoder().encodeToString(privateKey.getEncoded());
+            this.publicKeyB64 = Base64.getEncoder().encodeToString(publicKey.getEncoded());
+            this.address = address;
+        }
+
+        public PrivateKey getPrivateKey() { return privateKey; }
+        public PublicKey getPublicKey() { return publicKey; }
+        public String getPrivateKeyB64() { return privateKeyB64; }
+        public String getPublicKeyB64() { return publicKeyB64; }
+        public String getAddress() { return address; }
+    }
+
+    /**
+     * Entnimmt fertiges Schlüsselmaterial aus dem Vorrat (startet beim ersten Aufruf die Nachfüll-Threads).
+     * Ist der Vorrat leer, wird das Material synchron im aufrufenden Thread erzeugt.
+     */
+    public static KeyMaterial take() {
+        if (SimulationContext.isSeeded()) {
+            return generateSeeded(); // Seed-Modus: feste Reihenfolge, kein Vorrat
+        }
+        startRefill();
+        KeyMaterial material = pool.poll();
+        if (material != null) {
+            poolHits.incrementAndGet();
+            return material;
+        }
+        poolMisses.incrementAndGet();
+        return generate();
+    }
+
+    /** Erzeugt neues Schlüsselmaterial sofort (ohne Vorrat). */
+    public static KeyMaterial generate() {
+        KeyPair pair = GENERATOR.get().generateKeyPair();
+        return new KeyMaterial(pair.getPrivate(), pair.getPublic(), generateAddress(pair.getPublic()));
+    }
+
+    // Ein Generator für den Seed-Modus; synchronisiert, damit die Reihenfolge der Zufallsbytes fest bleibt
+    private static KeyPairGenerator seededGenerator;
+    private static SecureRandom seededRandom;
+
+    private static synchronized KeyMaterial generateSeeded() {
+        SecureRandom random = SimulationContext.keyRandom();
+        try {
+            if (seededGenerator == null || seededRandom != random) {
+                seededGenerator = KeyPairGenerator.getInstance("ECDSA", "BC");
+                seededGenerator.initialize(new ECGenParameterSpec("secp256k1"), random);
+                seededRandom = random;
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Key-Generator konnte nicht initialisiert werden", e);
+        }
+        KeyPair pair = seededGenerator.generateKeyPair();
+        return new KeyMaterial(pair.getPrivate(), pair.getPublic(), generateAddress(pair.getPublic()));
+    }
+
+    public static int getAvailable() { return pool.size(); }
+    public static long getPoolHits() { return poolHits.get(); }
+    public static long getPoolMisses() { return poolMisses.get(); }
+
+    private static void startRefill() {
+        if (!refillStarted.compareAndSet(false, true)) return;
+
+        for (int i = 0; i < REFILL_THREADS; i++) {
+            Thread t = new Thread(KeyMaterialPool::refillLoop, "key-pool-refill-" + i);
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            t.start();
+        }
+    }
+
+    private static void refillLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                pool.put(generate()); // blockiert, solange der Vorrat voll ist
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                System.err.println("Fehler beim Nachfüllen des Schlüssel-Vorrats: " + e.getMessage());
+            }
+        }
+    }
+
+    // Adresse: SHA-256 → RIPEMD160 → Versionsbyte + Double-SHA-256-Checksumme → Base58
+    private static String generateAddress(PublicKey publicKey) {
+        try {
+            byte[] pubBytes = publicKey.getEncoded();
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            byte[] shaHash = sha256.digest(pubBytes);
+            MessageDigest ripemd160 = MessageDigest.getInstance("RIPEMD160", "BC");
+            byte[] ripeHash = ripemd160.digest(shaHash);
+
+            byte[] versioned = new byte[ripeHash.length + 1];
+            versioned[0] = 0x00;
+            System.arraycopy(ripeHash, 0, versioned, 1, ripeHash.length);
+
+            MessageDigest doubleSha = MessageDigest.getInstance("SHA-256");
+            byte[] checksum = doubleSha.digest(doubleSha.digest(versioned));
+            byte[] finalBytes = new byte[versioned.length + 4];
+            System.arraycopy(versioned, 0, finalBytes, 0, versioned.length);
+            System.arraycopy(checksum, 0, finalBytes, versioned.length, 4);
+
+            return "1" + StringUtil.base58Encode(finalBytes);
+        } catch (Exception e) {
+            return "1Error" + System.currentTimeMillis();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package org.fintech;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-sicheres Latenz-Histogramm mit log-linearen Buckets (ähnlich HdrHistogram):
+ * pro Zweierpotenz 16 Unter-Buckets, also ca. 6 % relative Auflösung über den gesamten
+ * Bereich von 1 ns bis ~9 s (darüber landet alles im letzten Bucket).
+ * Aufzeichnen ist O(1) und sperrfrei; Perzentile kosten O(Buckets).
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 33; // 2^33 ns ≈ 8.6 s
+    private static final int BUCKETS = (MAX_EXPONENT + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private volatile long maxNanos = 0;
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        counts.incrementAndGet(bucket(nanos));
+        totalCount.increment();
+        totalNanos.add(nanos);
+        if (nanos > maxNanos) {
+            synchronized (this) {
+                if (nanos > maxNanos) maxNanos = nanos;
+            }
+        }
+    }
+
+    public long getCount() { return totalCount.sum(); }
+    public long getMaxNanos() { return maxNanos; }
+
+    public double getMeanNanos() {
+        long n = totalCount.sum();
+        return n > 0 ? (double) totalNanos.sum() / n : 0.0;
+    }
+
+    /**
+     * Näherung des q-Perzentils (0..1) in Nanosekunden (obere Grenze des Buckets).
+     */
+    public long percentileNanos(double q) {
+        long n = totalCount.sum();
+        if (n == 0) return 0;
+        long rank = (long) Math.ceil(Math.max(0.0, Math.min(1.0, q)) * n);
+        if (rank < 1) rank = 1;
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += counts.get(b);
+            if (seen >= rank) {
+                return Math.min(upperBound(b), maxNanos);
+            }
+        }
+        return maxNanos;
+    }
+
+    public void reset() {
+        for (int b = 0; b < BUCKETS; b++) counts.set(b, 0);
+        totalCount.reset();
+        totalNanos.reset();
+        maxNanos = 0;
+    }
+
+    // Bucket = (Exponent, obere 4 Mantissen-Bits); Werte < 16 ns linear
+    private static int bucket(long nanos) {
+        if (nanos < SUB_BUCKETS) return (int) nanos;
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos); // >= SUB_BUCKET_BITS
+        if (exponent > MAX_EXPONENT) return BUCKETS - 1;
+        int sub = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    private static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int sub = bucket % SUB_BUCKETS;
+        long base = 1L << exponent;
+        long step = base >>> SUB_BUCKET_BITS;
+        return base + (sub + 1) * step - 1;
+    }
+}
@@ -1,10 +1,16 @@
 package org.fintech;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class Main {
     public static void main(String[] args) {
+        // Lasttest ohne Display: java ... Main --headless --tps 500 --wallets 5000 --duration 60
+        if (Arrays.asList(args).contains("--headless")) {
+            HeadlessRunner.main(args);
+            return;
+        }
         // Startet nun die Login-GUI
         MyChainGUI.launch(MyChainGUI.class, args);
     }
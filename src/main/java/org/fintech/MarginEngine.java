@@ -0,0 +1,180 @@
+package org.fintech;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Gehebelte Long- und Short-Positionen mit Maintenance-Margin (eine Position pro Wallet).
+ *
+ * Positionen entstehen und enden ausschließlich durch Margin-Transaktionen in der Blockchain
+ * ({@link TransactionKind#MARGIN_OPEN_LONG}, {@link TransactionKind#MARGIN_OPEN_SHORT},
+ * {@link TransactionKind#MARGIN_CLOSE}, {@link TransactionKind#LIQUIDATION}); der {@link WalletManager}
+ * wendet sie beim Balance-Update unter seinem Write-Lock an. Der Zustand ist damit aus der Kette
+ * rekonstruierbar.
+ *
+ * Jede Position steht mit ihrem Liquidationspreis in einer preissortierten Skip-List (je eine für
+ * Long und Short). Pro Preis-Tick liefert {@link #triggered(double)} nur die Positionen, deren
+ * Schwelle überschritten wurde – O(log n + k) statt eines Scans über alle Wallets.
+ * Lesen ist lock-frei; geschrieben wird nur unter dem Write-Lock des WalletManagers.
+ */
+public final class MarginEngine {
+
+    public static final double MAINTENANCE_MARGIN = 0.05; // 5 % des Positionswerts
+    public static final double MAX_LEVERAGE = 10.0;
+
+    /** Eine offene Margin-Position (unveränderlich). */
+    public static final class Position {
+        private final Wallet wallet;
+        private final boolean isLong;
+        private final double sizeSc;
+        private final double entryPrice;
+        private final double marginUsd;
+        private final double liquidationPrice;
+
+        Position(Wallet wallet, boolean isLong, double sizeSc, double entryPrice, double marginUsd) {
+            this.wallet = wallet;
+            this.isLong = isLong;
+            this.sizeSc = sizeSc;
+            this.entryPrice = entryPrice;
+            this.marginUsd = marginUsd;
+            this.liquidationPrice = liquidationPrice(isLong, sizeSc, entryPrice, marginUsd);
+        }
+
+        public Wallet getWallet() { return wallet; }
+        public boolean isLong() { return isLong; }
+        public double getSizeSc() { return sizeSc; }
+        public double getEntryPrice() { return entryPrice; }
+        public double getMarginUsd() { return marginUsd; }
+        public double getLiquidationPrice() { return liquidationPrice; }
+        public double getNotionalUsd() { return sizeSc * entryPrice; }
+        public double getLeverage() { return getNotionalUsd() / marginUsd; }
+
+        public double unrealizedPnl(double price) {
+            return isLong ? sizeSc * (price - entryPrice) : sizeSc * (entryPrice - price);
+        }
+
+        /** Margin + unrealisierter PnL. */
+        public double equity(double price) {
+            return marginUsd + unrealizedPnl(price);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%s %.3f SC @ %.4f (%.1fx, Liquidation %.4f)",
+                    isLong ? "LONG" : "SHORT", sizeSc, entryPrice, getLeverage(), liquidationPrice);
+        }
+    }
+
+    /**
+     * Preis, bei dem das Eigenkapital auf die Maintenance-Margin fällt:
+     * Long {@code (s·e − m) / (s·(1 − mm))}, Short {@code (m + s·e) / (s·(1 + mm))}.
+     */
+    static double liquidationPrice(boolean isLong, double sizeSc, double entryPrice, double marginUsd) {
+        if (isLong) {
+            return Math.max(0.0, (sizeSc * entryPrice - marginUsd) / (sizeSc * (1.0 - MAINTENANCE_MARGIN)));
+        }
+        return (marginUsd + sizeSc * entryPrice) / (sizeSc * (1.0 + MAINTENANCE_MARGIN));
+    }
+
+    // Sortiert nach Liquidationspreis, bei Gleichstand nach Wallet-ID (eindeutig)
+    private static final Comparator<Position> BY_TRIGGER = Comparator
+            .comparingDouble(Position::getLiquidationPrice)
+            .thenComparingInt(p -> p.wallet.getUniqueId());
+
+    private final Map<Wallet, Position> byWallet = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Position> longTriggers = new ConcurrentSkipListSet<>(BY_TRIGGER);
+    private final ConcurrentSkipListSet<Position> shortTriggers = new ConcurrentSkipListSet<>(BY_TRIGGER);
+
+    private final LongAdder opened = new LongAdder();
+    private final LongAdder closed = new LongAdder();
+    private final LongAdder liquidated = new LongAdder();
+    private final DoubleAdder forfeitedMarginUsd = new DoubleAdder();
+
+    /** Eröffnet eine Position (der Aufrufer stellt sicher, dass die Wallet keine offene hat). */
+    void open(Wallet wallet, boolean isLong, double sizeSc, double entryPrice, double marginUsd) {
+        remove(wallet);
+        Position p = new Position(wallet, isLong, sizeSc, entryPrice, marginUsd);
+        byWallet.put(wallet, p);
+        (isLong ? longTriggers : shortTriggers).add(p);
+        opened.increment();
+    }
+
+    /**
+     * Schließt die Position einer Wallet.
+     * @param liquidation True bei Zwangsschließung.
+     * @param payoutUsd Ausgezahlter Betrag (für die Statistik der einbehaltenen Margin).
+     * @return Die geschlossene Position oder null, wenn keine offen war.
+     */
+    Position close(Wallet wallet, boolean liquidation, double payoutUsd) {
+        Position p = remove(wallet);
+        if (p == null) return null;
+        if (liquidation) {
+            liquidated.increment();
+            forfeitedMarginUsd.add(Math.max(0.0, p.marginUsd - payoutUsd));
+        } else {
+            closed.increment();
+        }
+        return p;
+    }
+
+    private Position remove(Wallet wallet) {
+        Position p = byWallet.remove(wallet);
+        if (p != null) {
+            (p.isLong ? longTriggers : shortTriggers).remove(p);
+        }
+        return p;
+    }
+
+    /** Verwirft alle Positionen und Zähler (vor einer vollständigen Neuberechnung aus der Kette). */
+    void reset() {
+        byWallet.clear();
+        longTriggers.clear();
+        shortTriggers.clear();
+        opened.reset();
+        closed.reset();
+        liquidated.reset();
+        forfeitedMarginUsd.reset();
+    }
+
+    public Position get(Wallet wallet) {
+        return byWallet.get(wallet);
+    }
+
+    /**
+     * Positionen, deren Liquidationsschwelle beim angegebenen Preis erreicht ist:
+     * Longs mit Liquidationspreis ≥ Preis, Shorts mit Liquidationspreis ≤ Preis. O(log n + k).
+     */
+    public List<Position> triggered(double price) {
+        List<Position> hits = new ArrayList<>();
+        for (Position p : longTriggers.descendingSet()) {
+            if (p.liquidationPrice < price) break;
+            hits.add(p);
+        }
+        for (Position p : shortTriggers) {
+            if (p.liquidationPrice > price) break;
+            hits.add(p);
+        }
+        return hits;
+    }
+
+    public int getOpenPositions() { return byWallet.size(); }
+    public int getOpenLongs() { return longTriggers.size(); }
+    public int getOpenShorts() { return shortTriggers.size(); }
+    public long getOpened() { return opened.sum(); }
+    public long getClosed() { return closed.sum(); }
+    public long getLiquidated() { return liquidated.sum(); }
+    public double getForfeitedMarginUsd() { return forfeitedMarginUsd.sum(); }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "Margin: %d offen (%d Long, %d Short) | %d eröffnet, %d geschlossen, %d liquidiert (%.0f USD Margin einbehalten)",
+                getOpenPositions(), getOpenLongs(), getOpenShorts(), getOpened(), getClosed(), getLiquidated(), getForfeitedMarginUsd());
+    }
+}
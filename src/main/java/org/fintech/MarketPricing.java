@@ -0,0 +1,41 @@
+package org.fintech;
+
+/**
+ * Austauschbare Preisbildung für {@link PriceSimulator#executeTrade(double, boolean)}.
+ *
+ * Ohne gesetzte Preisbildung nutzt der {@link PriceSimulator} seine eingebaute Preiswirkungs-Formel;
+ * eine Implementierung ersetzt diese und liefert den neuen Marktpreis nach dem Trade.
+ */
+public interface MarketPricing {
+
+    /**
+     * Führt einen Markt-Trade aus.
+     * @param amountSC Gehandelte SC-Menge (> 0).
+     * @param isBuy True, wenn SC gekauft wird.
+     * @param currentPrice Marktpreis vor dem Trade.
+     * @return Marktpreis nach dem Trade (z.B. VWAP der Fills oder Spotpreis des Pools).
+     */
+    double executeTrade(double amountSC, boolean isBuy, double currentPrice);
+
+    /**
+     * Durchschnittlicher Ausführungspreis (USD je SC), den ein Trade dieser Größe jetzt erhielte,
+     * ohne ihn auszuführen. Zu diesem Preis wird der Trade abgerechnet. Standard: der Marktpreis.
+     * @return Ausführungspreis oder {@link Double#POSITIVE_INFINITY}, wenn der Markt die Menge nicht hergibt.
+     */
+    default double quote(double amountSC, boolean isBuy, double currentPrice) {
+        return currentPrice;
+    }
+
+    /**
+     * Führt die Käufe und Verkäufe eines Ticks gemeinsam aus. Standard: nur der Saldo wird gehandelt;
+     * Implementierungen können das überschreiben (z.B. Gebühren auf das Bruttovolumen).
+     * @return Marktpreis nach dem Batch.
+     */
+    default double executeBatch(double buySC, double sellSC, double currentPrice) {
+        double net = buySC - sellSC;
+        return net == 0 ? currentPrice : executeTrade(Math.abs(net), net > 0, currentPrice);
+    }
+
+    /** Kurzbeschreibung für Berichte. */
+    String getName();
+}
@@ -0,0 +1,225 @@
+package org.fintech;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Laufende Markt-Aggregate über alle User-Wallets (ohne Supply-Wallet).
+ * Wird aus den Balance-Deltas jedes Blocks aktualisiert (O(berührte Wallets)) und beantwortet
+ * Summen/Market Cap in O(1) sowie Verteilungsfragen (Gini, Perzentile) in O(Buckets)
+ * über logarithmische Histogramme – ohne über alle Wallets zu iterieren.
+ */
+public final class MarketStats implements Consumer<WalletDelta> {
+
+    // Log2-Buckets: Bucket 0 = Werte <= 0, danach [2^(i-1-OFFSET), 2^(i-OFFSET)), gedeckelt
+    static final int BUCKETS = 64;
+    private static final int OFFSET = 20; // kleinste Auflösung ~ 1e-6
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Set<Wallet> counted = Collections.newSetFromMap(new IdentityHashMap<>()); // bereits erfasste Wallets
+
+    private long userWalletCount = 0;
+    private long scHolderCount = 0;
+    private double totalUserSc = 0.0;
+    private double totalUserUsd = 0.0;
+    private double totalLongPositionUsd = 0.0;
+    private double supplySc = 0.0;
+
+    private final long[] scCounts = new long[BUCKETS];
+    private final double[] scSums = new double[BUCKETS];
+    private final long[] usdCounts = new long[BUCKETS];
+    private final double[] usdSums = new double[BUCKETS];
+
+    @Override
+    public void accept(WalletDelta delta) {
+        lock.writeLock().lock();
+        try {
+            if (delta.isReset()) {
+                clear();
+            }
+            for (int i = 0; i < delta.size(); i++) {
+                Wallet w = delta.getWallet(i);
+                if (w == WalletManager.SUPPLY_WALLET) {
+                    supplySc = delta.getScBalance(i);
+                    continue;
+                }
+                // Neue Wallet: keine alten Werte abziehen, nur zählen
+                if (counted.add(w)) {
+                    userWalletCount++;
+                } else {
+                    remove(delta.getPrevScBalance(i), delta.getPrevUsdBalance(i), delta.getPrevLongPosition(i));
+                }
+                add(delta.getScBalance(i), delta.getUsdBalance(i), delta.getLongPosition(i));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void add(double sc, double usd, double longUsd) {
+        totalUserSc += sc;
+        totalUserUsd += usd;
+        totalLongPositionUsd += longUsd;
+        if (sc > 0) scHolderCount++;
+        int b = bucket(sc);
+        scCounts[b]++;
+        scSums[b] += sc;
+        b = bucket(usd);
+        usdCounts[b]++;
+        usdSums[b] += usd;
+    }
+
+    private void remove(double sc, double usd, double longUsd) {
+        totalUserSc -= sc;
+        totalUserUsd -= usd;
+        totalLongPositionUsd -= longUsd;
+        if (sc > 0) scHolderCount--;
+        int b = bucket(sc);
+        scCounts[b]--;
+        scSums[b] -= sc;
+        b = bucket(usd);
+        usdCounts[b]--;
+        usdSums[b] -= usd;
+    }
+
+    private void clear() {
+        counted.clear();
+        userWalletCount = 0;
+        scHolderCount = 0;
+        totalUserSc = 0.0;
+        totalUserUsd = 0.0;
+        totalLongPositionUsd = 0.0;
+        supplySc = 0.0;
+        Arrays.fill(scCounts, 0);
+        Arrays.fill(scSums, 0.0);
+        Arrays.fill(usdCounts, 0);
+        Arrays.fill(usdSums, 0.0);
+    }
+
+    static int bucket(double value) {
+        if (!(value > 0)) return 0;
+        int exp = Math.getExponent(value) + 1 + OFFSET; // floor(log2(v)) + 1 + OFFSET
+        return Math.max(1, Math.min(BUCKETS - 1, exp));
+    }
+
+    // Untere Grenze eines Buckets (für Perzentile)
+    static double bucketLowerBound(int bucket) {
+        if (bucket <= 0) return 0.0;
+        return Math.scalb(1.0, bucket - 1 - OFFSET);
+    }
+
+    // ====================================================================
+    // O(1)-Abfragen
+    // ====================================================================
+
+    public long getUserWalletCount() { return (long) read(() -> userWalletCount); }
+    public long getScHolderCount() { return (long) read(() -> scHolderCount); }
+    public double getTotalUserSc() { return read(() -> totalUserSc); }
+    public double getTotalUserUsd() { return read(() -> totalUserUsd); }
+    public double getTotalLongPositionUsd() { return read(() -> totalLongPositionUsd); }
+    public double getSupplySc() { return read(() -> supplySc); }
+
+    /** Market Cap der umlaufenden (von Usern gehaltenen) SC zum angegebenen Preis. */
+    public double getMarketCap(double price) { return getTotalUserSc() * price; }
+
+    /** Market Cap inkl. der noch in der Supply-Wallet liegenden SC. */
+    public double getFullyDilutedMarketCap(double price) {
+        return read(() -> (totalUserSc + supplySc) * price);
+    }
+
+    private double read(DoubleSupplier supplier) {
+        lock.readLock().lock();
+        try {
+            return supplier.getAsDouble();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ====================================================================
+    // O(Buckets)-Abfragen
+    // ====================================================================
+
+    public Distribution getScDistribution() { return copy(scCounts, scSums); }
+    public Distribution getUsdDistribution() { return copy(usdCounts, usdSums); }
+
+    private Distribution copy(long[] counts, double[] sums) {
+        lock.readLock().lock();
+        try {
+            return new Distribution(counts.clone(), sums.clone());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Unveränderliche Kopie eines Log-Histogramms mit Auswertungen. */
+    public static final class Distribution {
+        private final long[] counts;
+        private final double[] sums;
+
+        Distribution(long[] counts, double[] sums) {
+            this.counts = counts;
+            this.sums = sums;
+        }
+
+        public int getBucketCount() { return counts.length; }
+        public long getCount(int bucket) { return counts[bucket]; }
+        public double getSum(int bucket) { return sums[bucket]; }
+        public double getLowerBound(int bucket) { return bucketLowerBound(bucket); }
+
+        /**
+         * Gini-Koeffizient auf Bucket-Ebene (innerhalb eines Buckets als gleich verteilt angenommen,
+         * daher eine untere Schranke des exakten Werts). Negative Beträge zählen als 0.
+         */
+        public double gini() {
+            long n = 0;
+            double total = 0.0;
+            for (int b = 1; b < counts.length; b++) {
+                n += counts[b];
+                total += Math.max(0.0, sums[b]);
+            }
+            n += counts[0];
+            if (n == 0 || total <= 0) return 0.0;
+
+            // Lorenz-Kurve über die aufsteigend sortierten Buckets (Trapezregel)
+            double area = 0.0;
+            double cumShare = 0.0;
+            for (int b = 0; b < counts.length; b++) {
+                if (counts[b] == 0) continue;
+                double popShare = (double) counts[b] / n;
+                double wealthShare = b == 0 ? 0.0 : Math.max(0.0, sums[b]) / total;
+                area += popShare * (2 * cumShare + wealthShare) / 2.0;
+                cumShare += wealthShare;
+            }
+            return Math.max(0.0, Math.min(1.0, 1.0 - 2.0 * area));
+        }
+
+        /**
+         * Näherung des q-Perzentils (0..1): Bucket finden, darin geometrisch interpolieren.
+         */
+        public double percentile(double q) {
+            long n = 0;
+            for (long c : counts) n += c;
+            if (n == 0) return 0.0;
+
+            double rank = Math.max(0.0, Math.min(1.0, q)) * (n - 1);
+            long seen = 0;
+            for (int b = 0; b < counts.length; b++) {
+                if (counts[b] == 0) continue;
+                if (rank < seen + counts[b]) {
+                    if (b == 0) return 0.0;
+                    double lower = bucketLowerBound(b);
+                    double fraction = (rank - seen + 0.5) / counts[b];
+                    return lower * Math.pow(2.0, fraction); // Bucket deckt [lower, 2*lower) ab
+                }
+                seen += counts[b];
+            }
+            return bucketLowerBound(counts.length - 1);
+        }
+    }
+}
@@ -1,7 +1,7 @@
 package org.fintech;
 
 import javafx.application.Application;
-import javafx.application.Platform;
+import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
 import javafx.scene.Scene;
 import javafx.scene.chart.LineChart;
@@ -11,13 +11,15 @@ import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import javafx.stage.Stage;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class MyChainGUI extends Application {
-    public static final String EXCHANGE_ADDRESS = "EXCHANGE_MARKET_SC_SELL";
+    public static final String EXCHANGE_ADDRESS = NetworkSimulator.EXCHANGE_ADDRESS;
 
     // GUI-Komponenten
     private Blockchain blockchain;
-    private ListView<String> blockList;
+    // 🔧 Blöcke statt fertiger Strings: Zeilen formatiert die Zell-Factory nur für sichtbare Zellen
+    private ListView<Block> blockList;
     private TextArea detailsArea;
     private ComboBox<String> fromCombo;
     private ComboBox<String> toCombo;
@@ -25,9 +27,20 @@ public class MyChainGUI extends Application {
     private PriceSimulator priceSimulator;
     private Label currentPriceLabel;
     private Label biasLabel;
+    private Label marginLabel;
+    private Label marketStatsLabel;
     private LineChart<Number, Number> priceChart;
     private XYChart.Series<Number, Number> series;
-    private long timeIndex = 0;
+    // 🔧 Chart-Daten: volle Historie, LTTB-Reduktion auf Pixelbreite im Hintergrund-Thread
+    private PriceChartPipeline chartPipeline;
+    private Label chartWindowLabel;
+    // 🔧 Render-Takt: Modelländerungen setzen Dirty-Flags, gezeichnet wird höchstens einmal pro Frame
+    private final RenderPulse renderPulse = new RenderPulse();
+    private RenderPulse.View marketView;
+    private RenderPulse.View priceView;
+    private RenderPulse.View chartView;
+    private final AtomicReference<PriceChartPipeline.Points> pendingChartPoints = new AtomicReference<>();
+    private long lastComboMembershipVersion = -1; // 🔧 Combo-Boxen nur bei neuen Wallets neu befüllen
     private static Stage primaryStage;
 
     // Buttons
@@ -41,10 +54,7 @@ public class MyChainGUI extends Application {
     private static MyChainGUI instance;
 
     public static double getCurrentCoinPrice() {
-        if (instance != null && instance.priceSimulator != null) {
-            return instance.priceSimulator.getCurrentPrice();
-        }
-        return 1.00;
+        return PriceSimulator.getMarketPrice();
     }
 
     public MyChainGUI(Wallet loggedInWallet) {
@@ -66,6 +76,7 @@ public class MyChainGUI extends Application {
         createGUI(stage);
 
         stage.show();
+        renderPulse.start();
     }
 
     private void initializeComponents() {
@@ -76,24 +87,31 @@ public class MyChainGUI extends Application {
         double initialPrice = PriceSimulator.loadPrice(1.00);
         this.priceSimulator = new PriceSimulator(initialPrice);
 
+        // Callbacks laufen direkt im Simulator-Thread und markieren nur Views (kein Platform.runLater)
         networkSimulator = new NetworkSimulator(blockchain, WalletManager.INSTANCE, priceSimulator);
     }
 
     private void setupNetworkSimulator() {
-        networkSimulator.setOnUpdate(() -> {
+        marketView = renderPulse.register("markt", () -> {
             // 🔧 PERFORMANCE: Wallet-Liste wird jetzt mit Caching aktualisiert
             if (walletListViewManager != null) {
                 walletListViewManager.updateWalletList();
             }
             updateComboBoxes();
-            updateBlockList();
-            Platform.runLater(this::updatePriceChart);
-            if (!blockchain.getChain().isEmpty()) {
-                blockList.getSelectionModel().select(blockchain.getChain().size() - 1);
+            updateMarketStatsLabel();
+            // Nur bei neuen Blöcken den letzten auswählen (und dessen Details rendern)
+            if (updateBlockList()) {
+                blockList.getSelectionModel().selectLast();
             }
         });
+        priceView = renderPulse.register("preis", this::updatePriceLabel);
+        chartView = renderPulse.register("chart", () -> {
+            PriceChartPipeline.Points points = pendingChartPoints.getAndSet(null);
+            if (points != null) showChartPoints(points);
+        });
 
-        networkSimulator.setOnPriceUpdate(this::updatePriceLabel);
+        networkSimulator.setOnUpdate(marketView::markDirty);
+        networkSimulator.setOnPriceUpdate(priceView::markDirty);
     }
 
     private void createGUI(Stage stage) {
@@ -104,15 +122,19 @@ public class MyChainGUI extends Application {
         // Top: Preis-Label
         currentPriceLabel = new Label("SC Preis: 1.00 USD");
         currentPriceLabel.setStyle("-fx-font-weight: bold; -fx-font-size: 1.2em; -fx-padding: 0 0 10 0;");
-        HBox topControls = new HBox(10, currentPriceLabel);
+        marketStatsLabel = new Label();
+        marketStatsLabel.setStyle("-fx-font-size: 1.0em; -fx-padding: 3 0 10 20;");
+        updateMarketStatsLabel();
+        HBox topControls = new HBox(10, currentPriceLabel, marketStatsLabel);
         root.setTop(topControls);
 
         // Left: Block-Liste
         blockList = new ListView<>();
         blockList.setPrefWidth(320);
+        blockList.setCellFactory(list -> new BlockCell());
         updateBlockList();
-        blockList.getSelectionModel().selectedItemProperty().addListener((obs, old, newVal) -> {
-            if (newVal != null) showBlockDetails(newVal);
+        blockList.getSelectionModel().selectedIndexProperty().addListener((obs, old, newVal) -> {
+            if (newVal.intValue() >= 0) showBlockDetails(newVal.intValue());
         });
         VBox leftPanel = new VBox(10, new Label("Blöcke in der Chain:"), blockList);
 
@@ -146,35 +168,30 @@ public class MyChainGUI extends Application {
 
         VBox priceChartBox = createPriceChart();
 
-        // Wallet-Liste mit Manager
-        ListView<String> walletList = new ListView<>();
-        walletList.setPrefHeight(150);
-
-        ComboBox<String> sortKeyCombo = new ComboBox<>();
-        Button sortDirectionButton = new Button("↓ Desc");
+        // Wallet-Tabelle mit Manager (sortierbar per Spaltenkopf, Doppelklick öffnet Details)
+        TableView<Wallet> walletTable = new TableView<>();
+        walletTable.setPrefHeight(150);
 
         // 🔧 PERFORMANCE: WalletListViewManager verwenden
-        walletListViewManager = new WalletListViewManager(walletList, sortKeyCombo, sortDirectionButton, loggedInWallet);
-        walletListViewManager.setupWalletDoubleClick();
-
-        HBox sortControls = new HBox(10, new Label("Sortieren nach:"), sortKeyCombo, sortDirectionButton);
-        sortControls.setPadding(new Insets(0, 0, 5, 0));
+        walletListViewManager = new WalletListViewManager(walletTable, loggedInWallet);
 
         // Buttons
-        HBox walletButtons = createWalletButtons(walletList);
+        HBox walletButtons = createWalletButtons();
 
         // Bias Controls
         biasLabel = new Label("Kaufinteresse (Bias): 50% (50:50)");
         biasLabel.setStyle("-fx-font-weight: bold;");
         Slider biasSlider = createBiasSlider();
-        VBox biasControl = new VBox(5, biasLabel, biasSlider);
+        marginLabel = new Label("Margin-Handel: aus");
+        marginLabel.setStyle("-fx-font-weight: bold;");
+        Slider marginSlider = createMarginSlider();
+        VBox biasControl = new VBox(5, biasLabel, biasSlider, marginLabel, marginSlider);
         biasControl.setPadding(new Insets(0, 0, 10, 0));
 
         // Wallet Box
         VBox walletBox = new VBox(10,
                 new Label("Wallet-Übersicht:"),
-                walletList,
-                sortControls,
+                walletTable,
                 walletButtons
         );
         walletBox.setStyle("-fx-border-color: #ccc; -fx-border-radius: 5; -fx-padding: 10;");
@@ -190,10 +207,10 @@ public class MyChainGUI extends Application {
         );
     }
 
-    private HBox createWalletButtons(ListView<String> walletList) {
+    private HBox createWalletButtons() {
         Button newWalletBtn = new Button("Neue Wallet erstellen");
         newWalletBtn.setStyle("-fx-background-color: #2196F3; -fx-text-fill: white; -fx-font-weight: bold; -fx-padding: 10;");
-        newWalletBtn.setOnAction(e -> createNewWallet(walletList));
+        newWalletBtn.setOnAction(e -> createNewWallet());
 
         simulationBtn = new Button("Netzwerk simulieren");
         simulationBtn.setStyle("-fx-background-color: #e74c3c; -fx-text-fill: white; -fx-font-weight: bold; -fx-padding: 10;");
@@ -233,9 +250,27 @@ public class MyChainGUI extends Application {
         return biasSlider;
     }
 
+    // Anteil der Trades mit Hebel (Standard 0 = aus, wie ohne Margin-Handel)
+    private Slider createMarginSlider() {
+        Slider marginSlider = new Slider(0.0, 0.5, 0.0);
+        marginSlider.setShowTickMarks(true);
+        marginSlider.setMajorTickUnit(0.1);
+        marginSlider.setMinorTickCount(4);
+        marginSlider.setSnapToTicks(true);
+        marginSlider.setPrefWidth(300);
+
+        marginSlider.valueProperty().addListener((obs, oldVal, newVal) -> {
+            networkSimulator.setMarginShare(newVal.doubleValue());
+            marginLabel.setText(newVal.doubleValue() <= 0.0 ? "Margin-Handel: aus"
+                    : String.format("Margin-Handel: %.0f%% der Trades", newVal.doubleValue() * 100));
+        });
+
+        return marginSlider;
+    }
+
     // ========== HELPER METHODS ==========
 
-    private void createNewWallet(ListView<String> walletList) {
+    private void createNewWallet() {
         Wallet w = WalletManager.createWallet(blockchain, WalletManager.SUPPLY_WALLET);
 
         // 🔧 PERFORMANCE: Cache invalidieren
@@ -290,6 +325,9 @@ public class MyChainGUI extends Application {
         if (networkSimulator != null) {
             networkSimulator.stop();
         }
+        if (chartPipeline != null) chartPipeline.stop();
+        stopRenderPulse();
+        if (walletListViewManager != null) walletListViewManager.dispose();
         WalletManager.saveWallets();
 
         if (primaryStage != null) {
@@ -297,33 +335,76 @@ public class MyChainGUI extends Application {
         }
     }
 
+    private void stopRenderPulse() {
+        renderPulse.stop();
+        System.out.println("   Render-Takt: " + renderPulse.getFrames() + " Frames");
+        for (RenderPulse.View view : renderPulse.getViews()) {
+            System.out.println("      " + view);
+        }
+    }
+
     private void updatePriceLabel() {
         if (priceSimulator != null) {
             currentPriceLabel.setText(String.format("SC Preis: %.4f USD", priceSimulator.getCurrentPrice()));
         }
     }
 
-    private void updateBlockList() {
-        blockList.getItems().clear();
-        int i = 0;
-        for (Block b : blockchain.getChain()) {
-            blockList.getItems().add(String.format("Block #%d | %.16s... | %d Tx | Nonce: %d",
-                    i++, b.getHash(), b.getTransactions().size(), b.getNonce()));
+    // 🔧 AGGREGATE: O(1)/O(Buckets) aus MarketStats statt Iteration über alle Wallets
+    private void updateMarketStatsLabel() {
+        if (marketStatsLabel == null) return;
+        MarketStats stats = WalletManager.getMarketStats();
+        double price = getCurrentCoinPrice();
+        marketStatsLabel.setText(String.format("Umlauf: %,.3f SC | Market Cap: %,.2f USD | User-Wallets: %,d | Gini (USD): %.3f",
+                stats.getTotalUserSc(), stats.getMarketCap(price), stats.getUserWalletCount(),
+                stats.getUsdDistribution().gini()));
+    }
+
+    /**
+     * Hängt nur die seit dem letzten Aufruf neuen Blöcke an (Kosten ~ Anzahl neuer Blöcke).
+     * Wurde die Kette zurückgesetzt oder ersetzt, wird die Liste einmal komplett neu aufgebaut.
+     * @return true, wenn sich die Liste geändert hat.
+     */
+    private boolean updateBlockList() {
+        List<Block> chain = blockchain.getChain();
+        ObservableList<Block> items = blockList.getItems();
+        int shown = items.size();
+        int height = chain.size();
+        if (shown == height && (shown == 0 || items.get(shown - 1) == chain.get(shown - 1))) {
+            return false;
+        }
+        if (shown > height || (shown > 0 && items.get(shown - 1) != chain.get(shown - 1))) {
+            items.setAll(chain);
+            return true;
+        }
+        items.addAll(chain.subList(shown, height)); // ein Änderungs-Event für alle neuen Blöcke
+        return true;
+    }
+
+    // Formatiert eine Zeile erst, wenn die Zelle sichtbar wird; die Block-Nummer ist der Zellen-Index
+    private static final class BlockCell extends ListCell<Block> {
+        @Override
+        protected void updateItem(Block b, boolean empty) {
+            super.updateItem(b, empty);
+            if (empty || b == null) {
+                setText(null);
+            } else {
+                setText(String.format("Block #%d | %.16s... | %d Tx | Nonce: %d",
+                        getIndex(), b.getHash(), b.getTransactionCount(), b.getNonce()));
+            }
         }
     }
 
-    private void showBlockDetails(String selected) {
-        int idx = blockList.getSelectionModel().getSelectedIndex();
-        if (idx < 0) return;
+    private void showBlockDetails(int idx) {
+        if (idx < 0 || idx >= blockList.getItems().size()) return;
 
-        Block block = blockchain.getChain().get(idx);
+        Block block = blockList.getItems().get(idx);
         StringBuilder sb = new StringBuilder();
         sb.append("BLOCK #").append(idx).append("\n");
         sb.append("Hash:          ").append(block.getHash()).append("\n")
                 .append("Previous Hash: ").append(block.getPreviousHash()).append("\n")
                 .append("Timestamp:     ").append(new Date(block.getTimeStamp())).append("\n")
                 .append("Nonce:         ").append(block.getNonce()).append("\n")
-                .append("Transaktionen: ").append(block.getTransactions().size()).append("\n")
+                .append("Transaktionen: ").append(block.getTransactionCount()).append("\n")
                 .append("═".repeat(70)).append("\n\n");
 
         for (Transaction tx : block.getTransactions()) {
@@ -339,45 +420,77 @@ public class MyChainGUI extends Application {
     private VBox createPriceChart() {
         final NumberAxis xAxis = new NumberAxis();
         final NumberAxis yAxis = new NumberAxis();
-        xAxis.setLabel("Zeit (in Updates)");
+        xAxis.setLabel("Zeit (Sekunden vor dem letzten Tick)");
+        xAxis.setAutoRanging(false);
         yAxis.setLabel("Preis (USD)");
         yAxis.setForceZeroInRange(false);
 
         priceChart = new LineChart<>(xAxis, yAxis);
-        priceChart.setTitle("Live SC Preisentwicklung (1-Sekunden-Takt)");
+        priceChart.setTitle("Live SC Preisentwicklung");
         priceChart.setPrefHeight(300);
         priceChart.setAnimated(false);
         priceChart.setLegendVisible(false);
+        priceChart.setCreateSymbols(false);
 
         series = new XYChart.Series<>();
         series.setName("SC Preis");
         priceChart.getData().add(series);
-        series.getData().add(new XYChart.Data<>(timeIndex, priceSimulator.getCurrentPrice()));
 
-        return new VBox(priceChart);
+        // Nur der jüngste Punktsatz zählt; der Render-Takt übernimmt ihn im nächsten Frame
+        chartPipeline = new PriceChartPipeline(priceSimulator.enableHistory(), Runnable::run, points -> {
+            pendingChartPoints.set(points);
+            chartView.markDirty();
+        });
+        chartWindowLabel = new Label();
+        updateChartWindow(xAxis);
+
+        // Mausrad zoomt das Zeitfenster (hinein: kürzer, heraus: bis 24 h)
+        priceChart.setOnScroll(e -> {
+            if (e.getDeltaY() == 0) return;
+            chartPipeline.zoom(e.getDeltaY() > 0 ? 0.5 : 2.0);
+            updateChartWindow(xAxis);
+        });
+        priceChart.widthProperty().addListener((obs, old, width) ->
+                chartPipeline.setPixelWidth(width.intValue()));
+        chartPipeline.start();
+
+        return new VBox(priceChart, chartWindowLabel);
     }
 
-    private void updatePriceChart() {
-        if (priceChart != null) {
-            timeIndex++;
-            double currentPrice = priceSimulator.getCurrentPrice();
-            series.getData().add(new XYChart.Data<>(timeIndex, currentPrice));
+    private void updateChartWindow(NumberAxis xAxis) {
+        long seconds = chartPipeline.getWindowMillis() / 1000;
+        xAxis.setLowerBound(-seconds);
+        xAxis.setUpperBound(0);
+        xAxis.setTickUnit(Math.max(1, seconds / 10));
+        chartWindowLabel.setText(seconds >= 3600
+                ? String.format("Fenster: %.1f h (Mausrad zum Zoomen)", seconds / 3600.0)
+                : String.format("Fenster: %d s (Mausrad zum Zoomen)", seconds));
+    }
 
-            if (series.getData().size() > 1000) {
-                series.getData().remove(0);
-                ((NumberAxis) priceChart.getXAxis()).setLowerBound(timeIndex - 1000);
-                ((NumberAxis) priceChart.getXAxis()).setUpperBound(timeIndex);
-            }
+    // Übernimmt einen fertig heruntergerechneten Punktsatz: eine Listenänderung statt add/remove je Punkt
+    private void showChartPoints(PriceChartPipeline.Points points) {
+        List<XYChart.Data<Number, Number>> data = new ArrayList<>(points.size());
+        long end = points.getToMillis();
+        for (int i = 0; i < points.size(); i++) {
+            data.add(new XYChart.Data<>((points.getTimeMillis(i) - end) / 1000.0, points.getPrice(i)));
         }
+        series.getData().setAll(data);
     }
 
     private void updateComboBoxes() {
-        List<String> addresses = WalletManager.getWallets().stream().map(Wallet::getAddress).toList();
-
         if (fromCombo == null || toCombo == null) {
             return;
         }
 
+        // 🔧 PERFORMANCE: Adressen ändern sich nur, wenn Wallets hinzukommen
+        WalletSnapshot snapshot = WalletManager.getSnapshot();
+        if (snapshot.getMembershipVersion() == lastComboMembershipVersion) {
+            return;
+        }
+        lastComboMembershipVersion = snapshot.getMembershipVersion();
+
+        List<String> addresses = snapshot.getWallets().stream().map(Wallet::getAddress).toList();
+
         fromCombo.getItems().setAll(addresses);
 
         List<String> toAddresses = new ArrayList<>(addresses);
@@ -409,6 +522,9 @@ public class MyChainGUI extends Application {
             PriceSimulator.savePrice(priceSimulator.getCurrentPrice());
             WalletManager.saveWallets();
             if (networkSimulator != null) networkSimulator.stop();
+            if (chartPipeline != null) chartPipeline.stop();
+            stopRenderPulse();
+            if (walletListViewManager != null) walletListViewManager.dispose();
         });
     }
 
@@ -1,32 +1,56 @@
 package org.fintech;
 
-import javafx.application.Platform;
 import java.util.*;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.Locale;
+import java.util.random.RandomGenerator;
 
 public class NetworkSimulator {
+    // Gegenadresse für Verkäufe an den Markt (kein echtes Wallet)
+    public static final String EXCHANGE_ADDRESS = "EXCHANGE_MARKET_SC_SELL";
+
     private final Blockchain blockchain;
     private final WalletManager walletManager;
     private final PriceSimulator priceSimulator;
-    private Timer walletTimer;
-    private Timer transactionTimer;
-    private Timer updateTimer;
-    private Timer priceUpdateTimer;
+    // 🔧 Ein Scheduler (Timer-Thread + virtuelle Worker) statt vier java.util.Timer-Threads
+    private SimulationScheduler scheduler;
+    private SimulationScheduler.Stream walletStream;
+    private SimulationScheduler.Stream tradeStream;
+    private SimulationScheduler.Stream updateStream;
+    // 🔧 Preis-Updates per Abonnement (nur bei Änderung, konflatiert) statt 100-ms-Polling
+    private PriceFeed.Subscription priceSubscription;
+    private SimulationScheduler.Stream priceTickStream;
     private final AtomicBoolean running = new AtomicBoolean(false);
     private Runnable onUpdateCallback;
     private Runnable onPriceUpdateCallback;
-    private static final long MIN_WALLET_CREATION_PERIOD = 50;
-    private long currentWalletCreationPeriod = 1000;
+    // Standard: Callbacks direkt im Simulator-Thread (headless; die GUI markiert darin nur Views ihres RenderPulse)
+    private Executor uiExecutor = Runnable::run;
+    private volatile boolean verbose = true;
+    private final SimulationMetrics metrics = new SimulationMetrics();
+    private static final long MIN_WALLET_CREATION_PERIOD = 10; // Schlüssel kommen aus dem KeyMaterialPool
+    private volatile long currentWalletCreationPeriod = 1000;
     private final double periodMultiplier = 0.9;
     private final int periodThreshold = 50;
-    private double buyBias = 0.50;
+    private volatile double buyBias = 0.50;
+    // Anteil der Trade-Versuche, die gehebelte Positionen eröffnen/schließen (siehe MarginEngine); 0 = aus
+    private volatile double marginShare = 0.0;
+    private static final double MARGIN_CLOSE_PROBABILITY = 0.3;
     private static final long GUI_UPDATE_PERIOD = 1000;
     private static final long INITIAL_MIN_DELAY = 1290;
+    // Regelkreis: Commit-p99 über diesem Wert oder Rückstand → Trade-Rate senken
+    private static final long TRADE_LATENCY_SLO_MILLIS = 50;
+    private static final int MAX_TRADE_BACKLOG = 5;
+    private volatile RateController tradeRateController;
+    private long expectedTradeNanos = 0;
     private static long currentTradeMinDelay = INITIAL_MIN_DELAY;
 
+    // Handelsspanne wird nur neu berechnet, wenn sich die Wallet-Anzahl ändert
+    private int tradeRangeWalletCount = -1;
+    private long tradeRangeMinDelay = INITIAL_MIN_DELAY;
+    private long tradeRangeMaxDelay = INITIAL_MIN_DELAY;
+
     public NetworkSimulator(Blockchain blockchain, WalletManager walletManager, PriceSimulator priceSimulator) {
         this.blockchain = blockchain;
         this.walletManager = walletManager;
@@ -41,6 +65,19 @@ public class NetworkSimulator {
         this.onPriceUpdateCallback = callback;
     }
 
+    public void setUiExecutor(Executor uiExecutor) {
+        this.uiExecutor = uiExecutor != null ? uiExecutor : Runnable::run;
+    }
+
+    // Einzelne Trades auf der Konsole protokollieren (headless bei hoher Last abschalten)
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+    }
+
+    public SimulationMetrics getMetrics() {
+        return metrics;
+    }
+
     public boolean isRunning() {
         return running.get();
     }
@@ -49,81 +86,94 @@ public class NetworkSimulator {
         this.buyBias = Math.max(0.0, Math.min(1.0, bias));
     }
 
+    public void setMarginShare(double share) {
+        this.marginShare = Math.max(0.0, Math.min(1.0, share));
+    }
+
+    /** Aktive Streams mit ihren Raten-Metriken (leer, wenn die Simulation nicht läuft). */
+    public List<SimulationScheduler.Stream> getStreams() {
+        SimulationScheduler s = scheduler;
+        return s != null ? s.getStreams() : Collections.emptyList();
+    }
+
     public void start() {
         if (running.getAndSet(true)) return;
 
         currentTradeMinDelay = INITIAL_MIN_DELAY;
+        tradeRangeWalletCount = -1;
         this.currentWalletCreationPeriod = 2000;
+        scheduler = new SimulationScheduler("network-sim");
+        // Start bei ~1 Trade/s; +1/s pro eingehaltenem Fenster, max. 1000/s (1 ms Abstand)
+        tradeRateController = new RateController(1.0, 0.5, 1000.0, 1.0, TRADE_LATENCY_SLO_MILLIS, MAX_TRADE_BACKLOG);
+        expectedTradeNanos = 0;
         System.out.println("=== NETZWERK-SIMULATION GESTARTET ===");
 
         startWalletGeneration();
 
-        transactionTimer = new Timer(true);
-        scheduleNextTrade(5);
+        tradeStream = scheduler.scheduleJittered("trades", 5, TimeUnit.MILLISECONDS,
+                this::nextTradeDelayNanos, () -> {
+                    if (running.get()) simulateTrade();
+                });
 
-        updateTimer = new Timer(true);
-        updateTimer.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                triggerUpdate();
-            }
-        }, 0, GUI_UPDATE_PERIOD);
+        // 🔧 Trades sammeln nur Volumen; der Preis ändert sich einmal pro Tick
+        priceTickStream = scheduler.scheduleAtFixedRate("price-tick", priceSimulator.getTickMillis(),
+                priceSimulator.getTickMillis(), TimeUnit.MILLISECONDS, this::applyPriceTick);
 
-        priceUpdateTimer = new Timer(true);
-        priceUpdateTimer.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                triggerPriceUpdate();
-            }
-        }, 0, 100);
+        updateStream = scheduler.scheduleAtFixedRate("gui-update", 0, GUI_UPDATE_PERIOD, TimeUnit.MILLISECONDS,
+                this::triggerUpdate);
+
+        priceSubscription = priceSimulator.getPriceFeed().subscribe(uiExecutor, tick -> {
+            Runnable callback = onPriceUpdateCallback;
+            if (callback != null) callback.run();
+        });
     }
 
     public void stop() {
         running.set(false);
         stopWalletGeneration();
 
-        if (transactionTimer != null) {
-            transactionTimer.cancel();
-            transactionTimer = null;
-        }
-        if (updateTimer != null) {
-            updateTimer.cancel();
-            updateTimer = null;
+        if (scheduler != null) {
+            for (SimulationScheduler.Stream stream : scheduler.getStreams()) {
+                System.out.println("   " + stream);
+            }
+            System.out.println("   Trade-Regler: " + tradeRateController);
+            scheduler.shutdown();
+            scheduler = null;
         }
-        if (priceUpdateTimer != null) {
-            priceUpdateTimer.cancel();
-            priceUpdateTimer = null;
+        priceSimulator.applyTick(); // Rest des letzten Ticks übernehmen
+        if (priceSubscription != null) {
+            System.out.printf("   price-feed: %d Updates zugestellt, %d konflatiert%n",
+                    priceSubscription.getDelivered(), priceSubscription.getConflated());
+            priceSubscription.cancel();
+            priceSubscription = null;
         }
+        tradeStream = null;
+        priceTickStream = null;
+        updateStream = null;
         System.out.println("=== NETZWERK-SIMULATION GESTOPPT ===");
     }
 
     public void startWalletGeneration() {
-        if (running.get() && walletTimer == null) {
-            walletTimer = new Timer(true);
+        if (running.get() && walletStream == null && scheduler != null) {
             System.out.println("--- Wallet-Generierung wieder gestartet. ---");
             System.out.printf("→ Neue Wallet alle %.2fs (dynamisch, verlangsamt alle %d Wallets um %.0f%%)%n",
                     currentWalletCreationPeriod / 1000.0, periodThreshold, (100 - periodMultiplier * 100));
-            scheduleNextWalletCreation(currentWalletCreationPeriod);
+            walletStream = scheduler.scheduleJittered("wallet-creation", currentWalletCreationPeriod, TimeUnit.MILLISECONDS,
+                    () -> TimeUnit.MILLISECONDS.toNanos(currentWalletCreationPeriod), this::createWalletStep);
         }
     }
 
     public void stopWalletGeneration() {
-        if (walletTimer != null) {
-            walletTimer.cancel();
-            walletTimer = null;
+        if (walletStream != null) {
+            walletStream.cancel();
+            walletStream = null;
             System.out.println("--- Wallet-Generierung gestoppt. ---");
         }
     }
 
     private void triggerUpdate() {
         if (onUpdateCallback != null) {
-            Platform.runLater(onUpdateCallback);
-        }
-    }
-
-    private void triggerPriceUpdate() {
-        if (onPriceUpdateCallback != null) {
-            Platform.runLater(onPriceUpdateCallback);
+            uiExecutor.execute(onUpdateCallback);
         }
     }
 
@@ -135,150 +185,307 @@ public class NetworkSimulator {
         return oldDelay;
     }
 
-    private void scheduleNextWalletCreation(long delay) {
-        if (!running.get() || walletTimer == null) return;
-        walletTimer.schedule(new TimerTask() {
-            @Override
-            public void run() {
-                if (!running.get()) return;
-                Wallet newWallet = WalletManager.createWallet(blockchain, WalletManager.SUPPLY_WALLET);
-                int userWalletCount = WalletManager.getWallets().size() - 1;
-                if (userWalletCount > 0 && userWalletCount % periodThreshold == 0) {
-                    long newPeriod = (long) (currentWalletCreationPeriod * periodMultiplier);
-                    currentWalletCreationPeriod = Math.max(newPeriod, MIN_WALLET_CREATION_PERIOD);
-                    System.out.printf("--- WALLET-SCHWELLE ERREICHT (%d Wallets)! Neue Wallet-Erstellungsdauer: %.0fms (%.2fs) ---%n",
-                            userWalletCount, (double) currentWalletCreationPeriod, currentWalletCreationPeriod / 1000.0);
-                }
-                Platform.runLater(() -> {});
-                scheduleNextWalletCreation(currentWalletCreationPeriod);
-            }
-        }, delay);
+    private void createWalletStep() {
+        if (!running.get()) return;
+        WalletManager.createWallet(blockchain, WalletManager.SUPPLY_WALLET);
+        int userWalletCount = WalletManager.getSnapshot().size() - 1;
+        if (userWalletCount > 0 && userWalletCount % periodThreshold == 0) {
+            long newPeriod = (long) (currentWalletCreationPeriod * periodMultiplier);
+            currentWalletCreationPeriod = Math.max(newPeriod, MIN_WALLET_CREATION_PERIOD);
+            System.out.printf("--- WALLET-SCHWELLE ERREICHT (%d Wallets)! Neue Wallet-Erstellungsdauer: %.0fms (%.2fs) ---%n",
+                    userWalletCount, (double) currentWalletCreationPeriod, currentWalletCreationPeriod / 1000.0);
+        }
     }
 
-    private void scheduleNextTrade(long delay) {
-        if (!running.get() || transactionTimer == null) return;
-        transactionTimer.schedule(new TimerTask() {
-            @Override
-            public void run() {
-                if (!running.get()) return;
-                simulateTrade();
-                int userWalletCount = WalletManager.getMaxWalletCountForSimulation();
-                long maxDelayBase = 800;
-                long minDelayBase = 790;
-                long minDelayFast = 1;
-                int reductionFactor = 1;
-                long delayReduction = (long) userWalletCount * reductionFactor;
-                long actualMinDelay = Math.max(minDelayFast, minDelayBase - delayReduction);
-                long actualMaxDelay = Math.max(actualMinDelay, maxDelayBase - delayReduction);
-                long oldActualMinDelay = getAndSetCurrentTradeMinDelay(userWalletCount, minDelayBase, reductionFactor, minDelayFast);
-                if (actualMinDelay != oldActualMinDelay) {
-                    System.out.printf("--- HANDELS-SCHWELLE GEÄNDERT (%d Wallets)! Neue Handelsspanne: %.0fms - %.0fms ---%n",
-                            userWalletCount, (double) actualMinDelay, (double) actualMaxDelay);
-                }
-                long range = actualMaxDelay - actualMinDelay + 1;
-                long nextDelay = actualMinDelay + new Random().nextInt((int) range);
-                scheduleNextTrade(nextDelay);
-            }
-        }, delay);
+    /** Regler der Trade-Rate (null, solange die Simulation nie gestartet wurde). */
+    public RateController getTradeRateController() {
+        return tradeRateController;
     }
 
-    private boolean simulateTrade() {
-        List<Wallet> allWallets = WalletManager.getWallets();
-        Wallet supplyWallet = WalletManager.SUPPLY_WALLET;
-        Random r = new Random();
+    /** Setzt einen eigenen Regler, der die Commit-Latenzen erhält (z.B. im Headless-Modus ohne {@link #start()}). */
+    public void setTradeRateController(RateController controller) {
+        this.tradeRateController = controller;
+    }
 
-        List<Wallet> userWallets = allWallets.stream()
-                .filter(w -> !w.getAddress().equals(supplyWallet.getAddress()) && !w.getAddress().equals(MyChainGUI.EXCHANGE_ADDRESS))
-                .toList();
-        if (userWallets.isEmpty()) return false;
+    /** Vom Regler ermittelte nachhaltige Trade-Rate (Trades/s), 0.0 ohne Messung. */
+    public double getSustainableTradeRate() {
+        RateController c = tradeRateController;
+        return c != null ? c.getSustainableRate() : 0.0;
+    }
 
-        Wallet tradingWalletCandidate = userWallets.get(r.nextInt(userWallets.size()));
-        Wallet tradingWallet = WalletManager.findWalletByAddress(tradingWalletCandidate.getAddress());
-        if (tradingWallet == null) return false;
+    /**
+     * Abstand bis zum nächsten Trade: Die Wallet-Anzahl bestimmt wie bisher die gewünschte Last
+     * (offene Formel), der {@link RateController} begrenzt sie auf das, was Mining und
+     * Balance-Updates innerhalb des Latenz-SLOs schaffen. Es gilt der größere der beiden Abstände.
+     */
+    private long nextTradeDelayNanos() {
+        RateController controller = tradeRateController;
+        long now = System.nanoTime();
+        // Rückstand: wie viele Trade-Abstände der letzte Trade zu spät lief
+        int backlog = 0;
+        if (expectedTradeNanos > 0 && now > expectedTradeNanos) {
+            backlog = (int) Math.min(Integer.MAX_VALUE, (now - expectedTradeNanos) / Math.max(1, controller.getPeriodNanos()));
+        }
+        long openLoop = openLoopTradeDelayNanos();
+        long period = controller.getPeriodNanos();
+        // Nur erhöhen, wenn der Regler den Abstand bestimmt hat; sonst liefe die Rate bis maxRate weg
+        controller.maybeAdjust(backlog, period >= openLoop);
+        long delay = Math.max(openLoop, controller.getPeriodNanos());
+        expectedTradeNanos = now + delay;
+        return delay;
+    }
 
-        double currentPrice = priceSimulator.getCurrentPrice();
-        double actualTradePercentage = 0.33 + r.nextDouble() * 0.67;
-        double usdToTrade = 0.0;
+    // Bisherige offene Formel; Grenzen werden nur bei geänderter Wallet-Anzahl neu berechnet
+    private long openLoopTradeDelayNanos() {
+        int userWalletCount = WalletManager.getMaxWalletCountForSimulation();
+        if (userWalletCount != tradeRangeWalletCount) {
+            long maxDelayBase = 800;
+            long minDelayBase = 790;
+            long minDelayFast = 1;
+            int reductionFactor = 1;
+            long delayReduction = (long) userWalletCount * reductionFactor;
+            tradeRangeMinDelay = Math.max(minDelayFast, minDelayBase - delayReduction);
+            tradeRangeMaxDelay = Math.max(tradeRangeMinDelay, maxDelayBase - delayReduction);
+            tradeRangeWalletCount = userWalletCount;
+            long oldActualMinDelay = getAndSetCurrentTradeMinDelay(userWalletCount, minDelayBase, reductionFactor, minDelayFast);
+            if (tradeRangeMinDelay != oldActualMinDelay) {
+                System.out.printf("--- HANDELS-SCHWELLE GEÄNDERT (%d Wallets)! Neue Handelsspanne: %.0fms - %.0fms ---%n",
+                        userWalletCount, (double) tradeRangeMinDelay, (double) tradeRangeMaxDelay);
+            }
+        }
+        long nextDelay = SimulationContext.random("trade-delays").nextLong(tradeRangeMinDelay, tradeRangeMaxDelay + 1);
+        return TimeUnit.MILLISECONDS.toNanos(nextDelay);
+    }
 
-        double longExposure = tradingWallet.getLongPositionUsd();
-        boolean isLongOnly = longExposure > 0.0;
-        boolean isNeutral = longExposure <= 0.0;
+    // Mined den Block, übernimmt die Balances und misst die Commit-Latenz.
+    // Rückgabe: Transaktionen ohne Wirkung (siehe WalletManager.applyBlock), meist leer
+    List<Transaction> commitBlock(List<Transaction> txs) {
+        long start = System.nanoTime();
+        blockchain.addBlock(txs);
+        Block newBlock = blockchain.getChain().get(blockchain.getChain().size() - 1);
+        List<Transaction> ineffective = WalletManager.applyBlock(newBlock);
+        long latency = System.nanoTime() - start;
+        metrics.recordCommit(txs.size(), latency);
+        RateController controller = tradeRateController;
+        if (controller != null) {
+            controller.recordCompletion(latency);
+        }
+        return ineffective;
+    }
 
-        if (isLongOnly) {
-            // Wenn Long offen ist: entweder halten oder schließen
-            if (r.nextDouble() < (1.0 - this.buyBias)) {
-                // Long schließen (Verkauf)
-                usdToTrade = longExposure * actualTradePercentage;
-                if (usdToTrade > longExposure) {
-                    usdToTrade = longExposure;
-                }
-                if (usdToTrade <= 0) return false;
+    PriceSimulator getPriceSimulator() {
+        return priceSimulator;
+    }
 
-                double tradeAmountSC = Math.round((usdToTrade / currentPrice) * 1000.0) / 1000.0;
-                double usdValue = tradeAmountSC * currentPrice;
+    /**
+     * Wendet den Preis-Tick an und liquidiert danach die Positionen, deren Schwelle überschritten wurde.
+     * @return true, wenn sich der Preis geändert hat.
+     */
+    boolean applyPriceTick() {
+        boolean changed = priceSimulator.applyTick();
+        if (changed) processLiquidations();
+        return changed;
+    }
 
-                if (usdValue < 1.0 || tradeAmountSC < 0.001) return false;
-                if (tradeAmountSC > tradingWallet.getBalance()) return false;
+    /**
+     * Schließt alle Margin-Positionen, deren Liquidationspreis beim aktuellen Preis erreicht ist,
+     * in einem Block. Nur die getroffenen Positionen werden angefasst (Trigger-Index der {@link MarginEngine}).
+     * Der Preis-Effekt wird erst nach dem Commit und nur für tatsächlich geschlossene Positionen ausgelöst:
+     * Liquidiert ein paralleler Aufrufer dieselbe Position, bleibt die doppelte Transaktion ohne Wirkung.
+     * @return Anzahl der Liquidationen.
+     */
+    int processLiquidations() {
+        double price = priceSimulator.getCurrentPrice();
+        List<MarginEngine.Position> hits = WalletManager.getMarginEngine().triggered(price);
+        if (hits.isEmpty()) return 0;
+
+        List<Transaction> txs = new ArrayList<>(hits.size());
+        List<MarginEngine.Position> liquidated = new ArrayList<>(hits.size());
+        for (MarginEngine.Position p : hits) {
+            // Restkapital oberhalb der Maintenance-Margin wird ausgezahlt, der Rest einbehalten
+            double payout = Math.max(0.0, p.equity(price) - p.getSizeSc() * price * MarginEngine.MAINTENANCE_MARGIN);
+            String message = String.format(Locale.US, "LIQUIDATION %s %.3f SC @ %.4f, Auszahlung %.2f USD",
+                    p.isLong() ? "LONG" : "SHORT", p.getSizeSc(), price, payout);
+            Transaction tx = p.getWallet().createTransaction(EXCHANGE_ADDRESS, p.getSizeSc(),
+                    TransactionKind.LIQUIDATION, payout, message, price);
+            if (tx == null) continue;
+            txs.add(tx);
+            liquidated.add(p);
+        }
+        if (txs.isEmpty()) return 0;
+
+        List<Transaction> ineffective = commitBlock(txs);
+        int count = 0;
+        for (int i = 0; i < txs.size(); i++) {
+            if (ineffective.contains(txs.get(i))) continue; // schon anderweitig geschlossen
+            MarginEngine.Position p = liquidated.get(i);
+            // Zwangsschließung wirkt wie ein Markt-Trade in Gegenrichtung
+            priceSimulator.submitTrade(p.getSizeSc(), !p.isLong());
+            count++;
+            if (verbose) {
+                System.out.printf("⚠️ LIQUIDIERT: %s... %s%n", p.getWallet().getAddress().substring(0, 10), p);
+            }
+        }
+        return count;
+    }
 
-                String message = String.format(Locale.US, "SIMULIERT: SC Verkauf (LONG) für %.2f USD", usdValue);
-                Transaction tx = tradingWallet.createTransaction(MyChainGUI.EXCHANGE_ADDRESS, tradeAmountSC, message, currentPrice);
+    /**
+     * Prüft und signiert das Eröffnen einer gehebelten Position (ohne Preis-Effekt und ohne Commit).
+     * @param margin Hinterlegte USD-Margin.
+     * @param leverage Hebel (1 .. {@link MarginEngine#MAX_LEVERAGE}).
+     * @return Die signierte Transaktion oder null, wenn nicht ausführbar.
+     */
+    Transaction prepareMarginOpen(Wallet wallet, boolean isLong, double margin, double leverage, double price) {
+        if (margin < 1.0 || price <= 0 || leverage < 1.0 || leverage > MarginEngine.MAX_LEVERAGE) return null;
+        if (wallet.getUsdBalance() < margin || WalletManager.getMarginEngine().get(wallet) != null) return null;
+
+        double sizeSc = Math.round((margin * leverage / price) * 1000.0) / 1000.0;
+        if (sizeSc < 0.001) return null;
+        String message = String.format(Locale.US, "SIMULIERT: Margin-%s %.3f SC mit %.1fx Hebel, Margin %.2f USD",
+                isLong ? "Long" : "Short", sizeSc, leverage, margin);
+        return wallet.createTransaction(EXCHANGE_ADDRESS, sizeSc,
+                isLong ? TransactionKind.MARGIN_OPEN_LONG : TransactionKind.MARGIN_OPEN_SHORT, margin, message, price);
+    }
 
-                if (tx != null) {
-                    priceSimulator.executeTrade(tradeAmountSC, false);
-                    System.out.printf("SIMULIERT VERKAUF (LONG): %s... verkaufte %.3f SC für %.2f USD (%.0f%%) | Neuer Preis: %.4f%n",
-                            tradingWallet.getAddress().substring(0, 10), tradeAmountSC, usdValue, actualTradePercentage * 100, priceSimulator.getCurrentPrice());
+    /** Prüft und signiert das Schließen der offenen Position (Auszahlung Margin ± PnL, mindestens 0). */
+    Transaction prepareMarginClose(Wallet wallet, double price) {
+        MarginEngine.Position p = WalletManager.getMarginEngine().get(wallet);
+        if (p == null || price <= 0) return null;
+        double payout = Math.max(0.0, p.equity(price));
+        String message = String.format(Locale.US, "SIMULIERT: Margin-%s geschlossen, PnL %+.2f USD",
+                p.isLong() ? "Long" : "Short", p.unrealizedPnl(price));
+        return wallet.createTransaction(EXCHANGE_ADDRESS, p.getSizeSc(), TransactionKind.MARGIN_CLOSE, payout, message, price);
+    }
 
-                    List<Transaction> txs = new ArrayList<>();
-                    txs.add(tx);
-                    blockchain.addBlock(txs);
+    // Eröffnet oder schließt (mit Wahrscheinlichkeit) eine gehebelte Position der Wallet
+    private boolean simulateMarginTrade(Wallet wallet, RandomGenerator r) {
+        double price = priceSimulator.getCurrentPrice();
+        MarginEngine.Position open = WalletManager.getMarginEngine().get(wallet);
+        Transaction tx;
+        boolean buyPressure;
+        if (open != null) {
+            if (r.nextDouble() >= MARGIN_CLOSE_PROBABILITY) return false; // Position halten
+            tx = prepareMarginClose(wallet, price);
+            buyPressure = !open.isLong();
+        } else {
+            boolean isLong = r.nextDouble() < buyBias;
+            double leverage = 2.0 + r.nextDouble() * (MarginEngine.MAX_LEVERAGE - 2.0);
+            double margin = wallet.getUsdBalance() * (0.05 + r.nextDouble() * 0.15);
+            tx = prepareMarginOpen(wallet, isLong, margin, leverage, price);
+            buyPressure = isLong;
+        }
+        if (tx == null) return false;
 
-                    Block newBlock = blockchain.getChain().get(blockchain.getChain().size() - 1);
-                    WalletManager.updateBalancesFromLastBlock(newBlock);
+        // Preis-Effekt nur, wenn Eröffnen/Schließen tatsächlich gegriffen hat (Liquidation kann zuvorkommen)
+        if (!commitBlock(Collections.singletonList(tx)).isEmpty()) return false;
+        priceSimulator.submitTrade(tx.getAmount(), buyPressure);
+        if (verbose) {
+            System.out.println("SIMULIERT MARGIN: " + wallet.getAddress().substring(0, 10) + "... " + tx.getMessage());
+        }
+        return true;
+    }
 
-                    return true;
-                }
+    /**
+     * Prüft einen Long-Trade gegen die aktuellen Balances und signiert die Transaktion
+     * (ohne Preis-Effekt und ohne Commit). Verkäufe signiert die Wallet selbst, Käufe die Supply-Wallet.
+     * @param wallet Die handelnde Wallet.
+     * @param kind {@link TransactionKind#BUY_LONG} oder {@link TransactionKind#SELL_LONG}.
+     * @param usdToTrade Gewünschter Handelswert in USD.
+     * @param price Marktpreis, aus dem die SC-Menge berechnet wird; abgerechnet wird zum Quote der Preisbildung.
+     * @param supplyReservedSc Bereits anderweitig vergebene Supply-SC (z.B. im selben Batch).
+     * @return Die signierte Transaktion oder null, wenn der Trade nicht ausführbar ist.
+     */
+    Transaction prepareTrade(Wallet wallet, TransactionKind kind, double usdToTrade, double price, double supplyReservedSc) {
+        if (usdToTrade <= 0 || price <= 0) return null;
+
+        double tradeAmountSC = Math.round((usdToTrade / price) * 1000.0) / 1000.0;
+        if (tradeAmountSC < 0.001) return null;
+        // Abrechnung zum Ausführungspreis der Preisbildung (AMM: Swap inkl. Gebühr), nicht zum Preis vor dem Trade
+        double executionPrice = priceSimulator.quote(tradeAmountSC, kind == TransactionKind.BUY_LONG, price);
+        if (!(executionPrice > 0) || Double.isInfinite(executionPrice)) return null;
+        double usdValue = tradeAmountSC * executionPrice;
+        if (usdValue < 1.0) return null;
+
+        switch (kind) {
+            case SELL_LONG -> {
+                if (tradeAmountSC > wallet.getBalance()) return null;
+                String message = String.format(Locale.US, "SIMULIERT: SC Verkauf (LONG) für %.2f USD", usdValue);
+                return wallet.createTransaction(EXCHANGE_ADDRESS, tradeAmountSC,
+                        TransactionKind.SELL_LONG, usdValue, message, executionPrice);
             }
-        } else if (isNeutral) {
-            // Wenn neutral: Long eröffnen (Kauf) basierend auf Bias
-            if (r.nextDouble() < this.buyBias) {
-                double availableUsd = tradingWallet.getUsdBalance();
-                usdToTrade = availableUsd * actualTradePercentage;
-
-                if (usdToTrade > availableUsd) {
-                    usdToTrade = availableUsd;
-                }
-                if (usdToTrade <= 0 || tradingWallet.getUsdBalance() < usdToTrade) {
-                    System.out.printf("   ❌ KAUF (LONG) ABGELEHNT: %s... benötigt %.2f USD, hat aber nur %.2f USD.%n",
-                            tradingWallet.getAddress().substring(0, 10), usdToTrade, tradingWallet.getUsdBalance());
-                    return false;
-                }
-
-                double tradeAmountSC = Math.round((usdToTrade / currentPrice) * 1000.0) / 1000.0;
-                double usdValue = tradeAmountSC * currentPrice;
-
-                if (usdValue < 1.0 || tradeAmountSC < 0.001) return false;
-                if (supplyWallet.getBalance() < tradeAmountSC + 0.01) return false;
-
+            case BUY_LONG -> {
+                Wallet supplyWallet = WalletManager.SUPPLY_WALLET;
+                if (wallet.getUsdBalance() < Math.max(usdToTrade, usdValue)) return null;
+                if (supplyWallet.getBalance() - supplyReservedSc < tradeAmountSC + 0.01) return null;
                 String message = String.format(Locale.US, "SIMULIERT: SC Kauf (LONG) für %.2f USD", usdValue);
-                Transaction tx = supplyWallet.createTransaction(tradingWallet.getAddress(), tradeAmountSC, message, currentPrice);
+                return supplyWallet.createTransaction(wallet.getAddress(), tradeAmountSC,
+                        TransactionKind.BUY_LONG, usdValue, message, executionPrice);
+            }
+            default -> {
+                return null;
+            }
+        }
+    }
 
-                if (tx != null) {
-                    priceSimulator.executeTrade(tradeAmountSC, true);
-                    System.out.printf("SIMULIERT KAUF (LONG): %s... kaufte %.3f SC für %.2f USD (%.0f%%) | Neuer Preis: %.4f%n",
-                            tradingWallet.getAddress().substring(0, 10), tradeAmountSC, usdValue, actualTradePercentage * 100, priceSimulator.getCurrentPrice());
+    /**
+     * Führt einen zufälligen Trade aus (Kauf oder Verkauf einer Long-Position).
+     * Die Richtung wird zuerst nach dem Bias gewählt, die Wallet dann aus der passenden Gruppe des
+     * {@link TraderIndex} (Verkauf: Wallets mit Long-Position, Kauf: Wallets ohne Position mit USD);
+     * so kann jeder Zug handeln, statt gleichverteilt zu ziehen und den Großteil zu verwerfen.
+     * @return true, wenn ein Block mit dem Trade festgeschrieben wurde.
+     */
+    boolean simulateTrade() {
+        RandomGenerator r = SimulationContext.random("trades");
+        TraderIndex index = WalletManager.getTraderIndex();
+
+        if (marginShare > 0 && r.nextDouble() < marginShare) {
+            Wallet marginWallet = index.sampleUniform(r);
+            return marginWallet != null && simulateMarginTrade(marginWallet, r);
+        }
 
-                    List<Transaction> txs = new ArrayList<>();
-                    txs.add(tx);
-                    blockchain.addBlock(txs);
+        // 🔧 O(1): Richtung nach Bias, dann gleichverteilt aus der Gruppe, die sie ausführen kann
+        boolean buy = r.nextDouble() < this.buyBias;
+        Wallet tradingWallet = index.sample(buy ? TraderIndex.Group.NEUTRAL : TraderIndex.Group.LONG, r);
+        if (tradingWallet == null) return false;
 
-                    Block newBlock = blockchain.getChain().get(blockchain.getChain().size() - 1);
-                    WalletManager.updateBalancesFromLastBlock(newBlock);
+        double currentPrice = priceSimulator.getCurrentPrice();
+        double actualTradePercentage = 0.33 + r.nextDouble() * 0.67;
+        double longExposure = tradingWallet.getLongPositionUsd();
 
-                    return true;
-                }
+        if (!buy) {
+            // Long schließen (Verkauf); Gruppe stammt aus dem letzten Delta, daher Position erneut prüfen
+            if (longExposure <= 0.0) return false;
+            double usdToTrade = Math.min(longExposure * actualTradePercentage, longExposure);
+
+            Transaction tx = prepareTrade(tradingWallet, TransactionKind.SELL_LONG, usdToTrade, currentPrice, 0.0);
+            if (tx == null) return false;
+            priceSimulator.submitTrade(tx.getAmount(), false);
+            if (verbose) {
+                System.out.printf("SIMULIERT VERKAUF (LONG): %s... verkaufte %.3f SC für %.2f USD (%.0f%%) | Tick-Preis: %.4f%n",
+                        tradingWallet.getAddress().substring(0, 10), tx.getAmount(), tx.getUsdValue(), actualTradePercentage * 100, priceSimulator.getCurrentPrice());
             }
+            commitBlock(Collections.singletonList(tx));
+            return true;
         }
 
-        return false;
+        // Long eröffnen (Kauf)
+        if (longExposure > 0.0) return false;
+        double availableUsd = tradingWallet.getUsdBalance();
+        double usdToTrade = Math.min(availableUsd * actualTradePercentage, availableUsd);
+        if (usdToTrade <= 0) {
+            if (verbose) System.out.printf("   ❌ KAUF (LONG) ABGELEHNT: %s... benötigt %.2f USD, hat aber nur %.2f USD.%n",
+                    tradingWallet.getAddress().substring(0, 10), usdToTrade, availableUsd);
+            return false;
+        }
+
+        Transaction tx = prepareTrade(tradingWallet, TransactionKind.BUY_LONG, usdToTrade, currentPrice, 0.0);
+        if (tx == null) return false;
+        priceSimulator.submitTrade(tx.getAmount(), true);
+        if (verbose) {
+            System.out.printf("SIMULIERT KAUF (LONG): %s... kaufte %.3f SC für %.2f USD (%.0f%%) | Tick-Preis: %.4f%n",
+                    tradingWallet.getAddress().substring(0, 10), tx.getAmount(), tx.getUsdValue(), actualTradePercentage * 100, priceSimulator.getCurrentPrice());
+        }
+        commitBlock(Collections.singletonList(tx));
+        return true;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,345 @@
+package org.fintech;
+
+import java.util.Arrays;
+
+/**
+ * Zentrales Limit-Orderbuch mit Preis-Zeit-Priorität (Matching-Engine).
+ *
+ * Preise sind ganzzahlige Ticks ({@code preis = tick · tickSize}), Mengen ganzzahlige Lots.
+ * Jede Seite ist eine direkt per Tick indizierte Preisleiter ({@code Level[]}) mit Bitset der
+ * belegten Stufen: bester Preis, nächste Stufe und Einfügen sind O(1) bzw. O(Stufen/64) ohne
+ * Baum oder Map. Orders je Stufe bilden eine intrusive FIFO-Liste; Order-Objekte werden aus einem
+ * Pool wiederverwendet, die Order-ID kodiert Slot und Generation (Storno in O(1), ohne Map).
+ * Im eingeschwungenen Zustand allokiert das Matching nichts.
+ *
+ * Nicht thread-sicher: Aufrufe müssen von außen serialisiert werden (siehe {@link OrderBookPricing}).
+ */
+public final class OrderBook {
+
+    /** Wird für jeden (Teil-)Fill synchron aufgerufen. */
+    public interface TradeListener {
+        void onTrade(long makerOrderId, int makerOwner, int takerOwner, boolean takerBuys, long priceTicks, long lots);
+    }
+
+    private static final int INITIAL_POOL = 1024;
+
+    private static final class Order {
+        final int slot;
+        int generation;
+        long id;
+        int owner;
+        boolean buy;
+        int tick;
+        long remaining;
+        Order prev;
+        Order next;
+
+        Order(int slot) {
+            this.slot = slot;
+        }
+    }
+
+    private static final class Level {
+        Order head;
+        Order tail;
+        long totalLots;
+        int orderCount;
+    }
+
+    private final double tickSize;
+    private final int ticks;
+    private final Level[] bids;
+    private final Level[] asks;
+    private final long[] bidBits;
+    private final long[] askBits;
+    private int bestBid = -1;     // -1 = keine Gebote
+    private int bestAsk;          // ticks = keine Angebote
+    private long bidDepthLots = 0;
+    private long askDepthLots = 0;
+
+    private Order[] pool = new Order[INITIAL_POOL];
+    private int[] freeSlots = new int[INITIAL_POOL];
+    private int freeCount = 0;
+    private int allocatedSlots = 0;
+    private int activeOrders = 0;
+
+    private TradeListener listener;
+    private long lastTradeTicks = 0;
+    private long tradeCount = 0;
+    private long tradedLots = 0;
+    private long tradedNotionalTicks = 0; // Σ Tick · Lots aller Fills (für VWAP)
+
+    /**
+     * @param tickSize Kleinste Preisstufe.
+     * @param ticks Anzahl der Preisstufen (gültige Ticks: 1 .. ticks-1).
+     */
+    public OrderBook(double tickSize, int ticks) {
+        if (tickSize <= 0 || ticks < 2) throw new IllegalArgumentException("Ungültige Preisleiter");
+        this.tickSize = tickSize;
+        this.ticks = ticks;
+        this.bids = new Level[ticks];
+        this.asks = new Level[ticks];
+        this.bidBits = new long[(ticks + 63) >>> 6];
+        this.askBits = new long[(ticks + 63) >>> 6];
+        this.bestAsk = ticks;
+    }
+
+    public void setTradeListener(TradeListener listener) {
+        this.listener = listener;
+    }
+
+    // ====================================================================
+    // Preise
+    // ====================================================================
+
+    public double getTickSize() { return tickSize; }
+    public int getMaxTick() { return ticks - 1; }
+
+    /** Preis in Ticks, auf die gültige Leiter begrenzt. */
+    public int toTicks(double price) {
+        long t = Math.round(price / tickSize);
+        return (int) Math.max(1, Math.min(ticks - 1, t));
+    }
+
+    public double toPrice(long tick) {
+        return tick * tickSize;
+    }
+
+    // ====================================================================
+    // Orders
+    // ====================================================================
+
+    /**
+     * Limit-Order: matcht gegen die Gegenseite bis zum Limit, der Rest wird ins Buch gestellt.
+     * @return ID der ruhenden Order oder 0, wenn die Order vollständig ausgeführt wurde.
+     */
+    public long submitLimit(boolean buy, int limitTick, long lots, int owner) {
+        if (limitTick < 1 || limitTick >= ticks) throw new IllegalArgumentException("Tick außerhalb der Leiter: " + limitTick);
+        if (lots <= 0) throw new IllegalArgumentException("Menge muss > 0 sein");
+        long remaining = match(buy, limitTick, lots, owner);
+        if (remaining == 0) return 0;
+        return rest(buy, limitTick, remaining, owner);
+    }
+
+    /**
+     * Market-Order: matcht ohne Preislimit, ein nicht ausführbarer Rest verfällt.
+     * @return Ausgeführte Menge in Lots.
+     */
+    public long submitMarket(boolean buy, long lots, int owner) {
+        if (lots <= 0) throw new IllegalArgumentException("Menge muss > 0 sein");
+        return lots - match(buy, buy ? ticks - 1 : 1, lots, owner);
+    }
+
+    /** Storniert eine ruhende Order. @return false, wenn sie nicht (mehr) im Buch liegt. */
+    public boolean cancel(long orderId) {
+        int slot = (int) orderId;
+        if (slot < 0 || slot >= allocatedSlots) return false;
+        Order o = pool[slot];
+        if (o.id != orderId || o.remaining == 0) return false;
+
+        Level level = (o.buy ? bids : asks)[o.tick];
+        unlink(level, o);
+        level.totalLots -= o.remaining;
+        if (o.buy) bidDepthLots -= o.remaining; else askDepthLots -= o.remaining;
+        if (level.orderCount == 0) clearLevel(o.buy, o.tick);
+        release(o);
+        return true;
+    }
+
+    // Gegen die Gegenseite matchen; liefert die Restmenge
+    private long match(boolean buy, int limitTick, long lots, int takerOwner) {
+        long remaining = lots;
+        if (buy) {
+            while (remaining > 0 && bestAsk <= limitTick) {
+                remaining = fillLevel(asks[bestAsk], false, bestAsk, remaining, takerOwner);
+            }
+        } else {
+            while (remaining > 0 && bestBid >= limitTick && bestBid >= 0) {
+                remaining = fillLevel(bids[bestBid], true, bestBid, remaining, takerOwner);
+            }
+        }
+        return remaining;
+    }
+
+    private long fillLevel(Level level, boolean makerBuy, int tick, long remaining, int takerOwner) {
+        while (remaining > 0 && level.head != null) {
+            Order maker = level.head;
+            long fill = Math.min(remaining, maker.remaining);
+            maker.remaining -= fill;
+            level.totalLots -= fill;
+            remaining -= fill;
+            if (makerBuy) bidDepthLots -= fill; else askDepthLots -= fill;
+
+            lastTradeTicks = tick;
+            tradeCount++;
+            tradedLots += fill;
+            tradedNotionalTicks += tick * fill;
+            if (listener != null) {
+                listener.onTrade(maker.id, maker.owner, takerOwner, !makerBuy, tick, fill);
+            }
+            if (maker.remaining == 0) {
+                unlink(level, maker);
+                release(maker);
+            }
+        }
+        if (level.orderCount == 0) clearLevel(makerBuy, tick);
+        return remaining;
+    }
+
+    private long rest(boolean buy, int tick, long lots, int owner) {
+        Order o = allocate();
+        o.owner = owner;
+        o.buy = buy;
+        o.tick = tick;
+        o.remaining = lots;
+
+        Level[] side = buy ? bids : asks;
+        Level level = side[tick];
+        if (level == null) {
+            level = new Level();
+            side[tick] = level;
+        }
+        if (level.orderCount == 0) {
+            setBit(buy ? bidBits : askBits, tick);
+            if (buy) { if (tick > bestBid) bestBid = tick; } else if (tick < bestAsk) bestAsk = tick;
+        }
+        // Ans Ende der FIFO: Zeitpriorität
+        o.prev = level.tail;
+        o.next = null;
+        if (level.tail != null) level.tail.next = o; else level.head = o;
+        level.tail = o;
+        level.orderCount++;
+        level.totalLots += lots;
+        if (buy) bidDepthLots += lots; else askDepthLots += lots;
+        return o.id;
+    }
+
+    private void unlink(Level level, Order o) {
+        if (o.prev != null) o.prev.next = o.next; else level.head = o.next;
+        if (o.next != null) o.next.prev = o.prev; else level.tail = o.prev;
+        o.prev = null;
+        o.next = null;
+        level.orderCount--;
+    }
+
+    private void clearLevel(boolean buy, int tick) {
+        if (buy) {
+            clearBit(bidBits, tick);
+            if (tick == bestBid) bestBid = prevSetBit(bidBits, tick - 1);
+        } else {
+            clearBit(askBits, tick);
+            if (tick == bestAsk) {
+                int next = nextSetBit(askBits, tick + 1);
+                bestAsk = next < 0 ? ticks : next;
+            }
+        }
+    }
+
+    // ====================================================================
+    // Order-Pool
+    // ====================================================================
+
+    private Order allocate() {
+        Order o;
+        if (freeCount > 0) {
+            o = pool[freeSlots[--freeCount]];
+        } else {
+            if (allocatedSlots == pool.length) {
+                pool = Arrays.copyOf(pool, pool.length * 2);
+                freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+            }
+            o = new Order(allocatedSlots);
+            pool[allocatedSlots++] = o;
+        }
+        o.generation++;
+        o.id = ((long) o.generation << 32) | o.slot; // Generation ≥ 1 → ID > 0
+        activeOrders++;
+        return o;
+    }
+
+    private void release(Order o) {
+        o.remaining = 0;
+        freeSlots[freeCount++] = o.slot;
+        activeOrders--;
+    }
+
+    // ====================================================================
+    // Bitset der belegten Preisstufen
+    // ====================================================================
+
+    private static void setBit(long[] bits, int i) { bits[i >>> 6] |= 1L << i; }
+    private static void clearBit(long[] bits, int i) { bits[i >>> 6] &= ~(1L << i); }
+
+    private static int nextSetBit(long[] bits, int from) {
+        if (from < 0) from = 0;
+        int w = from >>> 6;
+        if (w >= bits.length) return -1;
+        long word = bits[w] & (-1L << from);
+        while (true) {
+            if (word != 0) return (w << 6) + Long.numberOfTrailingZeros(word);
+            if (++w == bits.length) return -1;
+            word = bits[w];
+        }
+    }
+
+    private static int prevSetBit(long[] bits, int from) {
+        if (from < 0) return -1;
+        int w = from >>> 6;
+        long word = bits[w] & (-1L >>> (63 - (from & 63)));
+        while (true) {
+            if (word != 0) return (w << 6) + 63 - Long.numberOfLeadingZeros(word);
+            if (w-- == 0) return -1;
+            word = bits[w];
+        }
+    }
+
+    // ====================================================================
+    // Abfragen
+    // ====================================================================
+
+    /** Bestes Gebot in Ticks oder -1. */
+    public int getBestBidTick() { return bestBid; }
+    /** Bestes Angebot in Ticks oder -1. */
+    public int getBestAskTick() { return bestAsk < ticks ? bestAsk : -1; }
+    public long getBidDepthLots() { return bidDepthLots; }
+    public long getAskDepthLots() { return askDepthLots; }
+    public int getActiveOrders() { return activeOrders; }
+    public long getLastTradeTick() { return lastTradeTicks; }
+    public long getTradeCount() { return tradeCount; }
+    public long getTradedLots() { return tradedLots; }
+    /** Summe Tick · Lots aller Fills; Differenz zweier Stände / Lots = VWAP in Ticks. */
+    public long getTradedNotionalTicks() { return tradedNotionalTicks; }
+
+    /**
+     * Durchschnittlicher Fill-Preis in Ticks, den eine Market-Order über {@code lots} jetzt erhielte
+     * (ohne Ausführung, O(berührte Stufen)).
+     * @return VWAP in Ticks oder {@link Double#NaN}, wenn die Gegenseite nicht genug Tiefe hat.
+     */
+    public double quoteMarketTicks(boolean buy, long lots) {
+        if (lots <= 0 || lots > (buy ? askDepthLots : bidDepthLots)) return Double.NaN;
+        long remaining = lots;
+        double notional = 0;
+        int tick = buy ? bestAsk : bestBid;
+        while (remaining > 0) {
+            long fill = Math.min(remaining, (buy ? asks : bids)[tick].totalLots);
+            notional += (double) tick * fill;
+            remaining -= fill;
+            tick = buy ? nextSetBit(askBits, tick + 1) : prevSetBit(bidBits, tick - 1);
+        }
+        return notional / lots;
+    }
+
+    /** True, solange die Order (teilweise) unausgeführt im Buch liegt. */
+    public boolean isActive(long orderId) {
+        int slot = (int) orderId;
+        if (slot < 0 || slot >= allocatedSlots) return false;
+        Order o = pool[slot];
+        return o.id == orderId && o.remaining > 0;
+    }
+
+    /** Ruhende Menge auf einer Preisstufe. */
+    public long getLotsAt(boolean buy, int tick) {
+        Level level = (buy ? bids : asks)[tick];
+        return level == null ? 0 : level.totalLots;
+    }
+}
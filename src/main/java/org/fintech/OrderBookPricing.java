@@ -0,0 +1,229 @@
+package org.fintech;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Preisbildung über ein echtes Limit-Orderbuch ({@link OrderBook}) statt der Preiswirkungs-Formel.
+ *
+ * Trades der Simulation werden als Market-Orders ausgeführt und zum volumengewichteten
+ * Durchschnittspreis (VWAP) ihrer Fills abgerechnet ({@link #quote(double, boolean, double)} vorab,
+ * {@link #executeTrade(double, boolean, double)} liefert den VWAP der tatsächlichen Fills als Marktpreis).
+ * Die Leiter des Market-Makers orientiert sich weiter am letzten Fill. Die Gegenseite stellt ein synthetischer Market-Maker:
+ * eine Leiter aus Limit-Orders mit festem USD-Volumen je Stufe im relativen Abstand {@code levelSpacing}.
+ * Ist seine Leiter auf der angefragten Seite zu weit vom letzten Preis entfernt, storniert er sie und
+ * stellt sie um den letzten Preis neu; reicht die Tiefe nicht, verlängert er sie nach außen.
+ * Die Preiswirkung eines Trades ergibt sich so aus der durchlaufenen Buchtiefe.
+ * Das Buch deckt Preise bis ca. 2097 USD ab; Trades oberhalb werden abgelehnt (einmalige Warnung)
+ * statt stillschweigend zum Randpreis abgerechnet.
+ *
+ * Thread-sicher: alle Zugriffe auf das Buch laufen über diese (synchronisierte) Klasse.
+ */
+public final class OrderBookPricing implements MarketPricing {
+
+    /** Mengeneinheit des Buchs: 0.001 SC, die Rundung der Simulation. */
+    public static final double LOT_SIZE_SC = 0.001;
+    private static final double TICK_SIZE = 0.001;
+    private static final int TICKS = 1 << 21; // Preise bis ca. 2097 USD
+
+    private static final int MAKER = 0;
+    private static final int TAKER = 1;
+
+    private final OrderBook book = new OrderBook(TICK_SIZE, TICKS);
+    private final int quoteLevels;
+    private final double levelSpacing;
+    private final double usdPerLevel;
+
+    // IDs der Market-Maker-Orders je Seite (ausgeführte werden beim Verdichten entfernt)
+    private long[] bidQuotes = new long[64];
+    private long[] askQuotes = new long[64];
+    private int bidQuoteCount = 0;
+    private int askQuoteCount = 0;
+    private int outerBidTick;
+    private int outerAskTick;
+    private long requotes = 0;
+    private boolean rangeWarned = false;
+
+    public OrderBookPricing() {
+        this(20, 0.0002, 250_000.0);
+    }
+
+    /**
+     * @param quoteLevels Stufen, die der Market-Maker pro Nachquotieren stellt.
+     * @param levelSpacing Relativer Abstand zwischen zwei Stufen (z.B. 0.0005 = 0,05 %).
+     * @param usdPerLevel USD-Volumen je Stufe.
+     */
+    public OrderBookPricing(int quoteLevels, double levelSpacing, double usdPerLevel) {
+        if (quoteLevels <= 0 || levelSpacing <= 0 || usdPerLevel <= 0) {
+            throw new IllegalArgumentException("Ungültige Market-Maker-Parameter");
+        }
+        this.quoteLevels = quoteLevels;
+        this.levelSpacing = levelSpacing;
+        this.usdPerLevel = usdPerLevel;
+    }
+
+    @Override
+    public synchronized double executeTrade(double amountSC, boolean isBuy, double currentPrice) {
+        long lots = Math.round(amountSC / LOT_SIZE_SC);
+        if (lots <= 0) return currentPrice;
+
+        int anchor = anchorTick(currentPrice);
+        if (anchor < 0) return currentPrice;
+        if (isBuy) refreshAsks(anchor, lots); else refreshBids(anchor, lots);
+
+        long lotsBefore = book.getTradedLots();
+        long notionalBefore = book.getTradedNotionalTicks();
+        book.submitMarket(isBuy, lots, TAKER);
+        long filled = book.getTradedLots() - lotsBefore;
+        if (filled == 0) return currentPrice;
+        return book.getTickSize() * (book.getTradedNotionalTicks() - notionalBefore) / filled;
+    }
+
+    /**
+     * VWAP, den eine Market-Order dieser Größe jetzt erhielte. Rein lesend: fehlende Tiefe wird über die
+     * Stufen hochgerechnet, die der Market-Maker beim Ausführen nachstellen würde; Buch und Leiter bleiben unverändert.
+     * @return VWAP oder {@link Double#POSITIVE_INFINITY}, wenn die Tiefe innerhalb des Tick-Bereichs nicht reicht.
+     */
+    @Override
+    public synchronized double quote(double amountSC, boolean isBuy, double currentPrice) {
+        long lots = Math.round(amountSC / LOT_SIZE_SC);
+        if (lots <= 0) return currentPrice;
+
+        int anchor = anchorTick(currentPrice);
+        if (anchor < 0) return Double.POSITIVE_INFINITY;
+
+        double vwapTicks = isBuy ? quoteAsks(anchor, lots) : quoteBids(anchor, lots);
+        return Double.isNaN(vwapTicks) ? Double.POSITIVE_INFINITY : book.getTickSize() * vwapTicks;
+    }
+
+    // Letzter Fill oder, vor dem ersten Fill, der Marktpreis; -1, wenn dieser über dem Tick-Bereich liegt
+    private int anchorTick(double currentPrice) {
+        if (book.getTradeCount() > 0) return (int) book.getLastTradeTick();
+        if (currentPrice <= book.toPrice(book.getMaxTick())) return book.toTicks(currentPrice);
+        if (!rangeWarned) {
+            rangeWarned = true;
+            System.err.printf(Locale.US, "Orderbuch: Preis %.3f liegt über dem Tick-Bereich (max. %.3f USD), Trades werden abgelehnt.%n",
+                    currentPrice, book.toPrice(book.getMaxTick()));
+        }
+        return -1;
+    }
+
+    // Wie refreshAsks, aber ohne Schreibzugriff: bestehende Tiefe plus die Stufen, die nachgestellt würden
+    private double quoteAsks(int anchor, long lots) {
+        int step = stepTicks(anchor);
+        int best = book.getBestAskTick();
+        boolean requote = best < 0 || best > anchor + 2 * step;
+        long resting = requote ? 0 : Math.min(lots, book.getAskDepthLots());
+        double notional = resting > 0 ? book.quoteMarketTicks(true, resting) * resting : 0.0;
+        long remaining = lots - resting;
+        int tick = requote ? anchor : outerAskTick;
+        while (remaining > 0 && tick < book.getMaxTick()) {
+            tick = Math.min(book.getMaxTick(), tick + step);
+            long fill = Math.min(remaining, lotsAt(tick));
+            notional += (double) tick * fill;
+            remaining -= fill;
+        }
+        return remaining > 0 ? Double.NaN : notional / lots;
+    }
+
+    private double quoteBids(int anchor, long lots) {
+        int step = stepTicks(anchor);
+        int best = book.getBestBidTick();
+        boolean requote = best < 0 || best < anchor - 2 * step;
+        long resting = requote ? 0 : Math.min(lots, book.getBidDepthLots());
+        double notional = resting > 0 ? book.quoteMarketTicks(false, resting) * resting : 0.0;
+        long remaining = lots - resting;
+        int tick = requote ? anchor : outerBidTick;
+        while (remaining > 0 && tick > 1) {
+            tick = Math.max(1, tick - step);
+            long fill = Math.min(remaining, lotsAt(tick));
+            notional += (double) tick * fill;
+            remaining -= fill;
+        }
+        return remaining > 0 ? Double.NaN : notional / lots;
+    }
+
+    private void refreshAsks(int anchor, long neededLots) {
+        int step = stepTicks(anchor);
+        int best = book.getBestAskTick();
+        if (best < 0 || best > anchor + 2 * step) {
+            // Leiter zu weit weg (Preis ist gefallen) → neu um den letzten Preis stellen
+            cancelAll(askQuotes, askQuoteCount);
+            askQuoteCount = 0;
+            outerAskTick = anchor;
+            requotes++;
+        }
+        while (book.getAskDepthLots() < neededLots && outerAskTick < book.getMaxTick()) {
+            for (int i = 0; i < quoteLevels && outerAskTick < book.getMaxTick(); i++) {
+                outerAskTick = Math.min(book.getMaxTick(), outerAskTick + step);
+                long id = book.submitLimit(false, outerAskTick, lotsAt(outerAskTick), MAKER);
+                askQuotes = append(askQuotes, askQuoteCount, id);
+                askQuoteCount = compactIfFull(askQuotes, ++askQuoteCount);
+            }
+        }
+    }
+
+    private void refreshBids(int anchor, long neededLots) {
+        int step = stepTicks(anchor);
+        int best = book.getBestBidTick();
+        if (best < 0 || best < anchor - 2 * step) {
+            // Leiter zu weit weg (Preis ist gestiegen) → neu um den letzten Preis stellen
+            cancelAll(bidQuotes, bidQuoteCount);
+            bidQuoteCount = 0;
+            outerBidTick = anchor;
+            requotes++;
+        }
+        while (book.getBidDepthLots() < neededLots && outerBidTick > 1) {
+            for (int i = 0; i < quoteLevels && outerBidTick > 1; i++) {
+                outerBidTick = Math.max(1, outerBidTick - step);
+                long id = book.submitLimit(true, outerBidTick, lotsAt(outerBidTick), MAKER);
+                bidQuotes = append(bidQuotes, bidQuoteCount, id);
+                bidQuoteCount = compactIfFull(bidQuotes, ++bidQuoteCount);
+            }
+        }
+    }
+
+    private int stepTicks(int anchor) {
+        return Math.max(1, (int) Math.round(anchor * levelSpacing));
+    }
+
+    private long lotsAt(int tick) {
+        return Math.max(1, Math.round(usdPerLevel / book.toPrice(tick) / LOT_SIZE_SC));
+    }
+
+    private void cancelAll(long[] quotes, int count) {
+        for (int i = 0; i < count; i++) {
+            book.cancel(quotes[i]); // bereits ausgeführte liefern false
+        }
+    }
+
+    private static long[] append(long[] quotes, int count, long id) {
+        if (count == quotes.length) quotes = Arrays.copyOf(quotes, quotes.length * 2);
+        quotes[count] = id;
+        return quotes;
+    }
+
+    // Entfernt ausgeführte Orders, sobald das Array voll ist; liefert die neue Anzahl
+    private int compactIfFull(long[] quotes, int count) {
+        if (count < quotes.length) return count;
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            if (book.isActive(quotes[i])) quotes[kept++] = quotes[i];
+        }
+        return kept;
+    }
+
+    @Override
+    public String getName() {
+        return "Orderbuch";
+    }
+
+    @Override
+    public synchronized String toString() {
+        int bid = book.getBestBidTick();
+        int ask = book.getBestAskTick();
+        return String.format(Locale.US, "Orderbuch: Bid %.3f / Ask %.3f | %d Fills, %.3f SC | %d ruhende Orders | %d× neu quotiert",
+                bid < 0 ? 0.0 : book.toPrice(bid), ask < 0 ? 0.0 : book.toPrice(ask),
+                book.getTradeCount(), book.getTradedLots() * LOT_SIZE_SC, book.getActiveOrders(), requotes);
+    }
+}
@@ -0,0 +1,212 @@
+package org.fintech;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Datenpipeline des Preis-Charts.
+ *
+ * Ein eigener Hintergrund-Thread liest das sichtbare Zeitfenster in voller Tick-Auflösung aus der
+ * {@link PriceHistory}, reduziert es mit Largest-Triangle-Three-Buckets (LTTB) auf etwa einen Punkt
+ * pro Pixel und übergibt das Ergebnis als fertigen {@link Points}-Satz an den UI-Thread. Neue Punkte
+ * gibt es nur, wenn sich das Fenster geändert hat (neue Ticks, Zoom, Breite); solange der UI-Thread
+ * den letzten Satz noch nicht übernommen hat, wird keiner nachgeschoben.
+ *
+ * Das Fenster endet immer am jüngsten Tick; {@link #zoom(double)} ändert nur seine Länge.
+ */
+public final class PriceChartPipeline {
+
+    public static final long DEFAULT_WINDOW_MILLIS = 5 * 60_000L;
+    public static final long MIN_WINDOW_MILLIS = 10_000L;
+    public static final long MAX_WINDOW_MILLIS = 24 * 3_600_000L;
+    private static final long REFRESH_MILLIS = 250;
+    private static final int MIN_POINTS = 3;
+
+    /** Unveränderlicher, heruntergerechneter Punktsatz für ein Fenster (älteste zuerst). */
+    public static final class Points {
+        private final long[] times;
+        private final double[] prices;
+        private final int size;
+        private final long fromMillis;
+        private final long toMillis;
+        private final int sourceTicks;
+
+        Points(long[] times, double[] prices, int size, long fromMillis, long toMillis, int sourceTicks) {
+            this.times = times;
+            this.prices = prices;
+            this.size = size;
+            this.fromMillis = fromMillis;
+            this.toMillis = toMillis;
+            this.sourceTicks = sourceTicks;
+        }
+
+        public int size() { return size; }
+        public long getTimeMillis(int i) { return times[i]; }
+        public double getPrice(int i) { return prices[i]; }
+        public long getFromMillis() { return fromMillis; }
+        public long getToMillis() { return toMillis; }
+        /** Ticks im Fenster vor dem Herunterrechnen. */
+        public int getSourceTicks() { return sourceTicks; }
+    }
+
+    private final PriceHistory history;
+    private final Executor uiExecutor;
+    private final Consumer<Points> consumer;
+    private final ScheduledThreadPoolExecutor worker;
+    private final AtomicBoolean deliveryPending = new AtomicBoolean(false);
+    private volatile long windowMillis = DEFAULT_WINDOW_MILLIS;
+    private volatile int pixelWidth = 800;
+
+    private volatile long pushedSets = 0;
+
+    // Nur im Worker-Thread benutzt
+    private final PriceHistory.Range range = new PriceHistory.Range();
+    private long renderedVersion = -1;
+    private long renderedWindow = -1;
+    private int renderedWidth = -1;
+
+    /**
+     * @param history Quelle in voller Auflösung.
+     * @param uiExecutor Führt die Übergabe im UI-Thread aus (z.B. {@code Platform::runLater}).
+     * @param consumer Übernimmt einen neuen Punktsatz (im UI-Thread).
+     */
+    public PriceChartPipeline(PriceHistory history, Executor uiExecutor, Consumer<Points> consumer) {
+        this.history = history;
+        this.uiExecutor = uiExecutor;
+        this.consumer = consumer;
+        this.worker = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "price-chart");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public void start() {
+        worker.scheduleWithFixedDelay(this::refresh, 0, REFRESH_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        worker.shutdownNow();
+    }
+
+    public long getWindowMillis() {
+        return windowMillis;
+    }
+
+    public void setWindowMillis(long windowMillis) {
+        this.windowMillis = Math.max(MIN_WINDOW_MILLIS, Math.min(MAX_WINDOW_MILLIS, windowMillis));
+    }
+
+    /** Skaliert die Fensterlänge (Faktor < 1 zoomt hinein). */
+    public void zoom(double factor) {
+        setWindowMillis(Math.round(windowMillis * factor));
+    }
+
+    /** Zielanzahl der Punkte, üblicherweise die Breite der Zeichenfläche in Pixeln. */
+    public void setPixelWidth(int pixelWidth) {
+        this.pixelWidth = Math.max(MIN_POINTS, pixelWidth);
+    }
+
+    public long getPushedSets() {
+        return pushedSets;
+    }
+
+    private void refresh() {
+        try {
+            if (deliveryPending.get()) return; // UI hat den letzten Satz noch nicht übernommen
+            long version = history.getVersion();
+            long window = windowMillis;
+            int width = pixelWidth;
+            if (version == renderedVersion && window == renderedWindow && width == renderedWidth) return;
+
+            long to = history.getLatestMillis();
+            if (to == Long.MIN_VALUE) return;
+            long from = to - window;
+            int n = history.copy(from, to, range);
+
+            int target = Math.min(n, width);
+            long[] times = new long[target];
+            double[] prices = new double[target];
+            int size = downsample(range.times(), range.prices(), n, target, times, prices);
+            Points points = new Points(times, prices, size, from, to, n);
+
+            renderedVersion = version;
+            renderedWindow = window;
+            renderedWidth = width;
+            pushedSets++;
+            deliveryPending.set(true);
+            uiExecutor.execute(() -> {
+                try {
+                    consumer.accept(points);
+                } finally {
+                    deliveryPending.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            // Ein Fehler darf den periodischen Task nicht beenden
+            System.err.println("Fehler in der Chart-Pipeline: " + e);
+        }
+    }
+
+    /**
+     * Largest-Triangle-Three-Buckets: wählt aus {@code n} Punkten {@code threshold} aus, die den
+     * Kurvenverlauf (Spitzen, Einbrüche) erhalten. Erster und letzter Punkt bleiben immer erhalten.
+     * @return Anzahl der nach {@code outX}/{@code outY} geschriebenen Punkte.
+     */
+    public static int downsample(long[] x, double[] y, int n, int threshold,
+                                 long[] outX, double[] outY) {
+        if (threshold >= n || threshold < MIN_POINTS) {
+            int size = Math.min(n, outX.length);
+            System.arraycopy(x, 0, outX, 0, size);
+            System.arraycopy(y, 0, outY, 0, size);
+            return size;
+        }
+
+        double bucketSize = (double) (n - 2) / (threshold - 2);
+        long x0 = x[0]; // relativ rechnen, damit Epoch-Millisekunden die Flächen nicht verfälschen
+        int a = 0;
+        int out = 0;
+        outX[out] = x[0];
+        outY[out++] = y[0];
+
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            // Mittelwert des nächsten Buckets als dritte Dreiecksecke
+            int avgStart = (int) ((bucket + 1) * bucketSize) + 1;
+            int avgEnd = Math.min((int) ((bucket + 2) * bucketSize) + 1, n);
+            double avgX = 0;
+            double avgY = 0;
+            for (int j = avgStart; j < avgEnd; j++) {
+                avgX += x[j] - x0;
+                avgY += y[j];
+            }
+            int avgLength = avgEnd - avgStart;
+            avgX /= avgLength;
+            avgY /= avgLength;
+
+            // Punkt des aktuellen Buckets mit der größten Dreiecksfläche zu (a, Mittelwert)
+            int rangeStart = (int) (bucket * bucketSize) + 1;
+            int rangeEnd = (int) ((bucket + 1) * bucketSize) + 1;
+            double ax = x[a] - x0;
+            double ay = y[a];
+            double maxArea = -1;
+            int next = rangeStart;
+            for (int j = rangeStart; j < rangeEnd; j++) {
+                double area = Math.abs((ax - avgX) * (y[j] - ay) - (ax - (x[j] - x0)) * (avgY - ay));
+                if (area > maxArea) {
+                    maxArea = area;
+                    next = j;
+                }
+            }
+            outX[out] = x[next];
+            outY[out++] = y[next];
+            a = next;
+        }
+
+        outX[out] = x[n - 1];
+        outY[out++] = y[n - 1];
+        return out;
+    }
+}
@@ -0,0 +1,118 @@
+package org.fintech;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Veröffentlicht Preise als unveränderliche, fortlaufend nummerierte {@link PriceTick}s.
+ *
+ * Der aktuelle Stand liegt in einer {@link AtomicReference}: {@link #latest()} ist lock-frei und
+ * liefert nie einen halb geschriebenen Preis. Abonnenten werden auf ihrem eigenen {@link Executor}
+ * benachrichtigt (z.B. {@code Platform::runLater}); pro Abonnent ist höchstens eine Zustellung
+ * unterwegs. Kommen in der Zwischenzeit mehrere Ticks, erhält ein langsamer Abonnent nur den
+ * neuesten (Conflation) – die Warteschlange des Executors kann so nicht volllaufen.
+ */
+public final class PriceFeed {
+
+    private final AtomicReference<PriceTick> latest;
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    public PriceFeed(double initialPrice) {
+        this.latest = new AtomicReference<>(new PriceTick(0, initialPrice, SimulationContext.currentTimeMillis()));
+    }
+
+    /** Aktueller Stand (lock-frei). */
+    public PriceTick latest() {
+        return latest.get();
+    }
+
+    /**
+     * Veröffentlicht einen neuen Preis mit der nächsten Sequenznummer und benachrichtigt die Abonnenten.
+     * Ein unveränderter Preis erzeugt keinen Tick.
+     * @return Der veröffentlichte (oder bei unverändertem Preis der bisherige) Tick.
+     */
+    public PriceTick publish(double price) {
+        PriceTick previous;
+        PriceTick next;
+        do {
+            previous = latest.get();
+            if (previous.getPrice() == price) return previous;
+            next = new PriceTick(previous.getSequence() + 1, price, SimulationContext.currentTimeMillis());
+        } while (!latest.compareAndSet(previous, next));
+
+        for (Subscription s : subscriptions) {
+            s.signal();
+        }
+        return next;
+    }
+
+    /**
+     * Abonniert Preisänderungen.
+     * @param executor Führt die Zustellung aus (z.B. {@code Platform::runLater} oder {@code Runnable::run}).
+     * @param listener Erhält den jeweils neuesten Tick.
+     */
+    public Subscription subscribe(Executor executor, Consumer<PriceTick> listener) {
+        Subscription s = new Subscription(executor, listener);
+        subscriptions.add(s);
+        return s;
+    }
+
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    /** Ein Abonnement mit eigener Zustell-Statistik. */
+    public final class Subscription {
+        private final Executor executor;
+        private final Consumer<PriceTick> listener;
+        private final AtomicBoolean scheduled = new AtomicBoolean(false);
+        private volatile boolean cancelled = false;
+        private volatile long lastDeliveredSequence = -1;
+        private final LongAdder delivered = new LongAdder();
+        private final LongAdder signals = new LongAdder();
+
+        private Subscription(Executor executor, Consumer<PriceTick> listener) {
+            this.executor = executor;
+            this.listener = listener;
+        }
+
+        // Höchstens eine Zustellung pro Abonnent unterwegs
+        private void signal() {
+            if (cancelled) return;
+            signals.increment();
+            if (scheduled.compareAndSet(false, true)) {
+                executor.execute(this::deliver);
+            }
+        }
+
+        private void deliver() {
+            scheduled.set(false); // vor dem Lesen: ein danach veröffentlichter Tick plant neu ein
+            if (cancelled) return;
+            PriceTick tick = latest.get();
+            if (tick.getSequence() <= lastDeliveredSequence) return;
+            lastDeliveredSequence = tick.getSequence();
+            delivered.increment();
+            try {
+                listener.accept(tick);
+            } catch (RuntimeException e) {
+                System.err.println("Fehler in Preis-Abonnent: " + e.getMessage());
+            }
+        }
+
+        public void cancel() {
+            cancelled = true;
+            subscriptions.remove(this);
+        }
+
+        /** Zugestellte Ticks. */
+        public long getDelivered() { return delivered.sum(); }
+
+        /** Ticks, die durch Conflation übersprungen wurden. */
+        public long getConflated() { return Math.max(0, signals.sum() - delivered.sum()); }
+    }
+}
@@ -0,0 +1,163 @@
+package org.fintech;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Vollständige Preis-Historie in Tick-Auflösung (Zeitpunkt, Preis) für Chart und Auswertungen.
+ *
+ * Primitive Ringpuffer, die bis {@link #DEFAULT_CAPACITY} Ticks mitwachsen und danach die ältesten
+ * überschreiben (bei 10-ms-Ticks gut 5 Stunden). Zeitpunkte sind monoton, Bereichsabfragen finden
+ * den Anfang per Binärsuche und kopieren in einen vom Aufrufer wiederverwendeten {@link Range}.
+ * Ein Schreiber (der {@link PriceSimulator} unter seinem Monitor), beliebig viele Leser.
+ */
+public final class PriceHistory {
+
+    public static final int DEFAULT_CAPACITY = 1 << 21;
+    private static final int INITIAL_CAPACITY = 1 << 12;
+
+    /** Wiederverwendbarer, wachsender Puffer für Abfrageergebnisse (älteste zuerst). */
+    public static final class Range {
+        private long[] times = new long[INITIAL_CAPACITY];
+        private double[] prices = new double[INITIAL_CAPACITY];
+        private int size;
+
+        public int size() { return size; }
+        public long getTimeMillis(int i) { return times[i]; }
+        public double getPrice(int i) { return prices[i]; }
+        long[] times() { return times; }
+        double[] prices() { return prices; }
+
+        private void ensureCapacity(int n) {
+            if (n > times.length) {
+                int capacity = Math.max(n, times.length * 2);
+                times = Arrays.copyOf(times, capacity);
+                prices = Arrays.copyOf(prices, capacity);
+            }
+        }
+    }
+
+    private final int maxCapacity;
+    private final StampedLock lock = new StampedLock();
+    private long[] times = new long[INITIAL_CAPACITY];
+    private double[] prices = new double[INITIAL_CAPACITY];
+    private int head = 0;   // nächster Schreibplatz
+    private int count = 0;
+    private long version = 0;
+
+    public PriceHistory() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public PriceHistory(int maxCapacity) {
+        if (maxCapacity < INITIAL_CAPACITY) throw new IllegalArgumentException("Kapazität zu klein: " + maxCapacity);
+        this.maxCapacity = maxCapacity;
+    }
+
+    /** Hängt einen Tick an; Zeitpunkte vor dem letzten werden auf diesen angehoben (monoton für die Binärsuche). */
+    public void add(long timestampMillis, double price) {
+        long stamp = lock.writeLock();
+        try {
+            if (count > 0) {
+                timestampMillis = Math.max(timestampMillis, times[index(count - 1)]);
+            }
+            if (count == times.length && times.length < maxCapacity) {
+                grow();
+            }
+            times[head] = timestampMillis;
+            prices[head] = price;
+            head = head + 1 == times.length ? 0 : head + 1;
+            if (count < times.length) count++;
+            version++;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // Vor dem ersten Überlauf liegt der Puffer linear ab 0 (head == count), Kopieren genügt
+    private void grow() {
+        int capacity = Math.min(maxCapacity, times.length * 2);
+        times = Arrays.copyOf(times, capacity);
+        prices = Arrays.copyOf(prices, capacity);
+        head = count;
+    }
+
+    // Logische Position (0 = ältester Tick) → Array-Index
+    private int index(int logical) {
+        int i = head - count + logical;
+        return i < 0 ? i + times.length : i;
+    }
+
+    /**
+     * Kopiert alle Ticks mit Zeitpunkt in [fromMillis, toMillis] chronologisch nach {@code out}.
+     * @return Anzahl der kopierten Ticks.
+     */
+    public int copy(long fromMillis, long toMillis, Range out) {
+        long stamp = lock.readLock();
+        try {
+            int first = lowerBound(fromMillis);
+            int last = lowerBound(toMillis == Long.MAX_VALUE ? toMillis : toMillis + 1);
+            int n = Math.max(0, last - first);
+            out.ensureCapacity(n);
+            for (int k = 0; k < n; k++) {
+                int i = index(first + k);
+                out.times[k] = times[i];
+                out.prices[k] = prices[i];
+            }
+            out.size = n;
+            return n;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Erste logische Position mit Zeitpunkt >= millis
+    private int lowerBound(long millis) {
+        int lo = 0;
+        int hi = count;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (times[index(mid)] < millis) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    /** Zeitpunkt des jüngsten Ticks oder {@link Long#MIN_VALUE}, wenn noch keiner existiert. */
+    public long getLatestMillis() {
+        long stamp = lock.readLock();
+        try {
+            return count == 0 ? Long.MIN_VALUE : times[index(count - 1)];
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /** Zeitpunkt des ältesten gespeicherten Ticks oder {@link Long#MIN_VALUE}. */
+    public long getOldestMillis() {
+        long stamp = lock.readLock();
+        try {
+            return count == 0 ? Long.MIN_VALUE : times[index(0)];
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return count;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /** Anzahl aller je angehängten Ticks; ändert sich mit jedem Tick (für Änderungserkennung). */
+    public long getVersion() {
+        long stamp = lock.readLock();
+        try {
+            return version;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+}
@@ -1,16 +1,164 @@
 package org.fintech;
 
-import java.util.Random;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
 
 public class PriceSimulator {
 
+    /** Standard-Takt, in dem gesammelte Trades auf den Preis wirken. */
+    public static final long DEFAULT_TICK_MILLIS = 10;
+
+    // Arbeitsstand, nur unter dem Monitor geschrieben; Leser nutzen den PriceFeed
     private double currentPrice;
-    private final Random random = new Random();
+    // 🔧 Veröffentlichter Preis: unveränderliche Ticks, lock-frei und ohne Polling lesbar
+    private final PriceFeed priceFeed;
+    // Preisverlauf als OHLCV-Kerzen (1s/1m/5m/1h) für Chart, Auswertungen und API
+    private final CandleEngine candles = new CandleEngine();
+    // Jeder Tick in voller Auflösung (Quelle des heruntergerechneten Charts); null = nicht aufgezeichnet
+    private volatile PriceHistory history;
     private static final String PRICE_FILE = "price.txt";
+    private boolean persistent = true;
+    private boolean verbose = true;
+    private volatile MarketPricing pricing; // null = eingebaute Preiswirkungs-Formel
+
+    // Volumen seit dem letzten Tick (lock-frei von beliebig vielen Tradern befüllt)
+    private final DoubleAdder pendingBuySc = new DoubleAdder();
+    private final DoubleAdder pendingSellSc = new DoubleAdder();
+    private final LongAdder pendingTrades = new LongAdder();
+    private final LongAdder appliedTicks = new LongAdder();
+    private final LongAdder batchedTrades = new LongAdder();
+    private volatile long tickMillis = DEFAULT_TICK_MILLIS;
+
+    // Aktiver Markt-Simulator; Preisquelle für WalletManager/GUI ohne Abhängigkeit von MyChainGUI
+    private static volatile PriceSimulator active;
 
     public PriceSimulator(double initialPrice) {
         // Initialer Preis sollte geladen werden, falls vorhanden
         this.currentPrice = initialPrice;
+        this.priceFeed = new PriceFeed(initialPrice);
+        active = this;
+    }
+
+    /**
+     * Aktueller Marktpreis des zuletzt erzeugten Simulators (1.00, falls noch keiner existiert).
+     */
+    public static double getMarketPrice() {
+        PriceSimulator simulator = active;
+        return simulator != null ? simulator.getCurrentPrice() : 1.00;
+    }
+
+    /** Zuletzt erzeugter Simulator oder null. */
+    static PriceSimulator getActive() {
+        return active;
+    }
+
+    // Headless-Läufe sollen price.txt der GUI nicht überschreiben
+    public void setPersistent(boolean persistent) {
+        this.persistent = persistent;
+    }
+
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+    }
+
+    /**
+     * Ersetzt die Preiswirkungs-Formel, z.B. durch ein {@link OrderBookPricing}.
+     * @param pricing Die Preisbildung oder null für die eingebaute Formel.
+     */
+    public void setPricing(MarketPricing pricing) {
+        this.pricing = pricing;
+    }
+
+    public MarketPricing getPricing() {
+        return pricing;
+    }
+
+    public long getTickMillis() {
+        return tickMillis;
+    }
+
+    public void setTickMillis(long tickMillis) {
+        this.tickMillis = Math.max(1, tickMillis);
+    }
+
+    /** OHLCV-Kerzen aus allen angewendeten Ticks. */
+    public CandleEngine getCandles() {
+        return candles;
+    }
+
+    /**
+     * Schaltet die Tick-Historie ein (z.B. für den Chart der GUI) und liefert sie. Ohne Aufruf wird
+     * nichts aufgezeichnet; Ticks vor dem Einschalten fehlen in der Historie.
+     */
+    public synchronized PriceHistory enableHistory() {
+        if (history == null) {
+            history = new PriceHistory();
+        }
+        return history;
+    }
+
+    /** Alle seit {@link #enableHistory()} angewendeten Ticks in voller Auflösung oder null, wenn nicht eingeschaltet. */
+    public PriceHistory getHistory() {
+        return history;
+    }
+
+    /** Preis-Feed zum Abonnieren von Preisänderungen (ein Tick pro tatsächlicher Änderung). */
+    public PriceFeed getPriceFeed() {
+        return priceFeed;
+    }
+
+    /**
+     * Ausführungspreis, zu dem ein Trade dieser Größe jetzt abgerechnet wird (lock-frei lesend).
+     * Mit der eingebauten Formel ist das der Referenzpreis; AMM und Orderbuch liefern ihren Swap- bzw. Fill-Preis.
+     * @param referencePrice Marktpreis, den der Aufrufer gesehen hat.
+     */
+    public double quote(double amountSC, boolean isBuy, double referencePrice) {
+        MarketPricing external = pricing;
+        return external == null ? referencePrice : external.quote(amountSC, isBuy, referencePrice);
+    }
+
+    /**
+     * Merkt einen Trade für den nächsten Tick vor, ohne den Preis sofort zu ändern (lock-frei).
+     * Alle Trades eines Ticks sehen denselben Preis; die Wirkung kommt gesammelt mit {@link #applyTick()}.
+     * @param amountSC Die gehandelte SC-Menge.
+     * @param isBuy True, wenn SC gekauft wird.
+     */
+    public void submitTrade(double amountSC, boolean isBuy) {
+        if (amountSC <= 0) return;
+        (isBuy ? pendingBuySc : pendingSellSc).add(amountSC);
+        pendingTrades.increment();
+    }
+
+    /**
+     * Wendet das seit dem letzten Tick gesammelte Volumen als einen Batch an: eine Preisänderung,
+     * eine Benachrichtigung und höchstens ein Schreiben von price.txt pro Tick.
+     * Die Trade-Anzahl je Tick ist eine Statistik ohne Sperre: ein Trade, der gleichzeitig eingereicht
+     * wird, kann mit seinem Volumen in diesen und mit seiner Zählung in den nächsten Tick fallen.
+     * @return true, wenn Volumen anlag.
+     */
+    public boolean applyTick() {
+        // Zählung vor den Volumen lesen: submitTrade zählt erst nach dem Volumen, eine gelesene Zählung
+        // hat ihr Volumen also sicher im selben Tick
+        long trades = pendingTrades.sumThenReset();
+        double buy = pendingBuySc.sumThenReset();
+        double sell = pendingSellSc.sumThenReset();
+        if (buy <= 0 && sell <= 0) {
+            pendingTrades.add(trades); // Zählung ohne Volumen gehört zum nächsten Tick
+            return false;
+        }
+        batchedTrades.add(trades);
+        executeBatch(buy, sell);
+        return true;
+    }
+
+    /** Angewendete Ticks (mit Volumen). */
+    public long getAppliedTicks() {
+        return appliedTicks.sum();
+    }
+
+    /** Über Ticks gesammelt angewendete Trades. */
+    public long getBatchedTrades() {
+        return batchedTrades.sum();
     }
 
     public static void savePrice(double price) {
@@ -37,12 +185,24 @@ public class PriceSimulator {
     }
 
     /**
-     * Simuliert den Einfluss eines Handels (Kauf oder Verkauf) auf den Preis.
+     * Simuliert den Einfluss eines Handels (Kauf oder Verkauf) sofort auf den Preis (ohne Tick-Bündelung und ohne Speichern).
      * @param amountSC Die gehandelte SC-Menge.
      * @param isBuy True, wenn SC gekauft wird; False, wenn SC verkauft wird.
      */
-    public void executeTrade(double amountSC, boolean isBuy) {
+    public synchronized void executeTrade(double amountSC, boolean isBuy) {
         if (amountSC <= 0) return;
+        applyImpact(amountSC, isBuy);
+        publishTick(amountSC);
+    }
+
+    // Preiswirkung eines Trades auf currentPrice (ohne Veröffentlichung); nur unter dem Monitor aufrufen
+    private void applyImpact(double amountSC, boolean isBuy) {
+        MarketPricing external = pricing;
+        if (external != null) {
+            // Ausführungspreis der Preisbildung (z.B. VWAP der Fills) wird zum Marktpreis
+            currentPrice = Math.max(0.5, external.executeTrade(amountSC, isBuy, currentPrice));
+            return;
+        }
 
         // --- NEUE PARAMETER FÜR INVERSE SKALIERUNG ---
         // Dieser Faktor muss sehr viel höher sein, da wir durch den Preis teilen.
@@ -54,7 +214,7 @@ public class PriceSimulator {
         final double MAX_PRICE_RISE_PERCENT = 0.02; // Maximaler Anstieg: 2% (Preis verdoppelt sich)
 
         // 🟢 NEUE LOGIK: Preisänderung ist INVERS zum aktuellen Preis.
-        double priceChange = (amountSC * VOLATILITY_FACTOR_NEW) / getCurrentPrice();
+        double priceChange = (amountSC * VOLATILITY_FACTOR_NEW) / currentPrice;
 
         if (!isBuy) {
             priceChange *= -1; // Bei Verkauf wird der Preis gesenkt
@@ -72,7 +232,7 @@ public class PriceSimulator {
             if (priceChange > maxAllowedRise) {
                 priceChange = maxAllowedRise;
 
-                System.out.printf("⚠️ TRADE BEGRENZT: Kauf von %.3f SC auf maximalen Anstieg von %.2f%% begrenzt.%n",
+                if (verbose) System.out.printf("⚠️ TRADE BEGRENZT: Kauf von %.3f SC auf maximalen Anstieg von %.2f%% begrenzt.%n",
                         amountSC, (MAX_PRICE_RISE_PERCENT * 100));
 
                 potentialNewPrice = currentPrice + priceChange;
@@ -89,7 +249,7 @@ public class PriceSimulator {
                 // Begrenzen des Drops auf das Maximum (priceChange ist hier negativ)
                 priceChange = -maxAllowedDrop;
 
-                System.out.printf("⚠️ TRADE BEGRENZT: Verkauf von %.3f SC auf maximalen Drop von %.2f%% begrenzt.%n",
+                if (verbose) System.out.printf("⚠️ TRADE BEGRENZT: Verkauf von %.3f SC auf maximalen Drop von %.2f%% begrenzt.%n",
                         amountSC, (MAX_PRICE_DROP_PERCENT * 100));
 
                 potentialNewPrice = currentPrice + priceChange;
@@ -103,13 +263,45 @@ public class PriceSimulator {
         // Sicherstellen, dass der Preis nicht negativ oder extrem niedrig wird
         if (currentPrice < 0.5) {
             currentPrice = 0.5;
-            savePrice(currentPrice); // Speichern des Endpreises nach dem Trade
-        } else {
-            savePrice(currentPrice);
         }
     }
 
+    // Veröffentlicht den Preis und schreibt den Tick in Kerzen und (falls eingeschaltet) Historie
+    private void publishTick(double volumeSc) {
+        long now = SimulationContext.currentTimeMillis();
+        priceFeed.publish(currentPrice);
+        candles.onTick(now, currentPrice, volumeSc);
+        if (history != null) {
+            history.add(now, currentPrice);
+        }
+    }
+
+    /**
+     * Führt die Käufe und Verkäufe eines Ticks (z.B. eines Blocks) als einen Batch aus:
+     * eine Preisaktualisierung und ein {@link PriceTick} im {@link PriceFeed} statt einer pro Trade, danach Speichern.
+     * @param buySC Summe der gekauften SC.
+     * @param sellSC Summe der verkauften SC.
+     */
+    public void executeBatch(double buySC, double sellSC) {
+        if (buySC <= 0 && sellSC <= 0) return;
+        synchronized (this) {
+            MarketPricing external = pricing;
+            if (external == null) {
+                double net = buySC - sellSC;
+                if (net != 0) applyImpact(Math.abs(net), net > 0);
+            } else {
+                currentPrice = Math.max(0.5, external.executeBatch(buySC, sellSC, currentPrice));
+            }
+            publishTick(buySC + sellSC);
+            appliedTicks.increment();
+            if (persistent) {
+                savePrice(currentPrice); // 🔧 einmal pro Tick statt nach jedem Trade
+            }
+        }
+    }
+
+    /** Zuletzt veröffentlichter Preis (lock-frei, nie halb geschrieben). */
     public double getCurrentPrice() {
-        return currentPrice;
+        return priceFeed.latest().getPrice();
     }
 }
\ No newline at end of file
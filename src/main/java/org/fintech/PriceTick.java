@@ -0,0 +1,27 @@
+package org.fintech;
+
+/**
+ * Unveränderlicher Preisstand: fortlaufende Sequenznummer, Preis und Zeitpunkt.
+ * Wird als Ganzes veröffentlicht, Leser sehen Preis und Sequenz daher immer zusammenpassend.
+ */
+public final class PriceTick {
+
+    private final long sequence;
+    private final double price;
+    private final long timestampMillis;
+
+    public PriceTick(long sequence, double price, long timestampMillis) {
+        this.sequence = sequence;
+        this.price = price;
+        this.timestampMillis = timestampMillis;
+    }
+
+    public long getSequence() { return sequence; }
+    public double getPrice() { return price; }
+    public long getTimestampMillis() { return timestampMillis; }
+
+    @Override
+    public String toString() {
+        return "PriceTick#" + sequence + " " + price + " @" + timestampMillis;
+    }
+}
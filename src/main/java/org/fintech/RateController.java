@@ -0,0 +1,155 @@
+package org.fintech;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Geschlossener Regelkreis für die angebotene Last (AIMD, wie bei TCP-Staukontrolle).
+ *
+ * Pro Messfenster (Standard 500 ms) wird die p99-Commit-Latenz der im Fenster abgeschlossenen
+ * Vorgänge gegen das Latenz-SLO geprüft, zusätzlich die Warteschlangentiefe gegen ihr Limit:
+ * <ul>
+ *   <li>beides eingehalten: Rate additiv erhöhen ({@code +additiveStep} pro Fenster) – aber nur, wenn
+ *       die Rate im Fenster tatsächlich begrenzt hat; sonst halten (kein Aufintegrieren, solange
+ *       eine andere Grenze bindet)</li>
+ *   <li>verletzt: Rate multiplikativ senken ({@code × decreaseFactor})</li>
+ * </ul>
+ * Die Rate pendelt sich so knapp unter dem Punkt ein, an dem das SLO reißt. Als nachhaltige Rate
+ * wird der geglättete tatsächliche Durchsatz der Fenster gemeldet, in denen das SLO gehalten wurde.
+ *
+ * Aufrufer melden Abschlüsse über {@link #recordCompletion(long)} und rufen regelmäßig
+ * {@link #maybeAdjust(int)} auf; ein eigener Thread ist nicht nötig.
+ */
+public final class RateController {
+
+    private static final long DEFAULT_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+    private static final double DEFAULT_DECREASE_FACTOR = 0.7;
+    private static final double SUSTAINABLE_ALPHA = 0.3;
+
+    private final double minRate;
+    private final double maxRate;
+    private final double additiveStep;
+    private final double decreaseFactor;
+    private final long sloNanos;
+    private final int maxQueueDepth;
+    private final long intervalNanos;
+
+    private final LatencyHistogram window = new LatencyHistogram();
+    private final LongAdder windowCompletions = new LongAdder();
+    private final AtomicLong windowStartNanos = new AtomicLong(System.nanoTime());
+    private final LongAdder increases = new LongAdder();
+    private final LongAdder decreases = new LongAdder();
+    private final LongAdder holds = new LongAdder();
+    private volatile boolean windowRateBound = false;
+
+    private volatile double rate;
+    private volatile double sustainableRate = 0.0;
+    private volatile long lastP99Nanos = 0;
+    private volatile int lastQueueDepth = 0;
+
+    /**
+     * @param initialRate Startrate (Vorgänge pro Sekunde).
+     * @param minRate Untergrenze der Rate.
+     * @param maxRate Obergrenze der Rate.
+     * @param additiveStep Erhöhung pro eingehaltenem Messfenster.
+     * @param sloMillis Latenz-SLO für das p99 der Commit-Latenz.
+     * @param maxQueueDepth Maximal tolerierte Warteschlangentiefe.
+     */
+    public RateController(double initialRate, double minRate, double maxRate, double additiveStep,
+                          long sloMillis, int maxQueueDepth) {
+        if (minRate <= 0 || maxRate < minRate) {
+            throw new IllegalArgumentException("Ungültige Grenzen: min=" + minRate + ", max=" + maxRate);
+        }
+        this.minRate = minRate;
+        this.maxRate = maxRate;
+        this.additiveStep = additiveStep;
+        this.decreaseFactor = DEFAULT_DECREASE_FACTOR;
+        this.sloNanos = TimeUnit.MILLISECONDS.toNanos(sloMillis);
+        this.maxQueueDepth = maxQueueDepth;
+        this.intervalNanos = DEFAULT_INTERVAL_NANOS;
+        this.rate = clamp(initialRate);
+    }
+
+    private double clamp(double r) {
+        return Math.max(minRate, Math.min(maxRate, r));
+    }
+
+    /** Meldet einen abgeschlossenen Vorgang (z.B. festgeschriebener Block) mit seiner Latenz. */
+    public void recordCompletion(long latencyNanos) {
+        window.record(latencyNanos);
+        windowCompletions.increment();
+    }
+
+    /**
+     * Passt die Rate an, wenn das aktuelle Messfenster abgelaufen ist (sonst sofort zurück).
+     * Für Aufrufer, bei denen die Rate des Reglers immer die bindende Grenze ist.
+     * @param queueDepth Aktuelle Warteschlangentiefe bzw. Rückstand in Vorgängen.
+     * @return true, wenn in diesem Aufruf angepasst wurde.
+     */
+    public boolean maybeAdjust(int queueDepth) {
+        return maybeAdjust(queueDepth, true);
+    }
+
+    /**
+     * Wie {@link #maybeAdjust(int)}, mit Angabe, ob die Rate des Reglers gerade die bindende Grenze war.
+     * Erhöht wird nur, wenn sie im abgelaufenen Fenster mindestens einmal gebunden hat.
+     * @param rateBound true, wenn der Abstand aus {@link #getPeriodNanos()} tatsächlich verwendet wurde.
+     */
+    public boolean maybeAdjust(int queueDepth, boolean rateBound) {
+        if (rateBound) windowRateBound = true;
+        long now = System.nanoTime();
+        long start = windowStartNanos.get();
+        long elapsed = now - start;
+        if (elapsed < intervalNanos || !windowStartNanos.compareAndSet(start, now)) return false;
+
+        long completions = windowCompletions.sumThenReset();
+        long p99 = window.percentileNanos(0.99);
+        window.reset();
+        lastP99Nanos = p99;
+        lastQueueDepth = queueDepth;
+
+        boolean overloaded = (completions > 0 && p99 > sloNanos) || queueDepth > maxQueueDepth;
+        if (overloaded) {
+            rate = clamp(rate * decreaseFactor);
+            decreases.increment();
+        } else {
+            if (completions > 0) {
+                double achieved = completions * 1e9 / elapsed;
+                double old = sustainableRate;
+                sustainableRate = old == 0.0 ? achieved : old + SUSTAINABLE_ALPHA * (achieved - old);
+            }
+            if (windowRateBound) {
+                rate = clamp(rate + additiveStep);
+                increases.increment();
+            } else {
+                holds.increment(); // andere Grenze bindet: Rate nicht weiter aufziehen
+            }
+        }
+        windowRateBound = false;
+        return true;
+    }
+
+    /** Aktuell erlaubte Rate (Vorgänge pro Sekunde). */
+    public double getRate() { return rate; }
+
+    /** Abstand zwischen zwei Vorgängen bei der aktuellen Rate. */
+    public long getPeriodNanos() { return (long) (1e9 / rate); }
+
+    /** Geglätteter Durchsatz der Fenster, in denen SLO und Warteschlangenlimit eingehalten wurden. */
+    public double getSustainableRate() { return sustainableRate; }
+
+    public long getSloNanos() { return sloNanos; }
+    public long getLastP99Nanos() { return lastP99Nanos; }
+    public int getLastQueueDepth() { return lastQueueDepth; }
+    public long getIncreases() { return increases.sum(); }
+    public long getDecreases() { return decreases.sum(); }
+    public long getHolds() { return holds.sum(); }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "Rate %.1f/s (nachhaltig %.1f/s) | SLO p99 %.1f ms, zuletzt %.2f ms | Queue %d | %d× erhöht, %d× gesenkt, %d× gehalten",
+                rate, sustainableRate, sloNanos / 1e6, lastP99Nanos / 1e6, lastQueueDepth, getIncreases(), getDecreases(), getHolds());
+    }
+}
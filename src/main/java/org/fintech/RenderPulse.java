@@ -0,0 +1,84 @@
+package org.fintech;
+
+import javafx.animation.AnimationTimer;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Render-Takt der GUI: ein {@link AnimationTimer}, der einmal pro Frame alle als geändert markierten
+ * Views zeichnet.
+ *
+ * Modelländerungen (aus beliebigen Threads) setzen nur das Dirty-Flag einer {@link View}; beliebig
+ * viele Markierungen zwischen zwei Frames ergeben genau ein Rendern. Es landet also nichts in der
+ * FX-Event-Queue, die unter Last nicht mehr wachsen kann.
+ */
+public final class RenderPulse extends AnimationTimer {
+
+    /** Eine View mit eigenem Dirty-Flag. */
+    public static final class View {
+        private final String name;
+        private final Runnable render;
+        private final AtomicBoolean dirty = new AtomicBoolean(true); // erster Frame zeichnet alles
+        private final LongAdder marks = new LongAdder();
+        private long renders = 0;
+
+        private View(String name, Runnable render) {
+            this.name = name;
+            this.render = render;
+        }
+
+        /** Markiert die View für den nächsten Frame (thread-sicher, ohne Warten). */
+        public void markDirty() {
+            marks.increment();
+            dirty.set(true);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%s: %d Markierungen → %d Renderings", name, marks.sum(), renders);
+        }
+    }
+
+    private static final int MAX_LOGGED_ERRORS = 5;
+
+    private final List<View> views = new CopyOnWriteArrayList<>();
+    private long frames = 0;
+    private long errors = 0;
+
+    /**
+     * Registriert eine View; {@code render} läuft im FX-Thread, höchstens einmal pro Frame.
+     */
+    public View register(String name, Runnable render) {
+        View view = new View(name, render);
+        views.add(view);
+        return view;
+    }
+
+    @Override
+    public void handle(long now) {
+        frames++;
+        for (View view : views) {
+            if (!view.dirty.getAndSet(false)) continue;
+            try {
+                view.render.run();
+                view.renders++;
+            } catch (RuntimeException e) {
+                // Eine fehlerhafte View hält die anderen nicht an
+                if (++errors <= MAX_LOGGED_ERRORS) {
+                    System.err.println("Fehler beim Rendern von " + view.name + ": " + e);
+                }
+            }
+        }
+    }
+
+    public long getFrames() {
+        return frames;
+    }
+
+    public List<View> getViews() {
+        return List.copyOf(views);
+    }
+}
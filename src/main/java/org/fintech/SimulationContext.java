@@ -0,0 +1,123 @@
+package org.fintech;
+
+import java.nio.ByteBuffer;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.random.RandomGenerator;
+
+/**
+ * Zentrale Quelle für Zeit und Zufall der Simulation.
+ *
+ * Im Normalbetrieb: Systemuhr, {@link ThreadLocalRandom} und {@link SecureRandom} – wie bisher.
+ * Im Seed-Modus ({@link #enableSeeded(long)}): manuelle Uhr, benannte RNG-Streams (je Stream ein
+ * eigener, aus dem Seed abgeleiteter {@link SplittableRandom}), fortlaufende Transaktions-Nonces
+ * und deterministisch erzeugte Schlüssel. Gleicher Seed + gleiche Aufrufreihenfolge ergibt
+ * dieselben Wallets, Trades, Preise und Block-Hashes.
+ *
+ * Unabhängig davon kann mit {@link #enableManualClock(long)} nur die Uhr umgestellt werden
+ * (virtuelle Zeit, siehe {@link DiscreteEventEngine}).
+ *
+ * Der Seed-Modus ist für einen einzelnen Treiber-Thread gedacht (siehe {@link HeadlessRunner});
+ * er muss aktiviert werden, bevor {@link WalletManager} geladen wird, da die Supply-Wallet
+ * beim Klassen-Laden erzeugt wird.
+ */
+public final class SimulationContext {
+
+    // Feste Startzeit im Seed-Modus (2024-01-01T00:00:00Z), damit Block-Timestamps reproduzierbar sind
+    public static final long DEFAULT_START_MILLIS = 1_704_067_200_000L;
+
+    private static volatile boolean seeded = false;
+    private static volatile boolean manualClock = false;
+    private static long seed;
+    private static final AtomicLong manualTimeMillis = new AtomicLong(DEFAULT_START_MILLIS);
+    private static final AtomicLong transactionNonce = new AtomicLong();
+    private static final Map<String, SplittableRandom> streams = new ConcurrentHashMap<>();
+    private static SecureRandom keyRandom;
+
+    private SimulationContext() {}
+
+    /**
+     * Aktiviert den Seed-Modus.
+     * @param seed Der Seed, aus dem alle Streams abgeleitet werden.
+     */
+    public static synchronized void enableSeeded(long seed) {
+        SimulationContext.seed = seed;
+        streams.clear();
+        manualTimeMillis.set(DEFAULT_START_MILLIS);
+        transactionNonce.set(0);
+        try {
+            // SHA1PRNG ist deterministisch, wenn vor der ersten Nutzung geseedet wird
+            keyRandom = SecureRandom.getInstance("SHA1PRNG");
+            keyRandom.setSeed(ByteBuffer.allocate(Long.BYTES).putLong(streamSeed("keys")).array());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA1PRNG nicht verfügbar – Seed-Modus nicht möglich", e);
+        }
+        seeded = true;
+        manualClock = true;
+    }
+
+    /**
+     * Stellt nur die Uhr auf manuell (virtuelle Zeit); Zufall bleibt unverändert.
+     * Wie der Seed-Modus vor dem ersten Block aufrufen, damit alle Timestamps virtuell sind.
+     * @param startMillis Start der virtuellen Zeit (Epoch-Millisekunden).
+     */
+    public static synchronized void enableManualClock(long startMillis) {
+        manualTimeMillis.set(startMillis);
+        manualClock = true;
+    }
+
+    public static boolean isManualClock() {
+        return manualClock;
+    }
+
+    public static boolean isSeeded() {
+        return seeded;
+    }
+
+    public static long getSeed() {
+        return seed;
+    }
+
+    /** Aktuelle Zeit in Millisekunden (Systemuhr oder manuelle Uhr im Seed-/Virtuelle-Zeit-Modus). */
+    public static long currentTimeMillis() {
+        return manualClock ? manualTimeMillis.get() : System.currentTimeMillis();
+    }
+
+    /** Stellt die manuelle Uhr vor (ohne Wirkung bei Systemuhr, rückwärts wird ignoriert). */
+    public static void advanceTimeTo(long millis) {
+        manualTimeMillis.accumulateAndGet(millis, Math::max);
+    }
+
+    /** Eindeutigkeits-Anteil für Transaktions-IDs: fortlaufend im Seed-Modus, sonst {@link System#nanoTime()}. */
+    public static long nextTransactionNonce() {
+        return seeded ? transactionNonce.incrementAndGet() : System.nanoTime();
+    }
+
+    /**
+     * Zufallsquelle für einen benannten Ablauf (z.B. "trades", "wallets").
+     * Getrennte Streams sorgen dafür, dass ein zusätzlicher Zufallswert in einem Ablauf
+     * die Folgen der anderen nicht verschiebt.
+     */
+    public static RandomGenerator random(String stream) {
+        if (!seeded) return ThreadLocalRandom.current();
+        return streams.computeIfAbsent(stream, name -> new SplittableRandom(streamSeed(name)));
+    }
+
+    /** Zufallsquelle für die Schlüsselerzeugung (nur im Seed-Modus, sonst null). */
+    static SecureRandom keyRandom() {
+        return seeded ? keyRandom : null;
+    }
+
+    // SplitMix64-Finalizer über Seed und (JVM-übergreifend stabilen) String-Hash des Streams
+    private static long streamSeed(String name) {
+        long z = seed + 0x9E3779B97F4A7C15L * (name.hashCode() + 1L);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
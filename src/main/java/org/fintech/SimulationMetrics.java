@@ -0,0 +1,53 @@
+package org.fintech;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Durchsatz- und Latenz-Metriken der Simulation.
+ * Commit-Latenz = Zeit für Mining + Anhängen des Blocks + Balance-Update.
+ */
+public final class SimulationMetrics {
+
+    private final LatencyHistogram commitLatency = new LatencyHistogram();
+    private final LongAdder committedBlocks = new LongAdder();
+    private final LongAdder committedTransactions = new LongAdder();
+    private final LongAdder rejectedTrades = new LongAdder();
+    private volatile long startNanos = System.nanoTime();
+
+    public void recordCommit(int transactionCount, long latencyNanos) {
+        commitLatency.record(latencyNanos);
+        committedBlocks.increment();
+        committedTransactions.add(transactionCount);
+    }
+
+    public void recordRejectedTrade() {
+        rejectedTrades.increment();
+    }
+
+    public void reset() {
+        commitLatency.reset();
+        committedBlocks.reset();
+        committedTransactions.reset();
+        rejectedTrades.reset();
+        startNanos = System.nanoTime();
+    }
+
+    public LatencyHistogram getCommitLatency() { return commitLatency; }
+    public long getCommittedBlocks() { return committedBlocks.sum(); }
+    public long getCommittedTransactions() { return committedTransactions.sum(); }
+    public long getRejectedTrades() { return rejectedTrades.sum(); }
+
+    public double getElapsedSeconds() {
+        return (System.nanoTime() - startNanos) / 1e9;
+    }
+
+    public double getBlocksPerSecond() {
+        double s = getElapsedSeconds();
+        return s > 0 ? getCommittedBlocks() / s : 0.0;
+    }
+
+    public double getTransactionsPerSecond() {
+        double s = getElapsedSeconds();
+        return s > 0 ? getCommittedTransactions() / s : 0.0;
+    }
+}
@@ -0,0 +1,153 @@
+package org.fintech;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aufzeichnung eines Seed-Laufs: alle Parameter, die den Ablauf bestimmen (Seed, TPS, Wallets,
+ * Trades, Difficulty, Preisbildung, Margin-Anteil) plus die Hash-Folge aller Blöcke. Beim Replay wird derselbe
+ * Lauf ohne Takt erneut ausgeführt und Block für Block gegen die Aufzeichnung geprüft.
+ *
+ * Format (Text): Kopfzeile, dann {@code schlüssel=wert}-Zeilen bis {@code blocks=N}, dann ein
+ * Block-Hash pro Zeile. v1-Dateien (ohne Preisbildung und Margin) werden mit den damaligen Standardwerten gelesen.
+ */
+public final class SimulationRecording {
+
+    private static final String HEADER = "# MyChain-Aufzeichnung v2";
+    private static final String HEADER_V1 = "# MyChain-Aufzeichnung v1";
+    /** Preisbildung von Aufzeichnungen ohne {@code pricing=} (v1: nur die eingebaute Formel). */
+    static final String LEGACY_PRICING = "impact";
+    /** Margin-Anteil von Aufzeichnungen ohne {@code marginShare=} (v1: noch keine gehebelten Trades). */
+    static final double LEGACY_MARGIN_SHARE = 0.0;
+
+    private final long seed;
+    private final int tps;
+    private final int wallets;
+    private final long trades;
+    private final int difficulty;
+    private final String pricing;
+    private final double marginShare;
+    private final List<String> blockHashes;
+
+    public SimulationRecording(long seed, int tps, int wallets, long trades, int difficulty, String pricing,
+                               double marginShare, List<String> blockHashes) {
+        this.seed = seed;
+        this.tps = tps;
+        this.wallets = wallets;
+        this.trades = trades;
+        this.difficulty = difficulty;
+        this.pricing = pricing;
+        this.marginShare = marginShare;
+        this.blockHashes = Collections.unmodifiableList(new ArrayList<>(blockHashes));
+    }
+
+    public long getSeed() { return seed; }
+    public int getTps() { return tps; }
+    public int getWallets() { return wallets; }
+    public long getTrades() { return trades; }
+    public int getDifficulty() { return difficulty; }
+    /** Preisbildung des Laufs ({@code impact}, {@code orderbook} oder {@code amm}). */
+    public String getPricing() { return pricing; }
+    /** Anteil der Trades, die gehebelte Positionen eröffnen/schließen. */
+    public double getMarginShare() { return marginShare; }
+    public List<String> getBlockHashes() { return blockHashes; }
+
+    public static List<String> hashesOf(Blockchain blockchain) {
+        List<String> hashes = new ArrayList<>(blockchain.getChain().size());
+        for (Block block : blockchain.getChain()) {
+            hashes.add(block.getHash());
+        }
+        return hashes;
+    }
+
+    /**
+     * Vergleicht die Kette mit der Aufzeichnung.
+     * @return Index des ersten abweichenden Blocks oder -1, wenn beide identisch sind.
+     */
+    public int firstMismatch(Blockchain blockchain) {
+        List<Block> chain = blockchain.getChain();
+        int n = Math.min(chain.size(), blockHashes.size());
+        for (int i = 0; i < n; i++) {
+            if (!chain.get(i).getHash().equals(blockHashes.get(i))) return i;
+        }
+        return chain.size() == blockHashes.size() ? -1 : n;
+    }
+
+    public void write(Path file) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write(HEADER); out.newLine();
+            out.write("seed=" + seed); out.newLine();
+            out.write("tps=" + tps); out.newLine();
+            out.write("wallets=" + wallets); out.newLine();
+            out.write("trades=" + trades); out.newLine();
+            out.write("difficulty=" + difficulty); out.newLine();
+            out.write("pricing=" + pricing); out.newLine();
+            out.write("marginShare=" + marginShare); out.newLine();
+            out.write("blocks=" + blockHashes.size()); out.newLine();
+            for (String hash : blockHashes) {
+                out.write(hash); out.newLine();
+            }
+        }
+    }
+
+    public static SimulationRecording read(Path file) throws IOException {
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String header = in.readLine();
+            if (!HEADER.equals(header) && !HEADER_V1.equals(header)) {
+                throw new IOException("Keine MyChain-Aufzeichnung: " + file);
+            }
+            Map<String, String> values = readValues(in);
+            long seed = Long.parseLong(required(values, "seed"));
+            int tps = Integer.parseInt(required(values, "tps"));
+            int wallets = Integer.parseInt(required(values, "wallets"));
+            long trades = Long.parseLong(required(values, "trades"));
+            int difficulty = Integer.parseInt(required(values, "difficulty"));
+            String pricing = values.getOrDefault("pricing", LEGACY_PRICING);
+            String share = values.get("marginShare");
+            double marginShare = share != null ? Double.parseDouble(share) : LEGACY_MARGIN_SHARE;
+            int blocks = Integer.parseInt(required(values, "blocks"));
+
+            List<String> hashes = new ArrayList<>(blocks);
+            for (int i = 0; i < blocks; i++) {
+                String line = in.readLine();
+                if (line == null) throw new IOException("Aufzeichnung unvollständig: " + i + " von " + blocks + " Blöcken");
+                hashes.add(line.trim());
+            }
+            return new SimulationRecording(seed, tps, wallets, trades, difficulty, pricing, marginShare, hashes);
+        } catch (NumberFormatException e) {
+            throw new IOException("Ungültige Aufzeichnung: " + e.getMessage(), e);
+        }
+    }
+
+    // Liest schlüssel=wert-Zeilen bis einschließlich blocks=N (danach folgen die Hashes)
+    private static Map<String, String> readValues(BufferedReader in) throws IOException {
+        Map<String, String> values = new HashMap<>();
+        while (true) {
+            String line = in.readLine();
+            int eq = line != null ? line.indexOf('=') : -1;
+            if (eq <= 0) {
+                throw new IOException("Erwartet 'schlüssel=wert', gefunden: " + line);
+            }
+            String key = line.substring(0, eq).trim();
+            values.put(key, line.substring(eq + 1).trim());
+            if (key.equals("blocks")) return values;
+        }
+    }
+
+    private static String required(Map<String, String> values, String key) throws IOException {
+        String value = values.get(key);
+        if (value == null) {
+            throw new IOException("Aufzeichnung ohne '" + key + "=...'");
+        }
+        return value;
+    }
+}
@@ -0,0 +1,208 @@
+package org.fintech;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Scheduler für die Netzwerk-Simulation auf Basis von {@link ScheduledExecutorService}.
+ * Ein einzelner Timer-Thread übernimmt nur das Timing; die eigentlichen Aufgaben laufen auf
+ * virtuellen Threads, damit langsame Aufgaben (Mining, Balance-Updates) das Timing nicht stören.
+ *
+ * Jeder {@link Stream} ist in sich seriell (keine Überlappung), fängt Exceptions ab
+ * (eine fehlerhafte Ausführung beendet den Stream nicht) und führt eigene Raten-Metriken.
+ */
+public final class SimulationScheduler {
+
+    private static final long RATE_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final int MAX_LOGGED_ERRORS_PER_STREAM = 5;
+
+    private final ScheduledExecutorService timer;
+    private final ExecutorService workers;
+    private final List<Stream> streams = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean shutdown = new AtomicBoolean(false);
+
+    public SimulationScheduler(String name) {
+        ScheduledThreadPoolExecutor timerExecutor = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, name + "-timer");
+            t.setDaemon(true);
+            return t;
+        });
+        timerExecutor.setRemoveOnCancelPolicy(true);
+        this.timer = timerExecutor;
+        this.workers = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-worker-", 0).factory());
+    }
+
+    /**
+     * Startet einen Stream mit fester Rate. Ist die vorherige Ausführung beim nächsten Takt
+     * noch nicht fertig, wird der Takt übersprungen (gezählt in {@link Stream#getSkipped()}).
+     */
+    public Stream scheduleAtFixedRate(String name, long initialDelay, long period, TimeUnit unit, Runnable task) {
+        Stream stream = new Stream(name, task, null);
+        streams.add(stream);
+        stream.future = timer.scheduleAtFixedRate(stream::dispatchFixedRate, initialDelay, period, unit);
+        return stream;
+    }
+
+    /**
+     * Startet einen Stream mit variablem Abstand: Nach jeder Ausführung liefert {@code nextDelayNanos}
+     * den Abstand bis zur nächsten (z.B. zufällig innerhalb dynamischer Grenzen).
+     */
+    public Stream scheduleJittered(String name, long initialDelay, TimeUnit unit, LongSupplier nextDelayNanos, Runnable task) {
+        Stream stream = new Stream(name, task, nextDelayNanos);
+        streams.add(stream);
+        stream.scheduleNext(unit.toNanos(initialDelay));
+        return stream;
+    }
+
+    public List<Stream> getStreams() {
+        return new ArrayList<>(streams);
+    }
+
+    public boolean isShutdown() {
+        return shutdown.get();
+    }
+
+    /** Bricht alle Streams ab und beendet Timer und Worker. */
+    public void shutdown() {
+        if (!shutdown.compareAndSet(false, true)) return;
+        for (Stream s : streams) {
+            s.cancel();
+        }
+        timer.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    /** Ein geplanter, serieller Ablauf mit eigenen Metriken. */
+    public final class Stream {
+        private final String name;
+        private final Runnable task;
+        private final LongSupplier nextDelayNanos; // null = feste Rate
+        private final AtomicBoolean cancelled = new AtomicBoolean(false);
+        private final AtomicBoolean busy = new AtomicBoolean(false);
+        private volatile ScheduledFuture<?> future;
+
+        private final LongAdder executions = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder skipped = new LongAdder();
+        private final long startNanos = System.nanoTime();
+        private final AtomicLong windowStartNanos = new AtomicLong(startNanos);
+        private final AtomicLong windowCount = new AtomicLong();
+        private volatile double recentRate = 0.0;
+
+        private Stream(String name, Runnable task, LongSupplier nextDelayNanos) {
+            this.name = name;
+            this.task = task;
+            this.nextDelayNanos = nextDelayNanos;
+        }
+
+        private void dispatchFixedRate() {
+            if (cancelled.get()) return;
+            if (!busy.compareAndSet(false, true)) {
+                skipped.increment();
+                return;
+            }
+            submit(() -> {
+                try {
+                    runTask();
+                } finally {
+                    busy.set(false);
+                }
+            });
+        }
+
+        private void scheduleNext(long delayNanos) {
+            if (cancelled.get() || shutdown.get()) return;
+            try {
+                future = timer.schedule(() -> submit(this::runJitteredStep), Math.max(0, delayNanos), TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException e) {
+                // Scheduler wurde beendet
+            }
+        }
+
+        private void runJitteredStep() {
+            runTask();
+            long next;
+            try {
+                next = nextDelayNanos.getAsLong();
+            } catch (Exception e) {
+                recordError(e);
+                next = RATE_WINDOW_NANOS; // Fallback: eine Sekunde
+            }
+            scheduleNext(next);
+        }
+
+        private void submit(Runnable r) {
+            if (cancelled.get()) return;
+            try {
+                workers.execute(r);
+            } catch (RejectedExecutionException e) {
+                busy.set(false); // Scheduler wurde beendet
+            }
+        }
+
+        // 🔧 Exception-Isolation: Fehler werden gezählt, der Stream läuft weiter
+        private void runTask() {
+            if (cancelled.get()) return;
+            try {
+                task.run();
+                executions.increment();
+                recordRate();
+            } catch (Throwable t) {
+                recordError(t);
+            }
+        }
+
+        private void recordError(Throwable t) {
+            errors.increment();
+            if (errors.sum() <= MAX_LOGGED_ERRORS_PER_STREAM) {
+                System.err.printf("Fehler im Simulations-Stream '%s': %s%n", name, t);
+            }
+        }
+
+        private void recordRate() {
+            long now = System.nanoTime();
+            long count = windowCount.incrementAndGet();
+            long windowStart = windowStartNanos.get();
+            long elapsed = now - windowStart;
+            if (elapsed >= RATE_WINDOW_NANOS && windowStartNanos.compareAndSet(windowStart, now)) {
+                recentRate = count * 1e9 / elapsed;
+                windowCount.addAndGet(-count);
+            }
+        }
+
+        public void cancel() {
+            if (!cancelled.compareAndSet(false, true)) return;
+            ScheduledFuture<?> f = future;
+            if (f != null) f.cancel(false);
+            streams.remove(this);
+        }
+
+        public String getName() { return name; }
+        public boolean isCancelled() { return cancelled.get(); }
+        public long getExecutions() { return executions.sum(); }
+        public long getErrors() { return errors.sum(); }
+        public long getSkipped() { return skipped.sum(); }
+
+        /** Durchschnittliche Ausführungen pro Sekunde seit Start des Streams. */
+        public double getAverageRatePerSecond() {
+            double seconds = (System.nanoTime() - startNanos) / 1e9;
+            return seconds > 0 ? executions.sum() / seconds : 0.0;
+        }
+
+        /** Ausführungen pro Sekunde im zuletzt abgeschlossenen Messfenster (~1 s). */
+        public double getRecentRatePerSecond() {
+            return recentRate;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d Ausführungen (%.1f/s, zuletzt %.1f/s), %d Fehler, %d übersprungen",
+                    name, getExecutions(), getAverageRatePerSecond(), getRecentRatePerSecond(), getErrors(), getSkipped());
+        }
+    }
+}
@@ -44,7 +44,7 @@ public class StringUtil {
     public static String generateRandomPassword() {
         String chars = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
         StringBuilder sb = new StringBuilder(10);
-        java.util.Random random = new java.util.Random();
+        java.util.random.RandomGenerator random = SimulationContext.random("passwords");
         for (int i = 0; i < 10; i++) {
             sb.append(chars.charAt(random.nextInt(chars.length())));
         }
@@ -0,0 +1,179 @@
+package org.fintech;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.random.RandomGenerator;
+
+/**
+ * Stichproben-Index der handelnden User-Wallets (ohne Supply-Wallet), aus dem Delta-Feed gepflegt.
+ * Jede Wallet liegt in genau einer Gruppe:
+ * <ul>
+ *   <li>{@link Group#LONG}: hält eine Long-Position (&gt; 0 USD)</li>
+ *   <li>{@link Group#NEUTRAL}: keine Position, aber USD-Guthaben &gt; 0</li>
+ *   <li>{@link Group#IDLE}: weder Position noch USD (kann nicht handeln)</li>
+ * </ul>
+ * Jede Gruppe ist ein Array mit Positionstabelle (Index nach Wallet-ID): Einfügen, Entfernen
+ * (Swap mit dem letzten Element) und gleichverteiltes Ziehen kosten O(1), unabhängig von der Wallet-Anzahl.
+ */
+public final class TraderIndex implements Consumer<WalletDelta> {
+
+    public enum Group { LONG, NEUTRAL, IDLE }
+
+    private static final Group[] GROUPS = Group.values();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Bag[] bags = { new Bag(), new Bag(), new Bag() };
+    private byte[] groupById = new byte[1024]; // 0 = nicht erfasst, sonst Group.ordinal() + 1
+
+    /** Array + Positionstabelle; Reihenfolge ist beliebig, aber deterministisch. */
+    private static final class Bag {
+        private Wallet[] items = new Wallet[64];
+        private int[] positionById = new int[1024];
+        private int size = 0;
+
+        void add(Wallet w) {
+            int id = w.getUniqueId();
+            if (id >= positionById.length) {
+                positionById = Arrays.copyOf(positionById, Math.max(id + 1, positionById.length * 2));
+            }
+            if (size == items.length) {
+                items = Arrays.copyOf(items, items.length * 2);
+            }
+            items[size] = w;
+            positionById[id] = size++;
+        }
+
+        void remove(Wallet w) {
+            int pos = positionById[w.getUniqueId()];
+            Wallet last = items[--size];
+            items[pos] = last;
+            positionById[last.getUniqueId()] = pos;
+            items[size] = null;
+        }
+
+        void clear() {
+            Arrays.fill(items, 0, size, null);
+            size = 0;
+        }
+    }
+
+    @Override
+    public void accept(WalletDelta delta) {
+        lock.writeLock().lock();
+        try {
+            if (delta.isReset()) {
+                for (Bag bag : bags) bag.clear();
+                Arrays.fill(groupById, (byte) 0);
+            }
+            for (int i = 0; i < delta.size(); i++) {
+                Wallet w = delta.getWallet(i);
+                if (w == WalletManager.SUPPLY_WALLET) continue;
+                update(w, classify(delta.getLongPosition(i), delta.getUsdBalance(i)));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    static Group classify(double longPositionUsd, double usdBalance) {
+        if (longPositionUsd > 0.0) return Group.LONG;
+        return usdBalance > 0.0 ? Group.NEUTRAL : Group.IDLE;
+    }
+
+    // O(1): nur bei Gruppenwechsel umhängen
+    private void update(Wallet w, Group group) {
+        int id = w.getUniqueId();
+        if (id >= groupById.length) {
+            groupById = Arrays.copyOf(groupById, Math.max(id + 1, groupById.length * 2));
+        }
+        int current = groupById[id];
+        if (current == group.ordinal() + 1) return;
+        if (current != 0) {
+            bags[current - 1].remove(w);
+        }
+        bags[group.ordinal()].add(w);
+        groupById[id] = (byte) (group.ordinal() + 1);
+    }
+
+    public int size(Group group) {
+        lock.readLock().lock();
+        try {
+            return bags[group.ordinal()].size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Anzahl aller erfassten User-Wallets (alle Gruppen). */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return bags[0].size + bags[1].size + bags[2].size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Gruppe der Wallet laut letztem Delta (null, wenn nicht erfasst, z.B. Supply-Wallet). */
+    public Group groupOf(Wallet w) {
+        lock.readLock().lock();
+        try {
+            int id = w.getUniqueId();
+            int g = id < groupById.length ? groupById[id] : 0;
+            return g == 0 ? null : GROUPS[g - 1];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Gleichverteilt aus einer Gruppe ziehen, O(1). @return null, wenn die Gruppe leer ist. */
+    public Wallet sample(Group group, RandomGenerator random) {
+        lock.readLock().lock();
+        try {
+            Bag bag = bags[group.ordinal()];
+            return bag.size == 0 ? null : bag.items[random.nextInt(bag.size)];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Gleichverteilt über alle User-Wallets ziehen (wie eine Auswahl aus der vollen Liste), O(1). */
+    public Wallet sampleUniform(RandomGenerator random) {
+        lock.readLock().lock();
+        try {
+            int total = bags[0].size + bags[1].size + bags[2].size;
+            if (total == 0) return null;
+            int r = random.nextInt(total);
+            for (Bag bag : bags) {
+                if (r < bag.size) return bag.items[r];
+                r -= bag.size;
+            }
+            return null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gewichtete Auswahl: Gruppe mit Wahrscheinlichkeit proportional zu {@code weight · Größe},
+     * darin gleichverteilt, O(1). Gewicht 0 schließt eine Gruppe aus.
+     * @return null, wenn keine Gruppe mit positivem Gewicht Wallets enthält.
+     */
+    public Wallet sampleWeighted(RandomGenerator random, double longWeight, double neutralWeight, double idleWeight) {
+        lock.readLock().lock();
+        try {
+            double wLong = Math.max(0.0, longWeight) * bags[0].size;
+            double wNeutral = Math.max(0.0, neutralWeight) * bags[1].size;
+            double wIdle = Math.max(0.0, idleWeight) * bags[2].size;
+            double total = wLong + wNeutral + wIdle;
+            if (!(total > 0)) return null;
+            double r = random.nextDouble() * total;
+            Bag bag = r < wLong ? bags[0] : r < wLong + wNeutral ? bags[1] : bags[2];
+            if (bag.size == 0) return null; // nur durch Rundung am Rand möglich
+            return bag.items[random.nextInt(bag.size)];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
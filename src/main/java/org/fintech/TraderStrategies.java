@@ -0,0 +1,139 @@
+package org.fintech;
+
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * Mitgelieferte {@link TraderStrategy}-Implementierungen. Alle sind zustandslos und
+ * können daher von beliebig vielen Agenten gleichzeitig genutzt werden.
+ */
+public final class TraderStrategies {
+
+    private TraderStrategies() {}
+
+    /** Alle Standard-Strategien in fester Reihenfolge (für gemischte Agenten-Populationen). */
+    public static List<TraderStrategy> defaults() {
+        return List.of(new RandomStrategy(0.5), new MomentumStrategy(), new MeanReversionStrategy(),
+                new MarketMakerStrategy(), new WhaleStrategy());
+    }
+
+    /** Sucht eine Standard-Strategie über ihren Namen (Groß-/Kleinschreibung egal), sonst null. */
+    public static TraderStrategy byName(String name) {
+        for (TraderStrategy s : defaults()) {
+            if (s.getName().equalsIgnoreCase(name)) return s;
+        }
+        return null;
+    }
+
+    // Anteil in [min, max) vom Betrag
+    private static double portion(double amount, RandomGenerator random, double min, double max) {
+        return amount * (min + random.nextDouble() * (max - min));
+    }
+
+    /** Verhalten des bisherigen simulateTrade: neutral → kaufen mit Bias, Long → verkaufen mit 1 - Bias. */
+    public static final class RandomStrategy implements TraderStrategy {
+        private final double buyBias;
+
+        public RandomStrategy(double buyBias) {
+            this.buyBias = buyBias;
+        }
+
+        @Override
+        public String getName() { return "random"; }
+
+        @Override
+        public Decision decide(Wallet wallet, MarketView market, RandomGenerator random) {
+            double longUsd = wallet.getLongPositionUsd();
+            if (longUsd > 0.0) {
+                return random.nextDouble() < 1.0 - buyBias ? Decision.sell(portion(longUsd, random, 0.33, 1.0)) : null;
+            }
+            return random.nextDouble() < buyBias ? Decision.buy(portion(wallet.getUsdBalance(), random, 0.33, 1.0)) : null;
+        }
+    }
+
+    /** Folgt dem Trend: schneller Durchschnitt über dem langsamen → kaufen, darunter → verkaufen. */
+    public static final class MomentumStrategy implements TraderStrategy {
+        private static final double THRESHOLD = 0.002; // 0.2 % Abstand der Durchschnitte
+
+        @Override
+        public String getName() { return "momentum"; }
+
+        @Override
+        public Decision decide(Wallet wallet, MarketView market, RandomGenerator random) {
+            if (market.getSlowAverage() <= 0) return null;
+            double trend = market.getFastAverage() / market.getSlowAverage() - 1.0;
+            if (trend > THRESHOLD) {
+                return Decision.buy(portion(wallet.getUsdBalance(), random, 0.2, 0.5));
+            }
+            if (trend < -THRESHOLD && wallet.getLongPositionUsd() > 0) {
+                return Decision.sell(portion(wallet.getLongPositionUsd(), random, 0.5, 1.0));
+            }
+            return null;
+        }
+    }
+
+    /** Setzt auf Rückkehr zum Mittel: deutlich unter dem langsamen Durchschnitt kaufen, darüber verkaufen. */
+    public static final class MeanReversionStrategy implements TraderStrategy {
+        private static final double BAND = 0.01; // 1 % Abweichung
+
+        @Override
+        public String getName() { return "mean-reversion"; }
+
+        @Override
+        public Decision decide(Wallet wallet, MarketView market, RandomGenerator random) {
+            if (market.getSlowAverage() <= 0) return null;
+            double deviation = market.getPrice() / market.getSlowAverage() - 1.0;
+            if (deviation < -BAND) {
+                return Decision.buy(portion(wallet.getUsdBalance(), random, 0.1, 0.4));
+            }
+            if (deviation > BAND && wallet.getLongPositionUsd() > 0) {
+                return Decision.sell(portion(wallet.getLongPositionUsd(), random, 0.3, 0.8));
+            }
+            return null;
+        }
+    }
+
+    /** Häufige, kleine Trades in beide Richtungen: liefert Gegenfluss und hält die Position klein. */
+    public static final class MarketMakerStrategy implements TraderStrategy {
+        private static final double MAX_INVENTORY_SHARE = 0.1; // max. 10 % des Vermögens als Long
+
+        @Override
+        public String getName() { return "market-maker"; }
+
+        @Override
+        public long nextDecisionDelayMillis(RandomGenerator random) {
+            return 10 + random.nextInt(40);
+        }
+
+        @Override
+        public Decision decide(Wallet wallet, MarketView market, RandomGenerator random) {
+            double longUsd = wallet.getLongPositionUsd();
+            double netWorth = wallet.getUsdBalance() + longUsd;
+            boolean overInventory = longUsd > netWorth * MAX_INVENTORY_SHARE;
+            if (longUsd > 0 && (overInventory || random.nextBoolean())) {
+                return Decision.sell(portion(longUsd, random, 0.05, 0.2));
+            }
+            return Decision.buy(portion(wallet.getUsdBalance(), random, 0.01, 0.03));
+        }
+    }
+
+    /** Selten, aber groß: bewegt den Preis spürbar und testet große Blöcke/Preissprünge. */
+    public static final class WhaleStrategy implements TraderStrategy {
+        @Override
+        public String getName() { return "whale"; }
+
+        @Override
+        public long nextDecisionDelayMillis(RandomGenerator random) {
+            return 1000 + random.nextInt(4000);
+        }
+
+        @Override
+        public Decision decide(Wallet wallet, MarketView market, RandomGenerator random) {
+            double longUsd = wallet.getLongPositionUsd();
+            if (longUsd > 0 && random.nextDouble() < 0.5) {
+                return Decision.sell(portion(longUsd, random, 0.8, 1.0));
+            }
+            return Decision.buy(portion(wallet.getUsdBalance(), random, 0.5, 0.9));
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package org.fintech;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Handelsverhalten eines Agenten im {@link AgentRuntime}.
+ * Implementierungen müssen zustandslos oder thread-sicher sein: dieselbe Strategie-Instanz
+ * wird von vielen Agenten (virtuelle Threads) gleichzeitig verwendet.
+ */
+public interface TraderStrategy {
+
+    /** Name für Statistiken und Berichte. */
+    String getName();
+
+    /**
+     * Entscheidet über den nächsten Trade der Wallet.
+     * @param wallet Die Wallet des Agenten (Balances können bis zum nächsten Block veraltet sein).
+     * @param market Aktuelle Marktsicht (Preis und gleitende Durchschnitte).
+     * @param random Zufallsquelle des Agenten.
+     * @return Die Entscheidung oder null (halten).
+     */
+    Decision decide(Wallet wallet, MarketView market, RandomGenerator random);
+
+    /** Wartezeit bis zur nächsten Entscheidung in Millisekunden. */
+    default long nextDecisionDelayMillis(RandomGenerator random) {
+        return 50 + random.nextInt(200);
+    }
+
+    /** Kauf (Long eröffnen/erhöhen) oder Verkauf (Long reduzieren) über einen USD-Betrag. */
+    final class Decision {
+        private final TransactionKind kind;
+        private final double usdAmount;
+
+        private Decision(TransactionKind kind, double usdAmount) {
+            this.kind = kind;
+            this.usdAmount = usdAmount;
+        }
+
+        public static Decision buy(double usdAmount) {
+            return new Decision(TransactionKind.BUY_LONG, usdAmount);
+        }
+
+        public static Decision sell(double usdAmount) {
+            return new Decision(TransactionKind.SELL_LONG, usdAmount);
+        }
+
+        public TransactionKind getKind() { return kind; }
+        public double getUsdAmount() { return usdAmount; }
+        public boolean isBuy() { return kind == TransactionKind.BUY_LONG; }
+    }
+
+    /** Unveränderliche Marktsicht; wird vom Runtime nach jedem Batch neu veröffentlicht. */
+    final class MarketView {
+        private final double price;
+        private final double fastAverage;
+        private final double slowAverage;
+
+        public MarketView(double price, double fastAverage, double slowAverage) {
+            this.price = price;
+            this.fastAverage = fastAverage;
+            this.slowAverage = slowAverage;
+        }
+
+        public double getPrice() { return price; }
+        /** Schneller exponentieller Durchschnitt (reagiert auf die letzten Batches). */
+        public double getFastAverage() { return fastAverage; }
+        /** Langsamer exponentieller Durchschnitt (Trend-/Gleichgewichtsniveau). */
+        public double getSlowAverage() { return slowAverage; }
+    }
+}
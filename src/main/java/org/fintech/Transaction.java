@@ -11,12 +11,29 @@ public class Transaction {
     private final String txId;
     private final byte[] signature;
     private final double priceAtExecution; // NEU: Preis zum Zeitpunkt der Ausführung
+    private final TransactionKind kind; // NEU: Typisierte Art statt Nachrichten-Parsing
+    private final double usdValue;      // NEU: Expliziter USD-Wert (Kauf/Verkauf), 0.0 sonst
+
+    // 🔧 PERFORMANCE: Provider nur einmal registrieren (nicht bei jeder Signatur neu instanziieren)
+    static {
+        if (Security.getProvider("BC") == null) {
+            Security.addProvider(new org.bouncycastle.jce.provider.BouncyCastleProvider());
+        }
+    }
 
     // Normale Transaktion (mit Wallet)
     public Transaction(Wallet senderWallet, String recipient, double amount, String message, double priceAtExecution) {
+        this(senderWallet, recipient, amount, TransactionKind.TRANSFER, 0.0, message, priceAtExecution);
+    }
+
+    // Typisierte Transaktion (mit Wallet)
+    public Transaction(Wallet senderWallet, String recipient, double amount, TransactionKind kind, double usdValue,
+                       String message, double priceAtExecution) {
         this.sender = senderWallet.getAddress();
         this.recipient = recipient;
         this.amount = amount;
+        this.kind = kind;
+        this.usdValue = usdValue;
         this.message = message;
         this.priceAtExecution = priceAtExecution;
         this.txId = calculateHash();
@@ -25,9 +42,17 @@ public class Transaction {
 
     // Genesis-Transaktion (System)
     public Transaction(String sender, String recipient, double amount, String message, double priceAtExecution) {
+        this(sender, recipient, amount, TransactionKind.GENESIS, 0.0, message, priceAtExecution);
+    }
+
+    // Typisierte System-Transaktion (ohne Signatur)
+    public Transaction(String sender, String recipient, double amount, TransactionKind kind, double usdValue,
+                       String message, double priceAtExecution) {
         this.sender = sender != null ? sender : "system";
         this.recipient = recipient;
         this.amount = amount;
+        this.kind = kind;
+        this.usdValue = usdValue;
         this.message = message;
         this.priceAtExecution = priceAtExecution;
         this.txId = calculateHash();
@@ -36,11 +61,9 @@ public class Transaction {
 
     private byte[] sign(PrivateKey key) {
         try {
-            Security.addProvider(new org.bouncycastle.jce.provider.BouncyCastleProvider());
             Signature sig = Signature.getInstance("ECDSA", "BC");
             sig.initSign(key);
-            String data = sender + recipient + amount + message + txId + priceAtExecution; // Preis in Signaturdaten
-            sig.update(data.getBytes());
+            sig.update(signedData().getBytes()); // Preis, Art und USD-Wert in Signaturdaten
             return sig.sign();
         } catch (Exception e) {
             throw new RuntimeException(e);
@@ -51,19 +74,21 @@ public class Transaction {
         if (sender.equals("system")) return true;
 
         try {
-            Security.addProvider(new org.bouncycastle.jce.provider.BouncyCastleProvider());
             Signature sig = Signature.getInstance("ECDSA", "BC");
             sig.initVerify(key);
-            String data = sender + recipient + amount + message + txId + priceAtExecution; // Preis in Verifizierungsdaten
-            sig.update(data.getBytes());
+            sig.update(signedData().getBytes()); // Preis, Art und USD-Wert in Verifizierungsdaten
             return sig.verify(signature);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
 
+    private String signedData() {
+        return sender + recipient + amount + kind + usdValue + message + txId + priceAtExecution;
+    }
+
     private String calculateHash() {
-        return StringUtil.applySha256(sender + recipient + amount + message + priceAtExecution + System.nanoTime()); // Preis HINZUGEFÜGT
+        return StringUtil.applySha256(sender + recipient + amount + kind + usdValue + message + priceAtExecution + SimulationContext.nextTransactionNonce()); // Art + USD-Wert HINZUGEFÜGT
     }
 
     // GETTER
@@ -73,4 +98,13 @@ public class Transaction {
     public String getMessage() { return message; }
     public String getTxId() { return txId; }
     public double getPriceAtExecution() { return priceAtExecution; }
+
+    // Alte (z.B. per Gson geladene) Transaktionen haben kein Kind-Feld → Legacy-Fallback über die Nachricht
+    public TransactionKind getKind() {
+        return kind != null ? kind : TransactionKind.fromLegacyMessage(sender, recipient, message);
+    }
+
+    public double getUsdValue() {
+        return kind != null ? usdValue : TransactionKind.parseLegacyUsdValue(message);
+    }
 }
\ No newline at end of file
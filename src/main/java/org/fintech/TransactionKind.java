@@ -0,0 +1,70 @@
+package org.fintech;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Typisierte Art einer Transaktion.
+ * Der Replay in {@link WalletManager} verzweigt nur noch über diesen Wert,
+ * statt Nachrichtentexte wie "Kauf (LONG) für 12.34 USD" zu parsen.
+ */
+public enum TransactionKind {
+    GENESIS,    // Ursprung des Coin-Supplys (Sender "system")
+    GRANT,      // Initialer SC-Grant bei Wallet-Erstellung
+    BUY_LONG,   // Supply -> User, User zahlt usdValue
+    SELL_LONG,  // User -> Exchange, User erhält usdValue
+    TRANSFER,   // Normale SC-Überweisung ohne USD-Effekt
+    MARGIN_OPEN_LONG,   // User -> Exchange: hinterlegt usdValue als Margin für amount SC Long (kein SC-Transfer)
+    MARGIN_OPEN_SHORT,  // User -> Exchange: hinterlegt usdValue als Margin für amount SC Short (kein SC-Transfer)
+    MARGIN_CLOSE,       // User -> Exchange: schließt die Position, User erhält usdValue (Margin ± PnL)
+    LIQUIDATION;        // Zwangsschließung unter Maintenance-Margin, User erhält usdValue (Rest)
+
+    /** Margin-Arten verrechnen nur USD; SC-Balances bleiben unberührt. */
+    public boolean isMargin() {
+        return this == MARGIN_OPEN_LONG || this == MARGIN_OPEN_SHORT || this == MARGIN_CLOSE || this == LIQUIDATION;
+    }
+
+    // Nur noch für Transaktionen ohne Kind-Feld (z.B. ältere JSON-Blöcke)
+    private static final Pattern LEGACY_USD_VALUE_PATTERN = Pattern.compile("([\\d.,]+)\\sUSD");
+
+    /**
+     * Leitet die Art einer alten Transaktion aus ihrer Nachricht ab (Legacy-Fallback).
+     * @param sender Absender-Adresse der Transaktion.
+     * @param recipient Empfänger-Adresse der Transaktion.
+     * @param message Die Nachricht der Transaktion.
+     * @return Die abgeleitete Transaktionsart.
+     */
+    static TransactionKind fromLegacyMessage(String sender, String recipient, String message) {
+        if (sender == null || sender.isEmpty() || "system".equals(sender)) return GENESIS;
+
+        String lower = message != null ? message.toLowerCase() : "";
+        // "verkauf (long)" enthält "kauf (long)" – daher zuerst prüfen
+        if (lower.contains("verkauf (long)") && NetworkSimulator.EXCHANGE_ADDRESS.equals(recipient)) return SELL_LONG;
+        if (lower.contains("kauf (long)") && sender.equals(WalletManager.SUPPLY_WALLET.getAddress())) return BUY_LONG;
+        if (lower.contains("initial sc grant")) return GRANT;
+        return TRANSFER;
+    }
+
+    /**
+     * Liest den USD-Wert einer alten Transaktion aus ihrer Nachricht (Legacy-Fallback).
+     * @param message Die Nachricht der Transaktion.
+     * @return Der letzte gefundene USD-Betrag oder 0.0.
+     */
+    static double parseLegacyUsdValue(String message) {
+        if (message != null && message.contains("USD")) {
+            try {
+                Matcher m = LEGACY_USD_VALUE_PATTERN.matcher(message);
+                String lastMatch = null;
+                while (m.find()) {
+                    lastMatch = m.group(1);
+                }
+                if (lastMatch != null) {
+                    return Double.parseDouble(lastMatch.replace(",", "."));
+                }
+            } catch (Exception e) {
+                System.err.println("Fehler beim Parsen des USD-Werts aus Nachricht: " + message);
+            }
+        }
+        return 0.0;
+    }
+}
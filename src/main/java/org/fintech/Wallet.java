@@ -1,8 +1,6 @@
 package org.fintech;
 
-import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import java.security.*;
-import java.security.spec.ECGenParameterSpec;
 import java.security.spec.PKCS8EncodedKeySpec;
 import java.security.spec.X509EncodedKeySpec;
 import java.util.ArrayList;
@@ -31,16 +29,33 @@ public class Wallet {
     // 🌟 NEUE FELDER FÜR POSITIONSVERFOLGUNG
     private double longPositionUsd = 0.0;
     private double shortPositionUsd = 0.0;
+    // Gehebelter Long (Positionswert bei Eröffnung) und hinterlegte Margin, siehe MarginEngine
+    private double leveragedLongUsd = 0.0;
+    private double marginUsd = 0.0;
 
     // 🌟 NEUE FELDER FÜR ALLE TRANSAKTIONEN (wird in WalletManager.recalculateAllBalances gefüllt)
     private transient List<Transaction> transactionHistory = new ArrayList<>();
+    // 🔧 Laufende Zähler der Historie (beim Verbuchen gepflegt, Auswertungen ohne Durchlaufen der Historie)
+    private transient int transactionCount = 0;
+    private transient int sentCount = 0;
+    private transient int receivedCount = 0;
+    private transient double scSent = 0.0;
+    private transient double scReceived = 0.0;
 
 
     // 🌟 NEU: Hauptkonstruktor akzeptiert initialUsdBalance
     public Wallet(String password, double startingUsd) {
+        this(password, startingUsd, KeyMaterialPool.take());
+    }
+
+    // 🔧 PERFORMANCE: Übernimmt vorab erzeugtes Schlüsselmaterial (siehe KeyMaterialPool)
+    public Wallet(String password, double startingUsd, KeyMaterialPool.KeyMaterial keys) {
         this.uniqueId = WalletManager.getAndIncrementNextId();
-        generateKeyPair();
-        this.address = generateAddress(publicKey);
+        this.privateKey = keys.getPrivateKey();
+        this.publicKey = keys.getPublicKey();
+        this.privateKeyB64 = keys.getPrivateKeyB64();
+        this.publicKeyB64 = keys.getPublicKeyB64();
+        this.address = keys.getAddress();
         this.passwordHash = StringUtil.applySha256(password);
         this.clearPassword = password;
 
@@ -106,47 +121,6 @@ public class Wallet {
         }
     }
 
-    private void generateKeyPair() {
-        try {
-            Security.addProvider(new BouncyCastleProvider());
-            KeyPairGenerator gen = KeyPairGenerator.getInstance("ECDSA", "BC");
-            ECGenParameterSpec spec = new ECGenParameterSpec("secp256k1");
-            gen.initialize(spec, new SecureRandom());
-            KeyPair pair = gen.generateKeyPair();
-            this.privateKey = pair.getPrivate();
-            this.publicKey = pair.getPublic();
-
-            this.privateKeyB64 = Base64.getEncoder().encodeToString(privateKey.getEncoded());
-            this.publicKeyB64 = Base64.getEncoder().encodeToString(publicKey.getEncoded());
-        } catch (Exception e) {
-            throw new RuntimeException("Key-Generierung fehlgeschlagen", e);
-        }
-    }
-
-    private String generateAddress(PublicKey publicKey) {
-        try {
-            byte[] pubBytes = publicKey.getEncoded();
-            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
-            byte[] shaHash = sha256.digest(pubBytes);
-            MessageDigest ripemd160 = MessageDigest.getInstance("RIPEMD160", "BC");
-            byte[] ripeHash = ripemd160.digest(shaHash);
-
-            byte[] versioned = new byte[ripeHash.length + 1];
-            versioned[0] = 0x00;
-            System.arraycopy(ripeHash, 0, versioned, 1, ripeHash.length);
-
-            MessageDigest doubleSha = MessageDigest.getInstance("SHA-256");
-            byte[] checksum = doubleSha.digest(doubleSha.digest(versioned));
-            byte[] finalBytes = new byte[versioned.length + 4];
-            System.arraycopy(versioned, 0, finalBytes, 0, versioned.length);
-            System.arraycopy(checksum, 0, finalBytes, versioned.length, 4);
-
-            return "1" + StringUtil.base58Encode(finalBytes);
-        } catch (Exception e) {
-            return "1Error" + System.currentTimeMillis();
-        }
-    }
-
     // GETTER
     public PrivateKey getPrivateKey() { return privateKey; }
     public PublicKey getPublicKey() { return publicKey; }
@@ -161,6 +135,12 @@ public class Wallet {
     // GETTER/SETTER für Positionsverfolgung 🌟 NEU
     public double getLongPositionUsd() { return longPositionUsd; }
     public void setLongPositionUsd(double longPositionUsd) { this.longPositionUsd = longPositionUsd; }
+    public double getShortPositionUsd() { return shortPositionUsd; }
+    public void setShortPositionUsd(double shortPositionUsd) { this.shortPositionUsd = shortPositionUsd; }
+    public double getLeveragedLongUsd() { return leveragedLongUsd; }
+    public void setLeveragedLongUsd(double leveragedLongUsd) { this.leveragedLongUsd = leveragedLongUsd; }
+    public double getMarginUsd() { return marginUsd; }
+    public void setMarginUsd(double marginUsd) { this.marginUsd = marginUsd; }
 
     // GETTER/SETTER für Transaktionshistorie 🌟 NEU
     public List<Transaction> getTransactionHistory() {
@@ -173,6 +153,41 @@ public class Wallet {
         this.transactionHistory = history;
     }
 
+    /**
+     * Hängt eine verbuchte Transaktion an die Historie an und pflegt die Zähler.
+     * Nur unter dem Write-Lock des WalletManagers aufrufen.
+     */
+    void recordTransaction(Transaction tx) {
+        getTransactionHistory().add(tx);
+        transactionCount++;
+        boolean movesSc = !tx.getKind().isMargin(); // Margin-Buchungen bewegen nur USD
+        if (address.equals(tx.getSender())) {
+            sentCount++;
+            if (movesSc) scSent += tx.getAmount();
+        }
+        if (address.equals(tx.getRecipient())) {
+            receivedCount++;
+            if (movesSc) scReceived += tx.getAmount();
+        }
+    }
+
+    /** Leert Historie und Zähler (vor einer kompletten Neuberechnung). */
+    void clearTransactionHistory() {
+        this.transactionHistory = new ArrayList<>();
+        transactionCount = 0;
+        sentCount = 0;
+        receivedCount = 0;
+        scSent = 0.0;
+        scReceived = 0.0;
+    }
+
+    /** Anzahl der verbuchten Transaktionen (aus den Zählern). */
+    public int getTransactionCount() { return transactionCount; }
+    public int getSentCount() { return sentCount; }
+    public int getReceivedCount() { return receivedCount; }
+    public double getScSent() { return scSent; }
+    public double getScReceived() { return scReceived; }
+
     // BALANCE (SC)
     public void credit(double amount) { this.balance += amount; }
     public void debit(double amount) { this.balance -= amount; }
@@ -193,12 +208,18 @@ public class Wallet {
     }
 
     public Transaction createTransaction(String recipient, double amount, String message, double priceAtExecution) {
-        boolean isShortSaleOrCover = recipient.equals(MyChainGUI.EXCHANGE_ADDRESS) || message.toLowerCase().contains("short");
+        return createTransaction(recipient, amount, TransactionKind.TRANSFER, 0.0, message, priceAtExecution);
+    }
+
+    // Typisierte Variante: Art und USD-Wert werden explizit in der Transaktion gespeichert (und signiert)
+    public Transaction createTransaction(String recipient, double amount, TransactionKind kind, double usdValue,
+                                         String message, double priceAtExecution) {
+        boolean isShortSaleOrCover = recipient.equals(NetworkSimulator.EXCHANGE_ADDRESS) || message.toLowerCase().contains("short");
         if (balance < amount && !isShortSaleOrCover) {
             System.err.println("WARNUNG: Wallet " + address + " versucht, mehr SC auszugeben als vorhanden.");
             return null;
         }
-        return new Transaction(this, recipient, amount, message, priceAtExecution);
+        return new Transaction(this, recipient, amount, kind, usdValue, message, priceAtExecution);
     }
 
     // ====================================================================
@@ -216,9 +237,10 @@ public class Wallet {
 
     /**
      * Berechnet das Nettovermögen (Net Worth) dieser Wallet zum aktuellen Marktpreis.
-     * Net Worth = Aktueller SC-Wert + Aktuelle USD-Balance.
+     * Net Worth = Aktueller SC-Wert + Aktuelle USD-Balance + hinterlegte Margin.
      * (Long/Short-Positionen werden hier nicht als separates Asset betrachtet,
-     * da die SC-Balance bereits den SC-Wert enthält und die Positionen nur die Kostenbasis/Sicherheit sind).
+     * da die SC-Balance bereits den SC-Wert enthält und die Positionen nur die Kostenbasis/Sicherheit sind;
+     * Margin zählt zum Einstand, der PnL erst bei Schließung.)
      * @param currentCoinPrice Der aktuelle Preis von 1 SC in USD.
      * @return Das Gesamte Nettovermögen.
      */
@@ -226,8 +248,8 @@ public class Wallet {
         // SC-Bestände zum aktuellen Preis bewerten (Long-Asset)
         double scMarketValue = getMarketValueScUsd(currentCoinPrice);
 
-        // Füge die USD-Balance hinzu (Fiat-Asset)
-        return scMarketValue + this.usdBalance;
+        // Füge die USD-Balance und die hinterlegte Margin hinzu (Fiat-Asset)
+        return scMarketValue + this.usdBalance + this.marginUsd;
     }
 
     /**
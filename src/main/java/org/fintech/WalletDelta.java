@@ -0,0 +1,118 @@
+package org.fintech;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+/**
+ * Kompakter Änderungsdatensatz einer festgeschriebenen Änderung (z.B. eines Blocks).
+ * Enthält nur die berührten Wallets mit ihren alten und neuen Werten als primitive Arrays,
+ * damit Abonnenten in O(berührte Wallets) statt O(alle Wallets) aktualisieren können.
+ *
+ * Bei {@link #isReset()} wurde die Wallet-Liste neu aufgebaut: Abonnenten verwerfen ihren
+ * Zustand und übernehmen die enthaltenen Wallets (alte Werte sind dann bedeutungslos).
+ */
+public final class WalletDelta {
+
+    private final long version;
+    private final boolean reset;
+    private final int count;
+    private final Wallet[] wallets;
+    private final double[] prevScBalances;
+    private final double[] prevUsdBalances;
+    private final double[] prevLongPositions;
+    private final double[] scBalances;
+    private final double[] usdBalances;
+    private final double[] longPositions;
+
+    WalletDelta(long version, boolean reset, int count, Wallet[] wallets,
+                double[] prevScBalances, double[] prevUsdBalances, double[] prevLongPositions,
+                double[] scBalances, double[] usdBalances, double[] longPositions) {
+        this.version = version;
+        this.reset = reset;
+        this.count = count;
+        this.wallets = wallets;
+        this.prevScBalances = prevScBalances;
+        this.prevUsdBalances = prevUsdBalances;
+        this.prevLongPositions = prevLongPositions;
+        this.scBalances = scBalances;
+        this.usdBalances = usdBalances;
+        this.longPositions = longPositions;
+    }
+
+    /** Version des {@link WalletSnapshot}, der mit diesem Delta veröffentlicht wurde. */
+    public long getVersion() { return version; }
+    public boolean isReset() { return reset; }
+    public int size() { return count; }
+
+    public Wallet getWallet(int i) { return wallets[i]; }
+    public int getWalletId(int i) { return wallets[i].getUniqueId(); }
+
+    public double getPrevScBalance(int i) { return prevScBalances[i]; }
+    public double getPrevUsdBalance(int i) { return prevUsdBalances[i]; }
+    public double getPrevLongPosition(int i) { return prevLongPositions[i]; }
+
+    public double getScBalance(int i) { return scBalances[i]; }
+    public double getUsdBalance(int i) { return usdBalances[i]; }
+    public double getLongPosition(int i) { return longPositions[i]; }
+
+    /**
+     * Sammelt berührte Wallets während eines Schreibvorgangs (nur unter dem Write-Lock des
+     * WalletManagers verwendet). Die alten Werte werden beim ersten Berühren festgehalten.
+     */
+    static final class Builder {
+        private final IdentityHashMap<Wallet, Boolean> touched = new IdentityHashMap<>();
+        private Wallet[] wallets = new Wallet[8];
+        private double[] prevSc = new double[8];
+        private double[] prevUsd = new double[8];
+        private double[] prevLong = new double[8];
+        private int count = 0;
+        private boolean reset = false;
+
+        void touch(Wallet w) {
+            if (w == null || touched.put(w, Boolean.TRUE) != null) return;
+            if (count == wallets.length) {
+                int newLength = wallets.length * 2;
+                wallets = Arrays.copyOf(wallets, newLength);
+                prevSc = Arrays.copyOf(prevSc, newLength);
+                prevUsd = Arrays.copyOf(prevUsd, newLength);
+                prevLong = Arrays.copyOf(prevLong, newLength);
+            }
+            wallets[count] = w;
+            prevSc[count] = w.getBalance();
+            prevUsd[count] = w.getUsdBalance();
+            prevLong[count] = w.getLongPositionUsd();
+            count++;
+        }
+
+        void markReset() { reset = true; }
+
+        boolean isEmpty() { return count == 0 && !reset; }
+
+        // Liest die neuen Werte und setzt den Builder zurück
+        WalletDelta build(long version) {
+            double[] sc = new double[count];
+            double[] usd = new double[count];
+            double[] lng = new double[count];
+            for (int i = 0; i < count; i++) {
+                sc[i] = wallets[i].getBalance();
+                usd[i] = wallets[i].getUsdBalance();
+                lng[i] = wallets[i].getLongPositionUsd();
+            }
+            WalletDelta delta = new WalletDelta(version, reset, count,
+                    Arrays.copyOf(wallets, count),
+                    Arrays.copyOf(prevSc, count),
+                    Arrays.copyOf(prevUsd, count),
+                    Arrays.copyOf(prevLong, count),
+                    sc, usd, lng);
+            clear();
+            return delta;
+        }
+
+        private void clear() {
+            touched.clear();
+            Arrays.fill(wallets, 0, count, null);
+            count = 0;
+            reset = false;
+        }
+    }
+}
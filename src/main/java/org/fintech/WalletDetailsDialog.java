@@ -1,5 +1,6 @@
 package org.fintech;
 
+import javafx.collections.FXCollections;
 import javafx.geometry.Insets;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
@@ -12,6 +13,38 @@ import java.util.*;
 
 public class WalletDetailsDialog {
 
+    // 🔧 Historie wird seitenweise beim Scrollen geladen; nur die zuletzt benutzten Seiten bleiben im Speicher
+    private static final int PAGE_SIZE = 200;
+    private static final int CACHED_PAGES = 16;
+
+    // Seiten-Cache über WalletManager.getTransactionPage, bezogen auf den Stand beim Öffnen
+    private static final class HistoryPages {
+        private final Wallet wallet;
+        private final int historySize;
+        private final Map<Integer, List<Transaction>> pages = new LinkedHashMap<>(CACHED_PAGES, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<Transaction>> eldest) {
+                return size() > CACHED_PAGES;
+            }
+        };
+
+        HistoryPages(Wallet wallet, int historySize) {
+            this.wallet = wallet;
+            this.historySize = historySize;
+        }
+
+        Transaction get(int position) {
+            int pageIndex = position / PAGE_SIZE;
+            List<Transaction> page = pages.get(pageIndex);
+            if (page == null) {
+                page = WalletManager.getTransactionPage(wallet, historySize, pageIndex * PAGE_SIZE, PAGE_SIZE);
+                pages.put(pageIndex, page);
+            }
+            int i = position % PAGE_SIZE;
+            return i < page.size() ? page.get(i) : null;
+        }
+    }
+
     public static void show(Wallet w) {
         Stage detailStage = new Stage();
         detailStage.setTitle("Wallet-Details: " + w.getAddress().substring(0, 16) + "...");
@@ -27,7 +60,8 @@ public class WalletDetailsDialog {
         addDetailRow(grid, row++, "Passwort (Klartext):", w.getClearPassword());
         addDetailRow(grid, row++, "Passwort (SHA-256):", w.getPasswordHash());
         addDetailRow(grid, row++, "Öffentlicher Schlüssel:", Base64.getEncoder().encodeToString(w.getPublicKey().getEncoded()));
-        addDetailRow(grid, row++, "Gesamte Transaktionen:", String.valueOf(w.getTransactionHistory().size()));
+        addDetailRow(grid, row++, "Gesamte Transaktionen:", String.format("%,d (%,d gesendet, %,d empfangen)",
+                w.getTransactionCount(), w.getSentCount(), w.getReceivedCount()));
 
         addDetailRow(grid, row++, "—".repeat(25), "");
 
@@ -57,31 +91,34 @@ public class WalletDetailsDialog {
                 String.format("%s%,.3f SC", scDelta >= 0 ? "+" : "", scDelta), scProfitColor);
         addStyledDetailRow(grid, row++, "USD Delta (Investition):",
                 String.format("%s%,.2f USD", usdDelta >= 0 ? "+" : "", usdDelta), usdProfitColor);
-
-        // Transaktionshistorie
-        VBox txHistoryBox = new VBox(5);
-        txHistoryBox.getChildren().add(new Label("Transaktionshistorie:"));
-
-        List<Transaction> txs = new ArrayList<>(w.getTransactionHistory());
-        Collections.reverse(txs); // Neueste Transaktion zuerst
-
-        for (Transaction tx : txs) {
-            int blockIndex = -1; // Hier müsste blockchain.findBlockIndexByTransaction(tx) implementiert werden
-
-            String txEntry = String.format(
-                    "Block #%s | TxID: %s... | Preis: %.4f USD | %s -> %s | %.3f SC | %s",
-                    blockIndex >= 0 ? String.valueOf(blockIndex) : "?",
-                    tx.getTxId().substring(0, 8),
-                    tx.getPriceAtExecution(),
-                    tx.getSender().length() > 10 ? tx.getSender().substring(0, 10) + "..." : tx.getSender(),
-                    tx.getRecipient().length() > 10 ? tx.getRecipient().substring(0, 10) + "..." : tx.getRecipient(),
-                    tx.getAmount(),
-                    tx.getMessage()
-            );
-            Label txLabel = new Label(txEntry);
-            txLabel.setStyle("-fx-font-family: 'Consolas'; -fx-font-size: 10;");
-            txHistoryBox.getChildren().add(txLabel);
-        }
+        addDetailRow(grid, row++, "SC empfangen / gesendet:",
+                String.format("%,.3f SC / %,.3f SC", w.getScReceived(), w.getScSent()));
+
+        // Transaktionshistorie: virtuelle Liste von Positionen (neueste zuerst), Zeilen werden erst beim Anzeigen geladen
+        int historySize = WalletManager.getTransactionHistorySize(w);
+        HistoryPages pages = new HistoryPages(w, historySize);
+        ListView<Integer> txList = new ListView<>(FXCollections.observableList(new AbstractList<Integer>() {
+            @Override
+            public Integer get(int index) { return index; }
+
+            @Override
+            public int size() { return historySize; }
+        }));
+        txList.setFixedCellSize(18);
+        txList.setPrefSize(900, 300);
+        txList.setCellFactory(list -> new ListCell<>() {
+            @Override
+            protected void updateItem(Integer position, boolean empty) {
+                super.updateItem(position, empty);
+                Transaction tx = empty || position == null ? null : pages.get(position);
+                setText(tx == null ? null : formatTransaction(tx));
+            }
+        });
+        txList.setStyle("-fx-font-family: 'Consolas'; -fx-font-size: 10;");
+
+        VBox txHistoryBox = new VBox(5,
+                new Label(String.format("Transaktionshistorie (%,d Einträge, neueste zuerst):", historySize)),
+                txList);
 
         VBox root = new VBox(10, grid, new Separator(), txHistoryBox);
         root.setPadding(new Insets(10));
@@ -94,6 +131,21 @@ public class WalletDetailsDialog {
         detailStage.show();
     }
 
+    private static String formatTransaction(Transaction tx) {
+        int blockIndex = -1; // Hier müsste blockchain.findBlockIndexByTransaction(tx) implementiert werden
+
+        return String.format(
+                "Block #%s | TxID: %s... | Preis: %.4f USD | %s -> %s | %.3f SC | %s",
+                blockIndex >= 0 ? String.valueOf(blockIndex) : "?",
+                tx.getTxId().substring(0, 8),
+                tx.getPriceAtExecution(),
+                tx.getSender().length() > 10 ? tx.getSender().substring(0, 10) + "..." : tx.getSender(),
+                tx.getRecipient().length() > 10 ? tx.getRecipient().substring(0, 10) + "..." : tx.getRecipient(),
+                tx.getAmount(),
+                tx.getMessage()
+        );
+    }
+
     private static void addDetailRow(GridPane grid, int row, String label, String value) {
         Label l = new Label(label);
         l.setStyle("-fx-font-weight: bold;");
@@ -0,0 +1,207 @@
+package org.fintech;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Inkrementell gepflegte Ranglisten über alle Wallets.
+ * Wird über den Delta-Feed des {@link WalletManager} aktualisiert: pro Commit nur die
+ * berührten Wallets, je O(log n). Zwei sortierte Indizes (SC-Balance, USD-Balance) erlauben
+ * Top-K-Abfragen ohne Sortieren; Top-K nach Net Worth (preis * sc + usd) wird für einen
+ * beliebigen Preis per Threshold-Algorithmus über beide Indizes beantwortet, ohne alle
+ * Wallets zu durchlaufen.
+ */
+public final class WalletLeaderboard implements Consumer<WalletDelta> {
+
+    private static final class Entry {
+        final Wallet wallet;
+        final int id;
+        double sc;
+        double usd;
+
+        Entry(Wallet wallet) {
+            this.wallet = wallet;
+            this.id = wallet.getUniqueId();
+        }
+    }
+
+    // Absteigend nach Wert, bei Gleichstand aufsteigend nach ID (eindeutige Ordnung für TreeSet)
+    private static final Comparator<Entry> BY_SC_DESC = (a, b) -> {
+        int c = Double.compare(b.sc, a.sc);
+        return c != 0 ? c : Integer.compare(a.id, b.id);
+    };
+    private static final Comparator<Entry> BY_USD_DESC = (a, b) -> {
+        int c = Double.compare(b.usd, a.usd);
+        return c != 0 ? c : Integer.compare(a.id, b.id);
+    };
+
+    private final Map<Wallet, Entry> entries = new IdentityHashMap<>();
+    private final TreeSet<Entry> bySc = new TreeSet<>(BY_SC_DESC);
+    private final TreeSet<Entry> byUsd = new TreeSet<>(BY_USD_DESC);
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Override
+    public void accept(WalletDelta delta) {
+        lock.writeLock().lock();
+        try {
+            if (delta.isReset()) {
+                entries.clear();
+                bySc.clear();
+                byUsd.clear();
+            }
+            for (int i = 0; i < delta.size(); i++) {
+                update(delta.getWallet(i), delta.getScBalance(i), delta.getUsdBalance(i));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // O(log n): alten Eintrag entfernen, Werte setzen, neu einsortieren
+    private void update(Wallet w, double sc, double usd) {
+        Entry e = entries.get(w);
+        if (e == null) {
+            e = new Entry(w);
+            entries.put(w, e);
+        } else {
+            if (e.sc == sc && e.usd == usd) return;
+            bySc.remove(e);
+            byUsd.remove(e);
+        }
+        e.sc = sc;
+        e.usd = usd;
+        bySc.add(e);
+        byUsd.add(e);
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Top-K User-Wallets (ohne Supply-Wallet) nach SC-Balance, absteigend. */
+    public List<Wallet> topByScBalance(int k) {
+        return top(bySc, k);
+    }
+
+    /** Top-K User-Wallets (ohne Supply-Wallet) nach USD-Balance, absteigend. */
+    public List<Wallet> topByUsdBalance(int k) {
+        return top(byUsd, k);
+    }
+
+    /** Alle Wallets (inkl. Supply) nach SC-Balance absteigend – O(n) Iteration, kein Sortieren. */
+    public List<Wallet> allByScBalance() {
+        return all(bySc);
+    }
+
+    /** Alle Wallets (inkl. Supply) nach USD-Balance absteigend – O(n) Iteration, kein Sortieren. */
+    public List<Wallet> allByUsdBalance() {
+        return all(byUsd);
+    }
+
+    private List<Wallet> all(TreeSet<Entry> index) {
+        lock.readLock().lock();
+        try {
+            List<Wallet> result = new ArrayList<>(index.size());
+            for (Entry e : index) {
+                result.add(e.wallet);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Reichste User-Wallet nach SC-Balance (oder null). */
+    public Wallet richestByScBalance() {
+        List<Wallet> top = topByScBalance(1);
+        return top.isEmpty() ? null : top.get(0);
+    }
+
+    private List<Wallet> top(TreeSet<Entry> index, int k) {
+        lock.readLock().lock();
+        try {
+            List<Wallet> result = new ArrayList<>(Math.min(k, entries.size()));
+            for (Entry e : index) {
+                if (result.size() >= k) break;
+                if (isSupply(e)) continue;
+                result.add(e.wallet);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Top-K User-Wallets nach Net Worth (preis * SC + USD) zum angegebenen Preis, absteigend.
+     * Threshold-Algorithmus: Beide Indizes werden parallel von oben gelesen; sobald die K-t beste
+     * gefundene Wallet mindestens so viel wert ist wie die bestmögliche noch ungesehene
+     * (preis * aktuelles SC + aktuelles USD der beiden Cursor), ist das Ergebnis exakt.
+     * @param k Anzahl der gewünschten Wallets.
+     * @param price Aktueller SC-Preis (>= 0).
+     */
+    public List<Wallet> topByNetWorth(int k, double price) {
+        if (k <= 0) return Collections.emptyList();
+        lock.readLock().lock();
+        try {
+            // Min-Heap der bisher besten K (kleinster Net Worth oben)
+            PriorityQueue<Entry> best = new PriorityQueue<>(k + 1,
+                    Comparator.comparingDouble((Entry e) -> netWorth(e, price)).thenComparing(e -> -e.id));
+            Set<Entry> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+            Iterator<Entry> scCursor = bySc.iterator();
+            Iterator<Entry> usdCursor = byUsd.iterator();
+            double lastSc = Double.NaN;
+            double lastUsd = Double.NaN;
+
+            while (scCursor.hasNext() || usdCursor.hasNext()) {
+                if (scCursor.hasNext()) {
+                    Entry e = scCursor.next();
+                    lastSc = e.sc;
+                    offer(best, seen, e, k, price);
+                }
+                if (usdCursor.hasNext()) {
+                    Entry e = usdCursor.next();
+                    lastUsd = e.usd;
+                    offer(best, seen, e, k, price);
+                }
+                if (best.size() == k && !Double.isNaN(lastSc) && !Double.isNaN(lastUsd)) {
+                    double threshold = price * lastSc + lastUsd;
+                    if (netWorth(best.peek(), price) >= threshold) break;
+                }
+            }
+
+            List<Wallet> result = new ArrayList<>(best.size());
+            while (!best.isEmpty()) {
+                result.add(best.poll().wallet);
+            }
+            Collections.reverse(result);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static void offer(PriorityQueue<Entry> best, Set<Entry> seen, Entry e, int k, double price) {
+        if (isSupply(e) || !seen.add(e)) return;
+        if (best.size() < k) {
+            best.add(e);
+        } else if (netWorth(e, price) > netWorth(best.peek(), price)) {
+            best.poll();
+            best.add(e);
+        }
+    }
+
+    private static double netWorth(Entry e, double price) {
+        return price * e.sc + e.usd;
+    }
+
+    private static boolean isSupply(Entry e) {
+        return e.wallet == WalletManager.SUPPLY_WALLET;
+    }
+}
@@ -1,242 +1,292 @@
 package org.fintech;
 
-import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.collections.ObservableList;
 import javafx.scene.control.*;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicLong;
-
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Wallet-Tabelle der GUI.
+ *
+ * Zeilen sind die Wallets des Ledgers selbst (keine Kopien, keine vorformatierten Strings);
+ * formatiert wird erst in den Zellen, also nur für die Zeilen im sichtbaren Bereich. Ein Refresh
+ * verschiebt nur die vom Delta-Feed gemeldeten (und neu hinzugekommenen) Wallets per binärer Suche an
+ * ihre neue Position; alle übrigen Zeilen bleiben, wo sie sind. Komplett neu sortiert wird nur bei
+ * geänderter Sortierung, Reset, sehr vielen Änderungen oder – bei Net Worth – bewegtem Preis.
+ * Ohne Änderung der Reihenfolge werden lediglich die sichtbaren Zellen neu gerendert.
+ */
 public class WalletListViewManager {
-    // 🔧 PERFORMANCE: Caching für sortierte Wallet-Liste
-    private List<Wallet> cachedSortedWallets = null;
-    private String lastSortKey = null;
-    private boolean lastSortDirection = false;
-    private long lastWalletUpdateTime = 0;
-    private static final long WALLET_CACHE_TTL_MS = 500; // Cache für 500ms
+    private static final long WALLET_CACHE_TTL_MS = 500; // Neu-Sortierung höchstens alle 500ms
+    private static final double PRICE_EPSILON = 0.0001;
+    // Ab diesem Anteil geänderter Zeilen ist ein Neu-Sortieren billiger als einzelnes Verschieben
+    private static final int MOVE_FRACTION_DIVISOR = 16;
 
     // Referenzen zur GUI
-    private final ListView<String> walletList;
-    private final ComboBox<String> sortKeyCombo;
-    private final Button sortDirectionButton;
+    private final TableView<Wallet> walletTable;
     private final Wallet loggedInWallet;
-    private boolean isAscending = false;
-
-    // 🔧 PERFORMANCE: Cache für formatierte Einträge
-    private List<String> cachedWalletStrings = null;
-    private double lastCachedPrice = 0.0;
-
-    public WalletListViewManager(ListView<String> walletList,
-                                 ComboBox<String> sortKeyCombo,
-                                 Button sortDirectionButton,
-                                 Wallet loggedInWallet) {
-        this.walletList = walletList;
-        this.sortKeyCombo = sortKeyCombo;
-        this.sortDirectionButton = sortDirectionButton;
+    private final TableColumn<Wallet, Wallet> scColumn;
+    private final TableColumn<Wallet, Wallet> usdColumn;
+
+    private long lastWalletUpdateTime = 0;
+    private long lastSnapshotVersion = -1; // 🔧 Version des zuletzt dargestellten WalletSnapshots
+    private boolean sortInvalid = true;
+    private boolean sorting = false;
+    // Preis, mit dem die Zellen den Net Worth berechnen
+    private double renderPrice = 0.0;
+    private Wallet richestUser;
+
+    // 🔧 DELTA-FEED: Vom WalletManager gemeldete, seit dem letzten Refresh geänderte Wallets
+    private final Set<Wallet> dirtyWallets = ConcurrentHashMap.newKeySet();
+    private volatile boolean deltaReset = false;
+    // Dieselbe Referenz für add/remove, sonst bleibt der Listener nach dispose() registriert
+    private final Consumer<WalletDelta> deltaListener = this::onWalletDelta;
+
+    public WalletListViewManager(TableView<Wallet> walletTable, Wallet loggedInWallet) {
+        this.walletTable = walletTable;
         this.loggedInWallet = loggedInWallet;
 
-        setupSortingControls();
+        TableColumn<Wallet, Wallet> idColumn = column("ID", 70, w -> String.valueOf(w.getUniqueId()),
+                Comparator.comparingInt(Wallet::getUniqueId));
+        TableColumn<Wallet, Wallet> addressColumn = column("Adresse", 230,
+                w -> w.getAddress().substring(0, Math.min(25, w.getAddress().length())) + "...",
+                Comparator.comparing(Wallet::getAddress));
+        scColumn = column("SC Balance", 150, WalletListViewManager::formatScBalance,
+                Comparator.comparingDouble(Wallet::getBalance));
+        usdColumn = column("USD Balance", 130, w -> String.format("%,.2f", w.getUsdBalance()),
+                Comparator.comparingDouble(Wallet::getUsdBalance));
+        TableColumn<Wallet, Wallet> longColumn = column("LONG ($)", 120, w -> String.format("%,.2f", w.getLongPositionUsd()),
+                Comparator.comparingDouble(Wallet::getLongPositionUsd));
+        TableColumn<Wallet, Wallet> initialColumn = column("Initial USD", 130, w -> String.format("%,.2f", w.getInitialUsdBalance()),
+                Comparator.comparingDouble(Wallet::getInitialUsdBalance));
+        TableColumn<Wallet, Wallet> netWorthColumn = column("Net Worth", 140,
+                w -> String.format("%,.2f", w.calculateNetWorth(renderPrice)),
+                Comparator.comparingDouble(w -> w.calculateNetWorth(renderPrice)));
+        netWorthColumn.setUserData(Boolean.TRUE); // Sortierung hängt vom Preis ab
+
+        walletTable.getColumns().setAll(List.of(idColumn, addressColumn, scColumn, usdColumn,
+                longColumn, initialColumn, netWorthColumn));
+        walletTable.setRowFactory(table -> new WalletRow());
+
+        // 🔧 Spaltenklick sortiert über das Leaderboard bzw. einen Comparator, nicht über die Zeilen-Properties
+        scColumn.setSortType(TableColumn.SortType.DESCENDING);
+        walletTable.getSortOrder().add(scColumn);
+        walletTable.setSortPolicy(table -> {
+            if (!sorting) {
+                sortInvalid = true;
+                updateWalletList();
+            }
+            return true;
+        });
+
+        WalletManager.addDeltaListener(deltaListener);
+        updateWalletList();
     }
 
-    private void setupSortingControls() {
-        sortKeyCombo.getItems().addAll("SC Balance", "USD Balance", "LONG Position",
-                "Initial USD", "Adresse", "Net Worth");
-        sortKeyCombo.setValue("SC Balance");
+    /** Meldet den Delta-Listener ab; danach sammelt der Manager keine geänderten Wallets mehr. */
+    public void dispose() {
+        WalletManager.removeDeltaListener(deltaListener);
+        dirtyWallets.clear();
+    }
 
-        sortKeyCombo.setOnAction(e -> updateWalletList());
-        sortDirectionButton.setOnAction(e -> {
-            isAscending = !isAscending;
-            sortDirectionButton.setText(isAscending ? "↑ Asc" : "↓ Desc");
-            updateWalletList();
+    // Spalte, deren Zellwert die Wallet selbst ist; Text entsteht erst beim Rendern einer sichtbaren Zelle
+    private static TableColumn<Wallet, Wallet> column(String title, double width,
+                                                      Function<Wallet, String> formatter,
+                                                      Comparator<Wallet> comparator) {
+        TableColumn<Wallet, Wallet> column = new TableColumn<>(title);
+        column.setPrefWidth(width);
+        column.setComparator(comparator);
+        column.setCellValueFactory(features -> new ReadOnlyObjectWrapper<>(features.getValue()));
+        column.setCellFactory(col -> new TableCell<>() {
+            @Override
+            protected void updateItem(Wallet w, boolean empty) {
+                super.updateItem(w, empty);
+                setText(empty || w == null ? null : formatter.apply(w));
+            }
         });
+        return column;
     }
 
-    public void updateWalletList() {
-        long now = System.currentTimeMillis();
-        double currentPrice = MyChainGUI.getCurrentCoinPrice();
+    // Hervorhebung eingeloggte/Supply/reichste Wallet; einmal als Row-Factory gesetzt statt bei jedem Refresh
+    private final class WalletRow extends TableRow<Wallet> {
+        WalletRow() {
+            setOnMouseClicked(event -> {
+                if (event.getClickCount() == 2 && !isEmpty() && getItem() != null) {
+                    showWalletDetails(getItem());
+                }
+            });
+        }
 
-        // 🔧 LAZY UPDATE: Nur aktualisieren, wenn nötig
-        if (now - lastWalletUpdateTime < WALLET_CACHE_TTL_MS &&
-                cachedSortedWallets != null &&
-                sortKeyCombo.getValue().equals(lastSortKey) &&
-                isAscending == lastSortDirection &&
-                Math.abs(currentPrice - lastCachedPrice) < 0.0001) {
-            return; // Cache ist noch gültig
+        @Override
+        protected void updateItem(Wallet w, boolean empty) {
+            super.updateItem(w, empty);
+            if (empty || w == null) {
+                setTooltip(null);
+                setStyle("");
+                return;
+            }
+            setTooltip(new Tooltip(w.getAddress()));
+
+            if (loggedInWallet != null && w.getAddress().equals(loggedInWallet.getAddress())) {
+                setStyle("-fx-background-color: #fce883; -fx-text-fill: #333333; -fx-font-weight: bold;");
+            } else if (w == WalletManager.SUPPLY_WALLET) {
+                setStyle("-fx-background-color: #d1e7f7; -fx-text-fill: #333333; -fx-font-style: italic;");
+            } else if (w == richestUser) {
+                setStyle("-fx-background-color: #d4edda; -fx-text-fill: #155724; -fx-font-weight: bold;");
+            } else {
+                setStyle("");
+            }
         }
+    }
 
-        // Hole alle Wallets (performanter Zugriff)
-        List<Wallet> allWallets = WalletManager.getWallets();
+    // Wird unter dem Write-Lock des WalletManagers aufgerufen → nur Wallets merken
+    private void onWalletDelta(WalletDelta delta) {
+        if (delta.isReset()) {
+            deltaReset = true;
+        }
+        for (int i = 0; i < delta.size(); i++) {
+            dirtyWallets.add(delta.getWallet(i));
+        }
+    }
 
-        // Sortierung
-        String currentSortKey = sortKeyCombo.getValue();
-        if (cachedSortedWallets == null ||
-                !currentSortKey.equals(lastSortKey) ||
-                isAscending != lastSortDirection) {
+    public void updateWalletList() {
+        long now = System.currentTimeMillis();
+        double currentPrice = MyChainGUI.getCurrentCoinPrice();
+        WalletSnapshot snapshot = WalletManager.getSnapshot();
 
-            cachedSortedWallets = new ArrayList<>(allWallets);
-            cachedSortedWallets.sort(getWalletComparator(currentPrice));
-            lastSortKey = currentSortKey;
-            lastSortDirection = isAscending;
+        boolean priceMoved = Math.abs(currentPrice - renderPrice) >= PRICE_EPSILON;
+        // 🔧 LAZY UPDATE: Nichts zu tun, wenn weder Daten (Version), Sortierung noch Preis sich geändert haben
+        if (!sortInvalid && !priceMoved && snapshot.getVersion() == lastSnapshotVersion) {
+            return;
+        }
+        if (!sortInvalid && now - lastWalletUpdateTime < WALLET_CACHE_TTL_MS) {
+            return;
         }
 
-        // Erstelle die Einträge für die ListView
-        List<String> entries = new ArrayList<>();
-        entries.add(getHeaderString());
-
-        // 🔧 PERFORMANCE: Pre-calculate current price einmalig
-        lastCachedPrice = currentPrice;
+        boolean reset = deltaReset;
+        deltaReset = false;
+        Set<Wallet> changed = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Iterator<Wallet> it = dirtyWallets.iterator(); it.hasNext(); ) {
+            changed.add(it.next());
+            it.remove();
+        }
+        renderPrice = currentPrice;
+        richestUser = findRichestUser();
+
+        // Reihenfolge ändert sich nur mit den Werten, der Wallet-Anzahl oder – bei Net Worth – dem Preis
+        TableColumn<Wallet, ?> sortColumn = walletTable.getSortOrder().isEmpty() ? null : walletTable.getSortOrder().get(0);
+        boolean netWorthMoved = priceMoved && sortColumn != null && sortColumn.getUserData() == Boolean.TRUE;
+        List<Wallet> allWallets = snapshot.getWallets();
+        ObservableList<Wallet> items = walletTable.getItems();
+        boolean fullSort = sortInvalid || reset || netWorthMoved || allWallets.size() < items.size();
+        if (!fullSort) {
+            // Der Snapshot wächst nur am Ende: neue Wallets wie geänderte einsortieren
+            for (int i = items.size(); i < allWallets.size(); i++) {
+                changed.add(allWallets.get(i));
+            }
+            fullSort = changed.size() > items.size() / MOVE_FRACTION_DIVISOR;
+        }
 
-        // Erstelle die Strings für jede Wallet
-        cachedWalletStrings = new ArrayList<>(cachedSortedWallets.size());
-        for (Wallet w : cachedSortedWallets) {
-            cachedWalletStrings.add(formatWalletEntry(w, currentPrice));
+        sorting = true;
+        try {
+            if (fullSort) {
+                items.setAll(sortWallets(allWallets, sortColumn));
+                sortInvalid = false;
+            } else if (!changed.isEmpty()) {
+                moveRows(items, changed, rowOrder(sortColumn));
+            }
+        } finally {
+            sorting = false;
         }
-        entries.addAll(cachedWalletStrings);
 
-        // 🔧 PERFORMANCE: Batch-Update der ListView
-        Platform.runLater(() -> {
-            walletList.getItems().setAll(entries);
-            applyWalletHighlights();
-        });
+        // 🔧 Nur die sichtbaren Zellen neu formatieren (neue Werte bzw. Net Worth zum neuen Preis)
+        walletTable.refresh();
 
         lastWalletUpdateTime = now;
+        lastSnapshotVersion = snapshot.getVersion();
     }
 
-    private Comparator<Wallet> getWalletComparator(double currentPrice) {
-        String key = sortKeyCombo.getValue();
-        int direction = isAscending ? 1 : -1;
-
-        Comparator<Wallet> comparator = switch (key) {
-            case "USD Balance" -> Comparator.comparingDouble(Wallet::getUsdBalance);
-            case "LONG Position" -> Comparator.comparingDouble(Wallet::getLongPositionUsd);
-            case "Initial USD" -> Comparator.comparingDouble(Wallet::getInitialUsdBalance);
-            case "Adresse" -> Comparator.comparing(Wallet::getAddress);
-            case "SC Balance" -> Comparator.comparingDouble(Wallet::getBalance);
-            case "Net Worth" -> Comparator.comparingDouble(wallet -> wallet.calculateNetWorth(currentPrice));
-            default -> Comparator.comparingDouble(Wallet::getBalance);
-        };
-
-        return direction == 1 ? comparator : comparator.reversed();
-    }
-
-    private String getHeaderString() {
-        return String.format("%-10s   | %-30s       | %22s       | %14s       | %14s  |      %16s |        %16s",
-                               "ID", "Adresse", "SC Balance", "USD Balance", "LONG ($)", "Initial USD", "Net Worth");
+    /**
+     * Nimmt die geänderten Wallets aus der (sonst sortierten) Liste und fügt jede an ihrer neuen
+     * Position wieder ein: O(n + d·log n) Vergleiche statt O(n·log n), andere Zeilen behalten
+     * Position und Auswahl.
+     */
+    private static void moveRows(List<Wallet> items, Set<Wallet> changed, Comparator<Wallet> order) {
+        items.removeAll(changed);
+        for (Wallet w : changed) {
+            items.add(insertionPoint(items, w, order), w);
+        }
     }
 
-    private String formatWalletEntry(Wallet w, double currentPrice) {
-        String idString = String.valueOf(w.getUniqueId());
-        String shortAddr = w.getAddress().substring(0, Math.min(25, w.getAddress().length())) + "...";
-
-        String scBalanceString;
-        if (w.getBalance() < 1.0 && w.getBalance() > 0.0) {
-            scBalanceString = String.format("%.3f SC", w.getBalance());
-        } else {
-            scBalanceString = String.format("%,d SC", Math.round(w.getBalance()));
+    // Binäre Suche nach der ersten Position, deren Zeile nach w einsortiert ist
+    private static int insertionPoint(List<Wallet> items, Wallet w, Comparator<Wallet> order) {
+        int low = 0;
+        int high = items.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (order.compare(items.get(mid), w) <= 0) low = mid + 1; else high = mid;
         }
-
-        double networth = w.calculateNetWorth(currentPrice);
-
-        return String.format(
-                "%-10s | %-30s | %22s | %14.2f | %14.2f | %16.2f | %16.2f",
-                idString,
-                shortAddr,
-                scBalanceString,
-                w.getUsdBalance(),
-                w.getLongPositionUsd(),
-                w.getInitialUsdBalance(),
-                networth
-        );
+        return low;
     }
 
-    private void applyWalletHighlights() {
-        final String loggedInAddress = loggedInWallet != null ? loggedInWallet.getAddress() : null;
-
-        // 🔧 PERFORMANCE: Suche nach reichster Wallet nur bei Änderungen
-        Wallet richestUser = findRichestUser();
-
-        walletList.setCellFactory(lv -> new ListCell<>() {
-            @Override
-            protected void updateItem(String item, boolean empty) {
-                super.updateItem(item, empty);
-
-                if (empty || item == null) {
-                    setText(null);
-                    setTooltip(null);
-                    setStyle("");
-                    return;
-                }
-
-                setText(item);
+    // Zeilenreihenfolge der Sortierspalte (ohne Sortierung: SC absteigend)
+    @SuppressWarnings("unchecked")
+    private Comparator<Wallet> rowOrder(TableColumn<Wallet, ?> sortColumn) {
+        TableColumn<Wallet, ?> column = sortColumn != null ? sortColumn : scColumn;
+        Comparator<Wallet> comparator = (Comparator<Wallet>) column.getComparator();
+        boolean ascending = sortColumn != null && sortColumn.getSortType() == TableColumn.SortType.ASCENDING;
+        return ascending ? comparator : comparator.reversed();
+    }
 
-                if (getIndex() == 0) {
-                    setStyle("-fx-font-weight: bold; -fx-background-color: #f0f0f0;");
-                    setTooltip(null);
-                    return;
-                }
+    // 🔧 RANGLISTEN: SC/USD-Reihenfolge direkt aus dem Leaderboard (kein Sortieren), sonst Comparator der Spalte
+    private List<Wallet> sortWallets(List<Wallet> allWallets, TableColumn<Wallet, ?> sortColumn) {
+        TableColumn<Wallet, ?> column = sortColumn != null ? sortColumn : scColumn;
+        boolean ascending = sortColumn != null && sortColumn.getSortType() == TableColumn.SortType.ASCENDING;
+
+        WalletLeaderboard leaderboard = WalletManager.getLeaderboard();
+        List<Wallet> ordered = null;
+        if (column == scColumn) {
+            ordered = leaderboard.allByScBalance();
+        } else if (column == usdColumn) {
+            ordered = leaderboard.allByUsdBalance();
+        }
 
-                int walletIndex = getIndex() - 1;
-                if (walletIndex < 0 || walletIndex >= cachedSortedWallets.size()) {
-                    setStyle("");
-                    setTooltip(null);
-                    return;
-                }
+        if (ordered != null && ordered.size() == allWallets.size()) {
+            if (ascending) Collections.reverse(ordered);
+            return ordered;
+        }
 
-                Wallet currentWallet = cachedSortedWallets.get(walletIndex);
-                setTooltip(new Tooltip(currentWallet.getAddress()));
-
-                // 🔧 PERFORMANCE: Switch-Statement statt if-else-Kette
-                if (loggedInAddress != null && currentWallet.getAddress().equals(loggedInAddress)) {
-                    setStyle("-fx-background-color: #fce883; -fx-text-fill: #333333; -fx-font-weight: bold;");
-                } else if (currentWallet.getAddress().equals(WalletManager.SUPPLY_WALLET.getAddress())) {
-                    setStyle("-fx-background-color: #d1e7f7; -fx-text-fill: #333333; -fx-font-style: italic;");
-                } else if (richestUser != null && currentWallet.getAddress().equals(richestUser.getAddress())) {
-                    setStyle("-fx-background-color: #d4edda; -fx-text-fill: #155724; -fx-font-weight: bold;");
-                } else {
-                    setStyle("");
-                }
-            }
-        });
+        List<Wallet> sorted = new ArrayList<>(allWallets);
+        sorted.sort(rowOrder(sortColumn));
+        return sorted;
     }
 
-    private Wallet findRichestUser() {
-        if (cachedSortedWallets == null || cachedSortedWallets.isEmpty()) {
-            return null;
+    private static String formatScBalance(Wallet w) {
+        if (w.getBalance() < 1.0 && w.getBalance() > 0.0) {
+            return String.format("%.3f SC", w.getBalance());
         }
+        return String.format("%,d SC", Math.round(w.getBalance()));
+    }
 
-        // 🔧 PERFORMANCE: Stream mit Optional
-        return cachedSortedWallets.stream()
-                .filter(w -> !w.getAddress().equals(WalletManager.SUPPLY_WALLET.getAddress()))
-                .max(Comparator.comparingDouble(Wallet::getBalance))
-                .orElse(null);
+    private Wallet findRichestUser() {
+        // 🔧 RANGLISTEN: O(log n) aus dem Leaderboard statt Stream über alle Wallets
+        return WalletManager.getLeaderboard().richestByScBalance();
     }
 
     public void invalidateCache() {
-        cachedSortedWallets = null;
+        sortInvalid = true;
         lastWalletUpdateTime = 0;
-        cachedWalletStrings = null;
+        lastSnapshotVersion = -1;
     }
 
     public Wallet getWalletAtDisplayIndex(int displayIndex) {
-        if (cachedSortedWallets == null || displayIndex < 0 || displayIndex >= cachedSortedWallets.size()) {
+        List<Wallet> items = walletTable.getItems();
+        if (displayIndex < 0 || displayIndex >= items.size()) {
             return null;
         }
-        return cachedSortedWallets.get(displayIndex);
-    }
-
-    public void setupWalletDoubleClick() {
-        walletList.setOnMouseClicked(event -> {
-            if (event.getClickCount() == 2 && !walletList.getSelectionModel().isEmpty()) {
-                int selectedIndex = walletList.getSelectionModel().getSelectedIndex();
-                if (selectedIndex == 0) return; // Header-Zeile
-
-                Wallet w = getWalletAtDisplayIndex(selectedIndex - 1);
-                if (w == null) {
-                    System.err.println("Fehler: Wallet nicht gefunden für Index " + (selectedIndex - 1));
-                    return;
-                }
-
-                showWalletDetails(w);
-            }
-        });
+        return items.get(displayIndex);
     }
 
     private void showWalletDetails(Wallet w) {
@@ -244,4 +294,4 @@ public class WalletListViewManager {
         // (Kann in eine eigene Klasse ausgelagert werden)
         WalletDetailsDialog.show(w);
     }
-}
\ No newline at end of file
+}
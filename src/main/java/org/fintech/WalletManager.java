@@ -2,14 +2,16 @@ package org.fintech;
 
 import java.io.*;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.List;
-import java.util.Random;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.random.RandomGenerator;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
 
 public class WalletManager {
 
@@ -20,15 +22,37 @@ public class WalletManager {
 
     // 🔧 PERFORMANCE: Ersetze CopyOnWriteArrayList durch normale ArrayList mit Lock
     private static final List<Wallet> wallets = new ArrayList<>();
+    private static final Map<String, Wallet> walletsByAddress = new HashMap<>(); // 🔧 O(1)-Lookup statt Stream-Suche
     private static final ReentrantReadWriteLock walletsLock = new ReentrantReadWriteLock();
 
-    // 🔧 CACHING: Cache für GUI-Daten (vermeidet häufige Neuberechnungen)
-    private static volatile Map<String, Map<String, Double>> guiCache = null;
-    private static volatile long lastCacheUpdate = 0;
-    private static final long CACHE_TTL_MS = 1000; // Cache für 1 Sekunde
-
-    // 🔧 PERFORMANCE: Transaktions-Parser einmalig initialisieren
-    private static final Pattern USD_VALUE_PATTERN = Pattern.compile("([\\d.,]+)\\sUSD");
+    // Bulk-Erstellung: Grants pro Block (ein Block statt eines Blocks pro Wallet)
+    private static final int GRANTS_PER_BLOCK = 10_000;
+    private static final double INITIAL_SC_GRANT = 1.0;
+
+    // 🔧 PERFORMANCE: Versionierte, unveränderliche Sicht für Leser (getWallets() kopiert nicht mehr)
+    private static Wallet[] snapshotArray = new Wallet[16]; // Append-only, nur unter Write-Lock beschrieben
+    private static int publishedCount = 0;
+    private static long snapshotVersion = 0;
+    private static long membershipVersion = 0;
+    private static volatile WalletSnapshot currentSnapshot = WalletSnapshot.EMPTY;
+
+    // 🔧 DELTA-FEED: Berührte Wallets pro Commit sammeln und an Abonnenten verteilen
+    private static final WalletDelta.Builder deltaBuilder = new WalletDelta.Builder(); // nur unter Write-Lock
+    private static final List<Consumer<WalletDelta>> deltaListeners = new CopyOnWriteArrayList<>();
+
+    // 🔧 RANGLISTEN: Über den Delta-Feed gepflegt (O(berührte Wallets · log n) pro Block)
+    private static final WalletLeaderboard leaderboard = new WalletLeaderboard();
+    // 🔧 AGGREGATE: Summen, Market Cap und Verteilungen aus den Balance-Deltas jedes Blocks
+    private static final MarketStats marketStats = new MarketStats();
+    // 🔧 STICHPROBEN: Handelnde Wallets nach Long/Neutral/Idle gruppiert, O(1) ziehen
+    private static final TraderIndex traderIndex = new TraderIndex();
+    // Margin-Positionen mit Liquidations-Triggern; wird aus Margin-Transaktionen fortgeschrieben
+    private static final MarginEngine marginEngine = new MarginEngine();
+    static {
+        deltaListeners.add(leaderboard);
+        deltaListeners.add(marketStats);
+        deltaListeners.add(traderIndex);
+    }
 
     public static final WalletManager INSTANCE = new WalletManager();
     private WalletManager() {}
@@ -38,86 +62,144 @@ public class WalletManager {
     }
 
     public static void loadWallets() {
+        loadWallets(BlockchainPersistence.loadBlockchain("MyChain", 1));
+    }
+
+    /**
+     * Initialisiert die Wallets neu und berechnet die Balances aus der übergebenen Kette
+     * (z.B. einer reinen In-Memory-Kette im Headless-Modus).
+     */
+    public static void loadWallets(Blockchain chain) {
         walletsLock.writeLock().lock();
         try {
             maxWalletCountForSimulation = 0;
             wallets.clear();
-            wallets.add(SUPPLY_WALLET);
+            walletsByAddress.clear();
+            // Neues Array: ältere Snapshots behalten ihre (unveränderte) Sicht
+            snapshotArray = new Wallet[16];
+            publishedCount = 0;
+            deltaBuilder.markReset();
+            addWallet(SUPPLY_WALLET);
 
             Wallet firstUser = createNewUserWallet();
-            wallets.add(firstUser);
+            addWallet(firstUser);
 
             System.out.println("Wallets neu initialisiert (kein Laden).");
-            updateAllBalancesFromBlockchain();
-            invalidateCache(); // 🔧 Cache invalidieren
+            updateAllBalancesFromBlockchain(chain);
+            commitChanges(); // 🔧 Snapshot + Delta veröffentlichen
         } finally {
             walletsLock.writeLock().unlock();
         }
     }
 
     public static synchronized void saveWallets() {
-        System.out.println("Wallets würden gespeichert (" + getWallets().size() + " Wallets)");
+        System.out.println("Wallets würden gespeichert (" + getSnapshot().size() + " Wallets)");
     }
 
     // 🔧 NEUE EINHEITLICHE METHODE: Verarbeitet eine einzelne Transaktion
-    private static void processSingleTransaction(Transaction tx) {
+    // Rückgabe false: Margin-Transaktion ohne Wirkung (Position schon offen bzw. schon geschlossen)
+    private static boolean processSingleTransaction(Transaction tx) {
         String sender = tx.getSender();
         String recipient = tx.getRecipient();
         double amount = tx.getAmount();
-        double usdValue = parseUsdValueFromMessage(tx.getMessage());
-        String message = tx.getMessage().toLowerCase();
 
         Wallet senderWallet = findWalletByAddress(sender);
         Wallet recipientWallet = findWalletByAddress(recipient);
 
-        // Transaktion zur Historie hinzufügen
+        // Alte Werte für den Delta-Feed festhalten (nur beim ersten Berühren im Commit)
+        deltaBuilder.touch(senderWallet);
+        deltaBuilder.touch(recipientWallet);
+
+        // Transaktion zur Historie hinzufügen (inkl. Zähler)
         if (senderWallet != null) {
-            senderWallet.getTransactionHistory().add(tx);
+            senderWallet.recordTransaction(tx);
         }
-        if (recipientWallet != null) {
-            recipientWallet.getTransactionHistory().add(tx);
+        if (recipientWallet != null && recipientWallet != senderWallet) {
+            recipientWallet.recordTransaction(tx);
         }
 
-        // SC-Balance aktualisieren
-        boolean isExchangeSell = MyChainGUI.EXCHANGE_ADDRESS.equals(recipient);
+        // SC-Balance aktualisieren (Margin-Positionen bewegen keine SC)
+        TransactionKind kind = tx.getKind();
+        boolean isExchangeSell = NetworkSimulator.EXCHANGE_ADDRESS.equals(recipient);
         boolean isCoinbase = "system".equals(sender) || sender == null || sender.isEmpty();
 
-        if (!isCoinbase && senderWallet != null) {
-            senderWallet.debit(amount);
-        }
-        if (!isExchangeSell && recipientWallet != null) {
-            recipientWallet.credit(amount);
+        if (!kind.isMargin()) {
+            if (!isCoinbase && senderWallet != null) {
+                senderWallet.debit(amount);
+            }
+            if (!isExchangeSell && recipientWallet != null) {
+                recipientWallet.credit(amount);
+            }
         }
 
-        // 🔧 KONSOLIDIERTE LOGIK: USD und Positionen aktualisieren
-        if (sender.equals(SUPPLY_WALLET.getAddress()) && message.contains("kauf (long)") && usdValue > 0) {
-            if (recipientWallet != null) {
-                safeDebitUsd(recipientWallet, usdValue);
-                recipientWallet.setLongPositionUsd(recipientWallet.getLongPositionUsd() + usdValue);
+        // 🔧 PERFORMANCE: USD und Positionen über die typisierte Art aktualisieren (kein Regex/Lowercase mehr)
+        double usdValue = tx.getUsdValue();
+        switch (kind) {
+            case BUY_LONG -> {
+                if (recipientWallet != null && usdValue > 0) {
+                    safeDebitUsd(recipientWallet, usdValue);
+                    recipientWallet.setLongPositionUsd(recipientWallet.getLongPositionUsd() + usdValue);
+                }
             }
-        } else if (recipient.equals(MyChainGUI.EXCHANGE_ADDRESS) && message.contains("verkauf (long)") && usdValue > 0) {
-            if (senderWallet != null) {
+            case SELL_LONG -> {
+                if (senderWallet != null && usdValue > 0) {
+                    senderWallet.creditUsd(usdValue);
+                    senderWallet.setLongPositionUsd(senderWallet.getLongPositionUsd() - usdValue);
+                    if (senderWallet.getLongPositionUsd() < 0) senderWallet.setLongPositionUsd(0.0);
+                }
+            }
+            case MARGIN_OPEN_LONG, MARGIN_OPEN_SHORT -> {
+                // Ohne ausreichende USD (z.B. veralteter Auftrag) bleibt die Transaktion ohne Wirkung
+                if (senderWallet == null || usdValue <= 0 || marginEngine.get(senderWallet) != null
+                        || senderWallet.getUsdBalance() < usdValue || !safeDebitUsd(senderWallet, usdValue)) {
+                    return false;
+                }
+                boolean isLong = kind == TransactionKind.MARGIN_OPEN_LONG;
+                double notional = amount * tx.getPriceAtExecution();
+                senderWallet.setMarginUsd(usdValue);
+                senderWallet.setLeveragedLongUsd(isLong ? notional : 0.0);
+                senderWallet.setShortPositionUsd(isLong ? 0.0 : notional);
+                marginEngine.open(senderWallet, isLong, amount, tx.getPriceAtExecution(), usdValue);
+            }
+            case MARGIN_CLOSE, LIQUIDATION -> {
+                // Nur wirksam, wenn die Position noch offen ist (Schließen und Liquidation können sich kreuzen)
+                if (senderWallet == null || marginEngine.close(senderWallet, kind == TransactionKind.LIQUIDATION, usdValue) == null) {
+                    return false;
+                }
                 senderWallet.creditUsd(usdValue);
-                senderWallet.setLongPositionUsd(senderWallet.getLongPositionUsd() - usdValue);
-                if (senderWallet.getLongPositionUsd() < 0) senderWallet.setLongPositionUsd(0.0);
+                senderWallet.setMarginUsd(0.0);
+                senderWallet.setLeveragedLongUsd(0.0);
+                senderWallet.setShortPositionUsd(0.0);
+            }
+            default -> {
+                // GENESIS, GRANT, TRANSFER: keine USD-/Positionseffekte
             }
         }
+        return true;
     }
 
     // 🔧 EINHEITLICHE METHODE FÜR ALLE TRANSAKTIONEN
     public static synchronized void updateAllBalancesFromBlockchain() {
-        Blockchain chain = BlockchainPersistence.loadBlockchain("MyChain", 1);
+        updateAllBalancesFromBlockchain(BlockchainPersistence.loadBlockchain("MyChain", 1));
+    }
+
+    public static synchronized void updateAllBalancesFromBlockchain(Blockchain chain) {
         System.out.println("🔧 Komplette Balance-Berechnung aus Blockchain gestartet...");
 
         walletsLock.writeLock().lock();
         try {
             // 1. ALLES zurücksetzen
             for (Wallet w : wallets) {
+                deltaBuilder.touch(w);
                 w.setBalance(0.0);
                 w.setUsdBalance(w.getInitialUsdBalance());
                 w.setLongPositionUsd(0.0);
-                w.setTransactionHistory(new ArrayList<>());
+                w.setShortPositionUsd(0.0);
+                w.setLeveragedLongUsd(0.0);
+                w.setMarginUsd(0.0);
+                w.clearTransactionHistory();
             }
+            marginEngine.reset();
 
             // 2. Transaktionen durchlaufen und komplett neu berechnen
             for (Block block : chain.getChain()) {
@@ -125,9 +207,9 @@ public class WalletManager {
                     processSingleTransaction(tx);
                 }
             }
+            commitChanges(); // 🔧 Snapshot + Delta veröffentlichen
         } finally {
             walletsLock.writeLock().unlock();
-            invalidateCache(); // 🔧 Cache invalidieren
         }
 
         System.out.println("🔧 Komplette Balance-Berechnung abgeschlossen.");
@@ -135,40 +217,39 @@ public class WalletManager {
 
     // 🔧 EINHEITLICHE METHODE FÜR INKREMENTELLE UPDATES
     public static synchronized void updateBalancesFromLastBlock(Block lastBlock) {
-        if (lastBlock == null) return;
+        applyBlock(lastBlock);
+    }
+
+    /**
+     * Wie {@link #updateBalancesFromLastBlock(Block)}, liefert zusätzlich die Transaktionen des Blocks,
+     * die ohne Wirkung blieben (z.B. Liquidation einer inzwischen geschlossenen Position). Aufrufer
+     * lösen Preis-Effekte nur für die übrigen aus.
+     */
+    static synchronized List<Transaction> applyBlock(Block lastBlock) {
+        if (lastBlock == null) return Collections.emptyList();
 
+        List<Transaction> ineffective = Collections.emptyList();
         walletsLock.writeLock().lock();
         try {
             for (Transaction tx : lastBlock.getTransactions()) {
-                processSingleTransaction(tx);
+                if (!processSingleTransaction(tx)) {
+                    if (ineffective.isEmpty()) ineffective = new ArrayList<>();
+                    ineffective.add(tx);
+                }
             }
+            commitChanges(); // 🔧 Snapshot + Delta veröffentlichen
         } finally {
             walletsLock.writeLock().unlock();
-            invalidateCache(); // 🔧 Cache invalidieren
         }
+        return ineffective;
     }
 
-    // 🔧 PERFORMANCE: Optimierte Parser-Methode
-    private static double parseUsdValueFromMessage(String message) {
-        if (message != null && message.contains("USD")) {
-            try {
-                Matcher m = USD_VALUE_PATTERN.matcher(message);
-                String lastMatch = null;
-                while (m.find()) {
-                    lastMatch = m.group(1);
-                }
-                if (lastMatch != null) {
-                    return Double.parseDouble(lastMatch.replace(",", "."));
-                }
-            } catch (Exception e) {
-                System.err.println("Fehler beim Parsen des USD-Werts aus Nachricht: " + message);
-            }
-        }
-        return 0.0;
+    private static Wallet createNewUserWallet() {
+        return createNewUserWallet(KeyMaterialPool.take(), true);
     }
 
-    private static Wallet createNewUserWallet() {
-        Random r = new Random();
+    private static Wallet createNewUserWallet(KeyMaterialPool.KeyMaterial keys, boolean verbose) {
+        RandomGenerator r = SimulationContext.random("wallets");
         int newWalletIndex = wallets.size();
         int userWalletCount = newWalletIndex - 1;
         double startingUsd;
@@ -204,25 +285,43 @@ public class WalletManager {
                 startingUsd = minNormal + (maxNormal - minNormal) * r.nextDouble();
             }
         }
-        System.out.printf("%s WALLET erstellt (#%d): %.2f USD%n", walletType, userWalletCount + 1, startingUsd);
-        return new Wallet(StringUtil.generateRandomPassword(), startingUsd);
+        if (verbose) {
+            System.out.printf("%s WALLET erstellt (#%d): %.2f USD%n", walletType, userWalletCount + 1, startingUsd);
+        }
+        return new Wallet(StringUtil.generateRandomPassword(), startingUsd, keys);
+    }
+
+    public static Wallet createWallet(Blockchain blockchain, Wallet supplyWallet) {
+        return createWallet(blockchain, supplyWallet, true);
+    }
+
+    /**
+     * Erstellt eine Wallet samt Initial-Grant-Block.
+     * @param verbose false unterdrückt die Konsolenausgabe (z.B. bei Simulationen über viele Stunden).
+     */
+    static Wallet createWallet(Blockchain blockchain, Wallet supplyWallet, boolean verbose) {
+        // 🔧 PERFORMANCE: Schlüsselmaterial vor Monitor und Write-Lock holen; eine synchrone Erzeugung
+        // bei leerem Vorrat blockiert so keine anderen WalletManager-Methoden
+        KeyMaterialPool.KeyMaterial keys = KeyMaterialPool.take();
+        return createWallet(blockchain, supplyWallet, verbose, keys);
     }
 
-    public static synchronized Wallet createWallet(Blockchain blockchain, Wallet supplyWallet) {
+    private static synchronized Wallet createWallet(Blockchain blockchain, Wallet supplyWallet, boolean verbose,
+                                                    KeyMaterialPool.KeyMaterial keys) {
         walletsLock.writeLock().lock();
         try {
-            Wallet newWallet = createNewUserWallet();
-            wallets.add(newWallet);
-
-            final double INITIAL_SC_GRANT = 1.0;
+            Wallet newWallet = createNewUserWallet(keys, verbose);
+            addWallet(newWallet);
 
             if (blockchain != null && supplyWallet != null) {
                 try {
-                    double currentPrice = MyChainGUI.getCurrentCoinPrice();
+                    double currentPrice = PriceSimulator.getMarketPrice();
 
                     Transaction tx = supplyWallet.createTransaction(
                             newWallet.getAddress(),
                             INITIAL_SC_GRANT,
+                            TransactionKind.GRANT,
+                            0.0,
                             "INITIAL SC GRANT: 1 SC (Wallet Creation Bonus) 0.00 USD",
                             currentPrice
                     );
@@ -230,10 +329,13 @@ public class WalletManager {
                     if (tx != null) {
                         blockchain.addBlock(Collections.singletonList(tx));
 
+                        // Ohne eigenes Veröffentlichen: Snapshot/Delta einmal am Ende für Wallet und Grant
                         Block lastBlock = blockchain.getChain().get(blockchain.getChain().size() - 1);
-                        updateBalancesFromLastBlock(lastBlock);
+                        for (Transaction grant : lastBlock.getTransactions()) {
+                            processSingleTransaction(grant);
+                        }
 
-                        System.out.printf("   → Block erstellt (#%d) mit Initial %.1f SC Grant an %s...%n",
+                        if (verbose) System.out.printf("   → Block erstellt (#%d) mit Initial %.1f SC Grant an %s...%n",
                                 blockchain.getChain().size() - 1,
                                 INITIAL_SC_GRANT,
                                 newWallet.getAddress().substring(0, 10));
@@ -248,17 +350,140 @@ public class WalletManager {
                 maxWalletCountForSimulation = wallets.size();
             }
 
-            invalidateCache(); // 🔧 Cache invalidieren
+            commitChanges(); // 🔧 Snapshot + Delta veröffentlichen
             return newWallet;
         } finally {
             walletsLock.writeLock().unlock();
         }
     }
 
+    /**
+     * Erstellt {@code count} Wallets auf einmal (z.B. für Lasttests).
+     * Schlüssel und Grant-Signaturen werden parallel erzeugt, alle Initial-Grants landen in
+     * wenigen Blöcken ({@value #GRANTS_PER_BLOCK} pro Block), die Balances werden in einem
+     * Durchlauf übernommen und Snapshot/Delta nur einmal veröffentlicht.
+     * @param count Anzahl der neuen Wallets.
+     * @param blockchain Die Kette für die Grant-Blöcke (null = ohne Grants).
+     * @param supplyWallet Die Supply-Wallet, die die Grants signiert.
+     * @return Die neu erstellten Wallets.
+     */
+    public static List<Wallet> createWallets(int count, Blockchain blockchain, Wallet supplyWallet) {
+        if (count <= 0) return Collections.emptyList();
+        long start = System.nanoTime();
+
+        // Im Seed-Modus sequenziell, damit Schlüssel und Transaktions-IDs reproduzierbar bleiben
+        boolean parallel = !SimulationContext.isSeeded();
+
+        // 1. Schlüsselmaterial parallel (Vorrat + Nachgenerierung), vor Monitor und Write-Lock:
+        // der Vorrat reicht nur für wenige hundert Wallets, der Rest wird hier synchron erzeugt
+        IntStream indices = IntStream.range(0, count);
+        List<KeyMaterialPool.KeyMaterial> keys = (parallel ? indices.parallel() : indices)
+                .mapToObj(i -> KeyMaterialPool.take())
+                .toList();
+
+        List<Wallet> created = createWallets(keys, blockchain, supplyWallet, parallel);
+
+        System.out.printf("Bulk-Erstellung: %d Wallets in %.0f ms (Wallets gesamt: %d)%n",
+                count, (System.nanoTime() - start) / 1e6, getSnapshot().size());
+        return created;
+    }
+
+    // Schritte 2–5 der Bulk-Erstellung mit bereits erzeugtem Schlüsselmaterial
+    private static synchronized List<Wallet> createWallets(List<KeyMaterialPool.KeyMaterial> keys, Blockchain blockchain,
+                                                           Wallet supplyWallet, boolean parallel) {
+        int count = keys.size();
+        List<Wallet> created = new ArrayList<>(count);
+        walletsLock.writeLock().lock();
+        try {
+            // 2. Wallets anlegen (sequenziell wegen fortlaufender IDs und Wallet-Typ-Zyklen)
+            for (KeyMaterialPool.KeyMaterial k : keys) {
+                Wallet w = createNewUserWallet(k, false);
+                addWallet(w);
+                created.add(w);
+            }
+
+            // 3. Grant-Transaktionen parallel signieren und in wenige Blöcke packen
+            boolean grantsPossible = blockchain != null && supplyWallet != null
+                    && supplyWallet.getBalance() >= count * INITIAL_SC_GRANT;
+            if (grantsPossible) {
+                double currentPrice = PriceSimulator.getMarketPrice();
+                List<Transaction> grants = (parallel ? created.parallelStream() : created.stream())
+                        .map(w -> new Transaction(supplyWallet, w.getAddress(), INITIAL_SC_GRANT,
+                                TransactionKind.GRANT, 0.0,
+                                "INITIAL SC GRANT: 1 SC (Wallet Creation Bonus) 0.00 USD", currentPrice))
+                        .toList();
+
+                int firstBlock = blockchain.getChain().size();
+                for (int from = 0; from < grants.size(); from += GRANTS_PER_BLOCK) {
+                    blockchain.addBlock(grants.subList(from, Math.min(from + GRANTS_PER_BLOCK, grants.size())));
+                }
+
+                // 4. Balances in einem Durchlauf übernehmen
+                List<Block> chain = blockchain.getChain();
+                for (int i = firstBlock; i < chain.size(); i++) {
+                    for (Transaction tx : chain.get(i).getTransactions()) {
+                        processSingleTransaction(tx);
+                    }
+                }
+            } else if (blockchain != null) {
+                System.err.println("Bulk-Erstellung: Supply reicht nicht für alle Initial-Grants – Wallets ohne Grant erstellt.");
+            }
+
+            if (wallets.size() > maxWalletCountForSimulation) {
+                maxWalletCountForSimulation = wallets.size();
+            }
+
+            // 5. Einmal veröffentlichen
+            commitChanges();
+        } finally {
+            walletsLock.writeLock().unlock();
+        }
+        return created;
+    }
+
+    // 🔧 PERFORMANCE: Liefert die zuletzt veröffentlichte, unveränderliche Sicht (ohne Lock, ohne Kopie)
     public static List<Wallet> getWallets() {
+        return currentSnapshot.getWallets();
+    }
+
+    /**
+     * Liefert den aktuellen versionierten Snapshot.
+     * Konsumenten können über {@link WalletSnapshot#getVersion()} Arbeit überspringen,
+     * wenn sich seit dem letzten Aufruf nichts geändert hat.
+     */
+    public static WalletSnapshot getSnapshot() {
+        return currentSnapshot;
+    }
+
+    /**
+     * Eine Seite der Transaktionshistorie einer Wallet, neueste zuerst.
+     * Positionen beziehen sich auf einen festen Stand ({@code historySize}), damit später
+     * verbuchte Transaktionen die Seiten einer offenen Ansicht nicht verschieben.
+     * @param historySize Historienlänge des Stands (z.B. beim Öffnen der Ansicht).
+     * @param offset Position ab der neuesten Transaktion dieses Stands.
+     * @param limit Maximale Seitengröße.
+     */
+    public static List<Transaction> getTransactionPage(Wallet w, int historySize, int offset, int limit) {
+        walletsLock.readLock().lock();
+        try {
+            List<Transaction> history = w.getTransactionHistory();
+            int end = Math.min(historySize, history.size()) - offset;
+            int start = Math.max(0, end - limit);
+            List<Transaction> page = new ArrayList<>(Math.max(0, end - start));
+            for (int i = end - 1; i >= start; i--) {
+                page.add(history.get(i));
+            }
+            return page;
+        } finally {
+            walletsLock.readLock().unlock();
+        }
+    }
+
+    /** Aktuelle Historienlänge einer Wallet. */
+    public static int getTransactionHistorySize(Wallet w) {
         walletsLock.readLock().lock();
         try {
-            return new ArrayList<>(wallets); // 🔧 Thread-safe Kopie zurückgeben
+            return w.getTransactionHistory().size();
         } finally {
             walletsLock.readLock().unlock();
         }
@@ -267,15 +492,19 @@ public class WalletManager {
     public static Wallet findWalletByAddress(String addr) {
         walletsLock.readLock().lock();
         try {
-            return wallets.stream()
-                    .filter(w -> w.getAddress().equals(addr))
-                    .findFirst()
-                    .orElse(null);
+            return walletsByAddress.get(addr);
         } finally {
             walletsLock.readLock().unlock();
         }
     }
 
+    // Muss unter dem Write-Lock aufgerufen werden
+    private static void addWallet(Wallet w) {
+        wallets.add(w);
+        walletsByAddress.put(w.getAddress(), w);
+        deltaBuilder.touch(w);
+    }
+
     public static int getMaxWalletCountForSimulation() {
         return maxWalletCountForSimulation;
     }
@@ -295,44 +524,69 @@ public class WalletManager {
         }
     }
 
-    // 🔧 CACHING: GUI-Daten mit Cache
-    public static synchronized Map<String, Map<String, Double>> refreshGUIBalances() {
-        long now = System.currentTimeMillis();
+    /**
+     * Abonniert den Delta-Feed: Nach jedem festgeschriebenen Block (bzw. jeder neuen Wallet)
+     * wird ein {@link WalletDelta} mit den berührten Wallets und ihren neuen Werten geliefert.
+     * Listener werden synchron in Commit-Reihenfolge unter dem Write-Lock aufgerufen und
+     * müssen daher schnell sein und dürfen keine schreibenden WalletManager-Methoden aufrufen.
+     */
+    public static void addDeltaListener(Consumer<WalletDelta> listener) {
+        deltaListeners.add(listener);
+    }
 
-        // 🔧 CACHE-HIT: Verwende Cache, wenn er noch gültig ist
-        if (guiCache != null && (now - lastCacheUpdate) < CACHE_TTL_MS) {
-            return guiCache;
-        }
+    /** Inkrementell gepflegte Ranglisten (Top-K nach SC, USD und Net Worth). */
+    public static WalletLeaderboard getLeaderboard() {
+        return leaderboard;
+    }
 
-        // 🔧 CACHE-MISS: Neu berechnen
-        Map<String, Map<String, Double>> newCache = new HashMap<>();
+    /** Laufende Markt-Aggregate (Umlauf, USD, Market Cap, Gini/Perzentile). */
+    public static MarketStats getMarketStats() {
+        return marketStats;
+    }
 
-        walletsLock.readLock().lock();
-        try {
-            double currentPrice = MyChainGUI.getCurrentCoinPrice();
+    /** Stichproben-Index der User-Wallets für die Trade-Simulation. */
+    public static TraderIndex getTraderIndex() {
+        return traderIndex;
+    }
 
-            for (Wallet w : wallets) {
-                Map<String, Double> walletData = new HashMap<>();
-                walletData.put("scBalance", w.getBalance());
-                walletData.put("usdBalance", w.getUsdBalance());
-                walletData.put("longPosition", w.getLongPositionUsd());
-                walletData.put("totalValue", w.getBalance() * currentPrice + w.getUsdBalance());
+    /** Offene Margin-Positionen mit Liquidations-Trigger-Index. */
+    public static MarginEngine getMarginEngine() {
+        return marginEngine;
+    }
 
-                newCache.put(w.getAddress(), walletData);
+    public static void removeDeltaListener(Consumer<WalletDelta> listener) {
+        deltaListeners.remove(listener);
+    }
+
+    // 🔧 SNAPSHOT: Neue Sicht veröffentlichen. Muss unter dem Write-Lock aufgerufen werden.
+    private static void publishSnapshot() {
+        int size = wallets.size();
+        if (size != publishedCount) {
+            if (size > snapshotArray.length) {
+                snapshotArray = Arrays.copyOf(snapshotArray, Math.max(size, snapshotArray.length * 2));
             }
-        } finally {
-            walletsLock.readLock().unlock();
+            for (int i = publishedCount; i < size; i++) {
+                snapshotArray[i] = wallets.get(i);
+            }
+            publishedCount = size;
+            membershipVersion++;
         }
-
-        guiCache = newCache;
-        lastCacheUpdate = now;
-        return newCache;
+        currentSnapshot = new WalletSnapshot(snapshotArray, size, ++snapshotVersion, membershipVersion);
     }
 
-    // 🔧 CACHING: Cache invalidieren bei Änderungen
-    private static void invalidateCache() {
-        guiCache = null;
-        lastCacheUpdate = 0;
+    // Nach jeder festgeschriebenen Änderung: Snapshot veröffentlichen und Delta an Abonnenten verteilen
+    private static void commitChanges() {
+        publishSnapshot();
+        if (deltaBuilder.isEmpty()) return;
+
+        WalletDelta delta = deltaBuilder.build(snapshotVersion);
+        for (Consumer<WalletDelta> listener : deltaListeners) {
+            try {
+                listener.accept(delta);
+            } catch (Exception e) {
+                System.err.println("Fehler im Delta-Listener: " + e.getMessage());
+            }
+        }
     }
 
     @Deprecated
@@ -345,8 +599,9 @@ public class WalletManager {
         try {
             Wallet wallet = findWalletByAddress(address);
             if (wallet != null) {
+                deltaBuilder.touch(wallet);
                 wallet.setUsdBalance(amount);
-                invalidateCache();
+                commitChanges();
             }
         } finally {
             walletsLock.writeLock().unlock();
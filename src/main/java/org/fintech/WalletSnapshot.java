@@ -0,0 +1,56 @@
+package org.fintech;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Unveränderliche, versionierte Sicht auf die Wallet-Liste.
+ * Wird von {@link WalletManager} nach jeder festgeschriebenen Änderung (Block, neue Wallet)
+ * veröffentlicht. Leser erhalten die aktuelle Sicht ohne Lock und ohne Kopie.
+ *
+ * Die Sicht teilt sich das Append-only-Array des WalletManagers; sie liest nur die ersten
+ * {@code size} Einträge, die beim Veröffentlichen bereits geschrieben waren.
+ */
+public final class WalletSnapshot {
+
+    static final WalletSnapshot EMPTY = new WalletSnapshot(new Wallet[0], 0, 0L, 0L);
+
+    private final Wallet[] wallets;
+    private final int size;
+    private final long version;
+    private final long membershipVersion;
+    private final List<Wallet> view;
+
+    WalletSnapshot(Wallet[] wallets, int size, long version, long membershipVersion) {
+        this.wallets = wallets;
+        this.size = size;
+        this.version = version;
+        this.membershipVersion = membershipVersion;
+        this.view = new WalletListView();
+    }
+
+    /** Steigt bei jeder festgeschriebenen Änderung (Balances, Positionen oder neue Wallets). */
+    public long getVersion() { return version; }
+
+    /** Steigt nur, wenn sich die Menge der Wallets ändert (neue Wallet, Neuinitialisierung). */
+    public long getMembershipVersion() { return membershipVersion; }
+
+    public int size() { return size; }
+
+    public Wallet get(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException(index);
+        return wallets[index];
+    }
+
+    /** Unveränderliche Listen-Sicht (RandomAccess, keine Kopie). */
+    public List<Wallet> getWallets() { return view; }
+
+    private final class WalletListView extends AbstractList<Wallet> implements RandomAccess {
+        @Override
+        public Wallet get(int index) { return WalletSnapshot.this.get(index); }
+
+        @Override
+        public int size() { return size; }
+    }
+}
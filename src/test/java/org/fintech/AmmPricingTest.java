@@ -0,0 +1,164 @@
+package org.fintech;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AmmPricingTest {
+
+    private static final double PRICE = 2.0;
+    private static final double LIQUIDITY_USD = 1_000_000_000.0;
+    private static final double FEE = 0.003;
+
+    private static AmmPricing pool() {
+        return new AmmPricing(PRICE, LIQUIDITY_USD, FEE);
+    }
+
+    private static double k(AmmPricing pool) {
+        AmmPricing.Reserves r = pool.getReserves();
+        return r.getSc() * r.getUsd();
+    }
+
+    @Test
+    void buyRaisesAndSellLowersSpotPrice() {
+        AmmPricing pool = pool();
+        assertEquals(PRICE, pool.getSpotPrice(), 1e-12);
+
+        double afterBuy = pool.executeTrade(1_000_000, true, PRICE);
+        assertTrue(afterBuy > PRICE);
+        double afterSell = pool.executeTrade(3_000_000, false, afterBuy);
+        assertTrue(afterSell < afterBuy);
+        assertEquals(afterSell, pool.getSpotPrice());
+    }
+
+    @Test
+    void quoteMatchesExecutedSwap() {
+        AmmPricing pool = pool();
+        double amount = 5_000_000;
+
+        double cost = pool.quoteBuy(amount);
+        double usdBefore = pool.getReserves().getUsd();
+        pool.executeTrade(amount, true, PRICE);
+        assertEquals(cost, pool.getReserves().getUsd() - usdBefore, 1e-6);
+
+        double proceeds = pool.quoteSell(amount);
+        usdBefore = pool.getReserves().getUsd();
+        pool.executeTrade(amount, false, pool.getSpotPrice());
+        assertEquals(proceeds, usdBefore - pool.getReserves().getUsd(), 1e-6);
+    }
+
+    @Test
+    void quoteIncludesFeeAndSlippage() {
+        AmmPricing pool = pool();
+        double spot = pool.getSpotPrice();
+
+        assertTrue(pool.quote(1_000_000, true, spot) > spot * (1 + FEE));
+        assertTrue(pool.quote(1_000_000, false, spot) < spot * (1 - FEE));
+        assertEquals(Double.POSITIVE_INFINITY, pool.quote(pool.getReserves().getSc() * 0.6, true, spot));
+    }
+
+    @Test
+    void constantProductNeverShrinks() {
+        AmmPricing pool = pool();
+        SplittableRandom rnd = new SplittableRandom(7);
+        double k = k(pool);
+        for (int i = 0; i < 10_000; i++) {
+            double amount = 1 + rnd.nextDouble() * 2_000_000;
+            if (rnd.nextInt(4) == 0) {
+                pool.executeBatch(amount, rnd.nextDouble() * 2_000_000, pool.getSpotPrice());
+            } else {
+                pool.executeTrade(amount, rnd.nextBoolean(), pool.getSpotPrice());
+            }
+            double next = k(pool);
+            assertTrue(next >= k * (1 - 1e-12), "k geschrumpft bei Swap " + i);
+            k = next;
+        }
+        assertTrue(pool.getReserves().getFeesUsd() > 0);
+    }
+
+    @Test
+    void batchCrossesMatchedVolumeAndRoutesOnlyNetThroughCurve() {
+        AmmPricing batched = pool();
+        AmmPricing.Reserves before = batched.getReserves();
+        double spot = before.getSpotPrice();
+
+        batched.executeBatch(10_000, 4_000, spot);
+
+        // Erwartung: 4000 SC zum Spotpreis gekreuzt (Käufergebühr in USD, Verkäufergebühr in SC),
+        // danach 6000 SC Kauf über die Kurve
+        double crossedFeeUsd = 4_000 * spot * FEE;
+        double usd = before.getUsd() + crossedFeeUsd;
+        double sc = before.getSc() + 4_000 * FEE;
+        double usdIn = usd * 6_000 / (sc - 6_000) / (1 - FEE);
+        AmmPricing.Reserves after = batched.getReserves();
+        assertEquals(sc - 6_000, after.getSc(), 1e-6);
+        assertEquals(usd + usdIn, after.getUsd(), 1e-6);
+        assertEquals(2 * crossedFeeUsd + usdIn * FEE, after.getFeesUsd(), 1e-6);
+        assertEquals(1, after.getSwaps(), "ein Swap für den ganzen Batch");
+    }
+
+    @Test
+    void balancedBatchKeepsSpotPriceAndCollectsFees() {
+        AmmPricing pool = pool();
+        AmmPricing.Reserves before = pool.getReserves();
+
+        pool.executeBatch(5_000, 5_000, before.getSpotPrice());
+
+        AmmPricing.Reserves after = pool.getReserves();
+        assertEquals(5_000 * PRICE * FEE, after.getUsd() - before.getUsd(), 1e-6);
+        assertEquals(5_000 * FEE, after.getSc() - before.getSc(), 1e-6);
+        assertEquals(2 * 5_000 * PRICE * FEE, after.getFeesUsd(), 1e-6);
+        assertEquals(before.getSpotPrice(), after.getSpotPrice(), before.getSpotPrice() * 1e-12, "gekreuzter Teil ist preisneutral");
+        assertTrue(after.getSc() * after.getUsd() > before.getSc() * before.getUsd(), "Gebühren bleiben im Pool");
+    }
+
+    @Test
+    void oversizedBuyIsLimitedToHalfTheReserve() {
+        AmmPricing pool = pool();
+        double sc = pool.getReserves().getSc();
+
+        pool.executeTrade(sc * 0.9, true, PRICE);
+
+        assertEquals(sc * 0.5, pool.getReserves().getSc(), 1e-6);
+        assertEquals(1, pool.getLimitedSwaps());
+    }
+
+    @Test
+    void concurrentSwapsLoseNoUpdate() throws Exception {
+        AmmPricing pool = pool();
+        double sc = pool.getReserves().getSc();
+        int threads = 8;
+        int rounds = 2_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            Future<?>[] futures = new Future<?>[threads];
+            for (int t = 0; t < threads; t++) {
+                futures[t] = executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < rounds; i++) {
+                        pool.executeTrade(1.0, true, PRICE);
+                        pool.executeTrade(1.0, false, PRICE);
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Jeder Swap genau einmal angewendet (CAS wiederholt bei Konflikt statt zu überschreiben)
+        assertEquals((long) threads * rounds * 2, pool.getReserves().getSwaps());
+        assertEquals(sc, pool.getReserves().getSc());
+    }
+}
@@ -0,0 +1,131 @@
+package org.fintech;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.fintech.CandleEngine.Resolution.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class CandleEngineTest {
+
+    private static final long T0 = 472_222L * 3_600_000L; // volle Stunde (Nov. 2023)
+
+    @Test
+    void ticksWithinOneIntervalFormOneCandle() {
+        CandleEngine candles = new CandleEngine();
+        candles.onTick(T0 + 100, 2.0, 1.0);
+        candles.onTick(T0 + 400, 2.5, 2.0);
+        candles.onTick(T0 + 700, 1.5, 3.0);
+        candles.onTick(T0 + 999, 1.8, 4.0);
+
+        CandleEngine.Series out = new CandleEngine.Series(10);
+        assertEquals(1, candles.query(SECOND_1, 0, Long.MAX_VALUE, out));
+        assertEquals(T0, out.getStartMillis(0));
+        assertEquals(2.0, out.getOpen(0));
+        assertEquals(2.5, out.getHigh(0));
+        assertEquals(1.5, out.getLow(0));
+        assertEquals(1.8, out.getClose(0));
+        assertEquals(10.0, out.getVolume(0));
+    }
+
+    @Test
+    void nextIntervalStartsNewCandleInEveryResolution() {
+        CandleEngine candles = new CandleEngine();
+        candles.onTick(T0 + 999, 2.0, 1.0);
+        candles.onTick(T0 + 1_000, 3.0, 1.0);   // neue Sekunde
+        candles.onTick(T0 + 60_000, 4.0, 1.0);  // neue Minute
+        candles.onTick(T0 + 300_000, 5.0, 1.0); // neue 5 Minuten
+
+        assertEquals(4, candles.size(SECOND_1));
+        assertEquals(3, candles.size(MINUTE_1));
+        assertEquals(2, candles.size(MINUTE_5));
+        assertEquals(1, candles.size(HOUR_1));
+
+        CandleEngine.Series out = new CandleEngine.Series(10);
+        candles.query(MINUTE_1, 0, Long.MAX_VALUE, out);
+        assertEquals(T0, out.getStartMillis(0));
+        assertEquals(2.0, out.getOpen(0));
+        assertEquals(3.0, out.getClose(0));
+        assertEquals(T0 + 60_000, out.getStartMillis(1));
+
+        candles.query(HOUR_1, 0, Long.MAX_VALUE, out);
+        assertEquals(2.0, out.getOpen(0));
+        assertEquals(5.0, out.getHigh(0));
+        assertEquals(5.0, out.getClose(0));
+        assertEquals(4.0, out.getVolume(0));
+    }
+
+    @Test
+    void lateTickCountsToCurrentCandle() {
+        CandleEngine candles = new CandleEngine();
+        candles.onTick(T0 + 5_000, 2.0, 1.0);
+        candles.onTick(T0 + 1_000, 0.5, 1.0); // verspätet
+
+        CandleEngine.Series out = new CandleEngine.Series(10);
+        assertEquals(1, candles.query(SECOND_1, 0, Long.MAX_VALUE, out));
+        assertEquals(T0 + 5_000, out.getStartMillis(0));
+        assertEquals(0.5, out.getLow(0));
+        assertEquals(0.5, out.getClose(0));
+    }
+
+    @Test
+    void ringOverwritesOldestCandlesAndQueriesStayChronological() {
+        CandleEngine candles = new CandleEngine();
+        int seconds = SECOND_1.getCapacity() + 100;
+        for (int s = 0; s < seconds; s++) {
+            candles.onTick(T0 + s * 1_000L, s, 1.0);
+        }
+
+        assertEquals(SECOND_1.getCapacity(), candles.size(SECOND_1));
+        CandleEngine.Series out = new CandleEngine.Series(SECOND_1.getCapacity());
+        int n = candles.query(SECOND_1, 0, Long.MAX_VALUE, out);
+        assertEquals(SECOND_1.getCapacity(), n);
+        assertEquals(T0 + 100_000, out.getStartMillis(0));
+        for (int i = 1; i < n; i++) {
+            assertEquals(out.getStartMillis(i - 1) + 1_000, out.getStartMillis(i));
+        }
+
+        // Bereichsgrenzen beziehen sich auf die Startzeit und sind inklusiv
+        assertEquals(3, candles.query(SECOND_1, T0 + 200_000, T0 + 202_000, out));
+        assertEquals(200.0, out.getOpen(0));
+
+        CandleEngine.Series latest = new CandleEngine.Series(5);
+        assertEquals(5, candles.queryLatest(SECOND_1, latest));
+        assertEquals(T0 + (seconds - 5) * 1_000L, latest.getStartMillis(0));
+        assertEquals(seconds - 1, latest.getClose(4));
+    }
+
+    @Test
+    void optimisticQueryNeverReturnsTornCandles() throws Exception {
+        CandleEngine candles = new CandleEngine();
+        AtomicBoolean done = new AtomicBoolean(false);
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 300_000; i++) {
+                double price = 1.0 + (i % 97) * 0.01;
+                candles.onTick(T0 + i * 10L, price, 1.0);
+            }
+            done.set(true);
+        });
+        writer.start();
+
+        CandleEngine.Series out = new CandleEngine.Series(SECOND_1.getCapacity());
+        int queries = 0;
+        try {
+            while (!done.get() || queries == 0) {
+                int n = candles.query(SECOND_1, 0, Long.MAX_VALUE, out);
+                for (int i = 0; i < n; i++) {
+                    assertTrue(out.getLow(i) <= Math.min(out.getOpen(i), out.getClose(i)), "Low über Open/Close");
+                    assertTrue(out.getHigh(i) >= Math.max(out.getOpen(i), out.getClose(i)), "High unter Open/Close");
+                    if (i > 0) assertTrue(out.getStartMillis(i) > out.getStartMillis(i - 1), "nicht chronologisch");
+                }
+                queries++;
+            }
+        } finally {
+            writer.join();
+        }
+
+        assertEquals(300_000, candles.getTickCount());
+        assertEquals(3_000, candles.size(SECOND_1));
+    }
+}
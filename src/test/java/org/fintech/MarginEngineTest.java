@@ -0,0 +1,121 @@
+package org.fintech;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MarginEngineTest {
+
+    private static final double ENTRY = 1.0;
+    private static final double SIZE = 10.0;
+    private static final double MARGIN = 1.0; // 10x
+
+    private final MarginEngine engine = new MarginEngine();
+
+    private static Wallet wallet() {
+        return new Wallet("test", 0.0);
+    }
+
+    @Test
+    void longTriggersExactlyAtItsLiquidationPrice() {
+        Wallet w = wallet();
+        engine.open(w, true, SIZE, ENTRY, MARGIN);
+        double liq = engine.get(w).getLiquidationPrice();
+        assertEquals((SIZE * ENTRY - MARGIN) / (SIZE * (1 - MarginEngine.MAINTENANCE_MARGIN)), liq, 1e-12);
+
+        assertEquals(List.of(engine.get(w)), engine.triggered(liq));
+        assertTrue(engine.triggered(Math.nextUp(liq)).isEmpty());
+    }
+
+    @Test
+    void shortTriggersExactlyAtItsLiquidationPrice() {
+        Wallet w = wallet();
+        engine.open(w, false, SIZE, ENTRY, MARGIN);
+        double liq = engine.get(w).getLiquidationPrice();
+        assertEquals((MARGIN + SIZE * ENTRY) / (SIZE * (1 + MarginEngine.MAINTENANCE_MARGIN)), liq, 1e-12);
+
+        assertEquals(List.of(engine.get(w)), engine.triggered(liq));
+        assertTrue(engine.triggered(Math.nextDown(liq)).isEmpty());
+    }
+
+    @Test
+    void positionsWithTheSameLiquidationPriceAreAllTriggered() {
+        Wallet a = wallet();
+        Wallet b = wallet();
+        engine.open(a, true, SIZE, ENTRY, MARGIN);
+        engine.open(b, true, SIZE, ENTRY, MARGIN);
+
+        assertEquals(2, engine.triggered(engine.get(a).getLiquidationPrice()).size());
+    }
+
+    @Test
+    void closeRemovesTheTrigger() {
+        Wallet w = wallet();
+        engine.open(w, true, SIZE, ENTRY, MARGIN);
+        double liq = engine.get(w).getLiquidationPrice();
+
+        assertNotNull(engine.close(w, false, 1.2));
+
+        assertNull(engine.get(w));
+        assertTrue(engine.triggered(liq).isEmpty());
+        assertEquals(0, engine.getOpenLongs());
+        assertEquals(1, engine.getClosed());
+    }
+
+    @Test
+    void duplicateLiquidationIsIneffective() {
+        Wallet w = wallet();
+        engine.open(w, false, SIZE, ENTRY, MARGIN);
+
+        assertNotNull(engine.close(w, true, 0.25));
+        assertNull(engine.close(w, true, 0.25));
+        assertNull(engine.close(w, false, 0.25)); // gekreuztes Schließen nach der Liquidation
+
+        assertEquals(1, engine.getLiquidated());
+        assertEquals(0, engine.getClosed());
+        assertEquals(MARGIN - 0.25, engine.getForfeitedMarginUsd(), 1e-12);
+    }
+
+    @Test
+    void resetClearsPositionsAndCounters() {
+        Wallet w = wallet();
+        engine.open(w, true, SIZE, ENTRY, MARGIN);
+        engine.close(w, true, 0.0);
+        engine.open(w, false, SIZE, ENTRY, MARGIN);
+
+        engine.reset();
+
+        assertEquals(0, engine.getOpenPositions());
+        assertTrue(engine.triggered(0.0).isEmpty());
+        assertTrue(engine.triggered(Double.MAX_VALUE).isEmpty());
+        assertEquals(0, engine.getOpened());
+        assertEquals(0, engine.getLiquidated());
+        assertEquals(0.0, engine.getForfeitedMarginUsd());
+    }
+
+    @Test
+    void recomputeFromChainDoesNotDoubleCountCounters() {
+        Blockchain chain = new Blockchain("MarginTest", 0);
+        WalletManager.loadWallets(chain);
+        Wallet user = WalletManager.getSnapshot().get(1);
+        double margin = user.getUsdBalance() * 0.1;
+        assertTrue(margin > 0);
+
+        chain.addBlock(List.of(new Transaction(user, NetworkSimulator.EXCHANGE_ADDRESS, SIZE,
+                TransactionKind.MARGIN_OPEN_LONG, margin, "open", ENTRY)));
+        chain.addBlock(List.of(
+                new Transaction(user, NetworkSimulator.EXCHANGE_ADDRESS, SIZE, TransactionKind.LIQUIDATION, 0.0, "liq", ENTRY),
+                new Transaction(user, NetworkSimulator.EXCHANGE_ADDRESS, SIZE, TransactionKind.LIQUIDATION, 0.0, "liq", ENTRY)));
+
+        MarginEngine global = WalletManager.getMarginEngine();
+        WalletManager.updateAllBalancesFromBlockchain(chain);
+        WalletManager.updateAllBalancesFromBlockchain(chain);
+
+        assertEquals(1, global.getOpened());
+        assertEquals(1, global.getLiquidated(), "zweite Liquidation bleibt ohne Wirkung");
+        assertEquals(margin, global.getForfeitedMarginUsd(), 1e-9);
+        assertEquals(0, global.getOpenPositions());
+    }
+}
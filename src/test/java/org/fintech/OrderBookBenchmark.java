@@ -0,0 +1,106 @@
+package org.fintech;
+
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Mikro-Benchmark der Matching-Engine ({@link OrderBook}) auf einem Kern.
+ *
+ * Die Order-Folge (Limit-Orders um die Mitte, Market-Orders, Stornos) wird vorab mit festem Seed
+ * in primitive Arrays erzeugt, damit nur das Matching gemessen wird. Nach Aufwärmrunden (JIT)
+ * werden mehrere Messrunden ausgeführt und Operationen pro Sekunde berichtet.
+ *
+ * Liegt bei den Tests (nicht im Anwendungs-JAR) und wird von Surefire nicht ausgeführt.
+ * Aufruf: {@code java -cp target/classes:target/test-classes org.fintech.OrderBookBenchmark [Operationen] [Runden]}
+ */
+public final class OrderBookBenchmark {
+
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MID_TICK = 100_000;
+    private static final int SPREAD_TICKS = 50;
+
+    private static final byte LIMIT = 0;
+    private static final byte MARKET = 1;
+    private static final byte CANCEL = 2;
+
+    private final byte[] types;
+    private final boolean[] sides;
+    private final int[] ticks;
+    private final long[] lots;
+    private final int[] cancelRefs; // Index einer früheren Limit-Order
+    private final long[] ids;
+
+    private OrderBookBenchmark(int operations, long seed) {
+        types = new byte[operations];
+        sides = new boolean[operations];
+        ticks = new int[operations];
+        lots = new long[operations];
+        cancelRefs = new int[operations];
+        ids = new long[operations];
+
+        SplittableRandom rnd = new SplittableRandom(seed);
+        for (int i = 0; i < operations; i++) {
+            int r = rnd.nextInt(100);
+            boolean buy = rnd.nextBoolean();
+            sides[i] = buy;
+            lots[i] = 1 + rnd.nextInt(100);
+            if (r < 60 || i == 0) {
+                types[i] = LIMIT;
+                // Käufer leicht unter, Verkäufer leicht über der Mitte → teils ruhend, teils kreuzend
+                int offset = rnd.nextInt(SPREAD_TICKS) - SPREAD_TICKS / 5;
+                ticks[i] = buy ? MID_TICK - offset : MID_TICK + offset;
+            } else if (r < 75) {
+                types[i] = MARKET;
+            } else {
+                types[i] = CANCEL;
+                cancelRefs[i] = rnd.nextInt(i);
+            }
+        }
+    }
+
+    // Eine Runde auf frischem Buch; liefert die Summe der Fills als Senke gegen Dead-Code-Elimination
+    private long runRound(OrderBook book) {
+        long sink = 0;
+        for (int i = 0; i < types.length; i++) {
+            switch (types[i]) {
+                case LIMIT -> ids[i] = book.submitLimit(sides[i], ticks[i], lots[i], i);
+                case MARKET -> sink += book.submitMarket(sides[i], lots[i], i);
+                default -> {
+                    if (book.cancel(ids[cancelRefs[i]])) sink++;
+                }
+            }
+        }
+        return sink + book.getTradedLots();
+    }
+
+    public static void main(String[] args) {
+        int operations = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        OrderBookBenchmark benchmark = new OrderBookBenchmark(operations, 42L);
+
+        System.out.printf(Locale.US, "=== ORDERBUCH-BENCHMARK: %d Operationen × %d Runden (60%% Limit, 15%% Market, 25%% Storno) ===%n",
+                operations, rounds);
+        long sink = 0;
+        for (int w = 0; w < WARMUP_ROUNDS; w++) {
+            sink += benchmark.runRound(new OrderBook(0.001, 1 << 18));
+        }
+
+        double best = 0.0;
+        double total = 0.0;
+        OrderBook last = null;
+        for (int r = 0; r < rounds; r++) {
+            OrderBook book = new OrderBook(0.001, 1 << 18);
+            long start = System.nanoTime();
+            sink += benchmark.runRound(book);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            double opsPerSecond = operations / seconds;
+            best = Math.max(best, opsPerSecond);
+            total += opsPerSecond;
+            last = book;
+            System.out.printf(Locale.US, "Runde %2d: %.2f Mio. Ops/s (%.1f ns/Op)%n", r + 1, opsPerSecond / 1e6, seconds * 1e9 / operations);
+        }
+        System.out.printf(Locale.US, "Ø %.2f Mio. Ops/s | beste Runde %.2f Mio. Ops/s%n", total / rounds / 1e6, best / 1e6);
+        System.out.printf(Locale.US, "Letzte Runde: %d Fills, %d ruhende Orders (Prüfsumme %d)%n",
+                last.getTradeCount(), last.getActiveOrders(), sink);
+    }
+}
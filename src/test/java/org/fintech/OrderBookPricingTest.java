@@ -0,0 +1,64 @@
+package org.fintech;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderBookPricingTest {
+
+    private static final double PRICE = 1.0;
+
+    // 5 Stufen je Nachquotieren, 0,1 % Abstand, ca. 1000 SC je Stufe
+    private static OrderBookPricing pricing() {
+        return new OrderBookPricing(5, 0.001, 1_000.0);
+    }
+
+    @Test
+    void quoteLeavesBookAndLadderUntouched() {
+        OrderBookPricing pricing = pricing();
+        pricing.executeTrade(2_500, true, PRICE);
+        String before = pricing.toString();
+
+        pricing.quote(12_000, true, PRICE);  // braucht neue Stufen
+        pricing.quote(8_000, false, PRICE);  // Gegenseite müsste neu quotiert werden
+
+        assertEquals(before, pricing.toString());
+    }
+
+    @Test
+    void quoteMatchesVwapOfTheExecutedTrade() {
+        OrderBookPricing pricing = pricing();
+        SplittableRandom rnd = new SplittableRandom(11);
+        double price = PRICE;
+        for (int i = 0; i < 200; i++) {
+            double amount = 1 + rnd.nextDouble() * 15_000;
+            boolean buy = rnd.nextBoolean();
+
+            double quoted = pricing.quote(amount, buy, price);
+            double executed = pricing.executeTrade(amount, buy, price);
+
+            assertEquals(executed, quoted, executed * 1e-9, "Trade " + i);
+            price = executed;
+        }
+    }
+
+    @Test
+    void priceAboveTickRangeIsRejectedInsteadOfClamped() {
+        OrderBookPricing pricing = pricing();
+
+        assertEquals(Double.POSITIVE_INFINITY, pricing.quote(1, true, 3_000.0));
+        assertEquals(Double.POSITIVE_INFINITY, pricing.quote(1, false, 3_000.0));
+        assertEquals(3_000.0, pricing.executeTrade(1, true, 3_000.0));
+        assertTrue(pricing.toString().contains("| 0 Fills"), pricing.toString());
+    }
+
+    @Test
+    void quoteIsInfiniteWhenLadderHitsTheTopOfTheRange() {
+        OrderBookPricing pricing = pricing();
+
+        assertEquals(Double.POSITIVE_INFINITY, pricing.quote(1_000_000, true, 2_097.0));
+        assertTrue(Double.isFinite(pricing.quote(0.1, true, 2_097.0)));
+    }
+}
@@ -0,0 +1,151 @@
+package org.fintech;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderBookTest {
+
+    private static final int MAKER = 0;
+    private static final int TAKER = 1;
+
+    private OrderBook book;
+    private final List<Long> fills = new ArrayList<>(); // Maker-IDs in Fill-Reihenfolge
+
+    @BeforeEach
+    void setUp() {
+        book = new OrderBook(0.01, 1024);
+        fills.clear();
+        book.setTradeListener((makerId, makerOwner, takerOwner, takerBuys, priceTicks, lots) -> fills.add(makerId));
+    }
+
+    @Test
+    void marketOrderFillsBestPriceFirstThenOldestOrder() {
+        long first = book.submitLimit(false, 101, 5, MAKER);
+        long second = book.submitLimit(false, 101, 5, MAKER);
+        long better = book.submitLimit(false, 100, 5, MAKER); // später, aber besserer Preis
+
+        assertEquals(15, book.submitMarket(true, 15, TAKER));
+        assertEquals(List.of(better, first, second), fills);
+        assertEquals(101, book.getLastTradeTick());
+    }
+
+    @Test
+    void partialFillLeavesRemainderAtItsPriority() {
+        long ask = book.submitLimit(false, 200, 10, MAKER);
+        long behind = book.submitLimit(false, 200, 3, MAKER);
+
+        assertEquals(4, book.submitMarket(true, 4, TAKER));
+        assertTrue(book.isActive(ask));
+        assertEquals(9, book.getLotsAt(false, 200));
+        assertEquals(9, book.getAskDepthLots());
+
+        // Der Rest der ersten Order bleibt vorne in der FIFO
+        fills.clear();
+        assertEquals(7, book.submitMarket(true, 7, TAKER));
+        assertEquals(List.of(ask, behind), fills);
+        assertFalse(book.isActive(ask));
+        assertTrue(book.isActive(behind));
+        assertEquals(2, book.getLotsAt(false, 200));
+    }
+
+    @Test
+    void marketOrderRestExpiresWhenBookIsExhausted() {
+        book.submitLimit(true, 50, 3, MAKER);
+
+        assertEquals(3, book.submitMarket(false, 10, TAKER));
+        assertEquals(-1, book.getBestBidTick());
+        assertEquals(0, book.getBidDepthLots());
+        assertEquals(0, book.getActiveOrders());
+    }
+
+    @Test
+    void crossingLimitOrderMatchesAndRestsRemainder() {
+        book.submitLimit(false, 100, 4, MAKER);
+
+        long rest = book.submitLimit(true, 102, 10, TAKER);
+        assertNotEquals(0, rest);
+        assertEquals(-1, book.getBestAskTick());
+        assertEquals(102, book.getBestBidTick());
+        assertEquals(6, book.getLotsAt(true, 102));
+
+        // Vollständig ausgeführte Limit-Order ruht nicht
+        assertEquals(0, book.submitLimit(false, 90, 6, MAKER));
+        assertEquals(-1, book.getBestBidTick());
+    }
+
+    @Test
+    void cancelOfFilledOrderFails() {
+        long ask = book.submitLimit(false, 100, 5, MAKER);
+        book.submitMarket(true, 5, TAKER);
+
+        assertFalse(book.cancel(ask));
+        assertFalse(book.cancel(ask + 12345));
+        assertEquals(0, book.getActiveOrders());
+    }
+
+    @Test
+    void cancelWithStaleIdDoesNotHitReusedSlot() {
+        long old = book.submitLimit(false, 100, 5, MAKER);
+        assertTrue(book.cancel(old));
+
+        long reused = book.submitLimit(false, 100, 7, MAKER);
+        assertEquals((int) old, (int) reused, "Slot wird wiederverwendet");
+        assertNotEquals(old, reused, "neue Generation, neue ID");
+
+        assertFalse(book.cancel(old));
+        assertFalse(book.isActive(old));
+        assertTrue(book.isActive(reused));
+        assertEquals(7, book.getAskDepthLots());
+
+        assertTrue(book.cancel(reused));
+        assertFalse(book.cancel(reused), "doppeltes Storno");
+    }
+
+    @Test
+    void bestAskFollowsBitsetAfterLevelsClear() {
+        book.submitLimit(false, 10, 1, MAKER);
+        long mid = book.submitLimit(false, 63, 1, MAKER);
+        long far = book.submitLimit(false, 700, 1, MAKER); // anderes Bitset-Wort
+
+        book.submitMarket(true, 1, TAKER);
+        assertEquals(63, book.getBestAskTick());
+        assertTrue(book.cancel(mid));
+        assertEquals(700, book.getBestAskTick());
+        assertTrue(book.cancel(far));
+        assertEquals(-1, book.getBestAskTick());
+    }
+
+    @Test
+    void bestBidFollowsBitsetAfterLevelsClear() {
+        long low = book.submitLimit(true, 5, 1, MAKER);
+        long word = book.submitLimit(true, 64, 1, MAKER);
+        book.submitLimit(true, 900, 2, MAKER);
+
+        book.submitMarket(false, 2, TAKER);
+        assertEquals(64, book.getBestBidTick());
+        assertTrue(book.cancel(word));
+        assertEquals(5, book.getBestBidTick());
+        assertTrue(book.cancel(low));
+        assertEquals(-1, book.getBestBidTick());
+    }
+
+    @Test
+    void quoteMatchesVwapOfExecutedFills() {
+        book.submitLimit(false, 100, 4, MAKER);
+        book.submitLimit(false, 101, 4, MAKER);
+        book.submitLimit(false, 110, 4, MAKER);
+
+        double quote = book.quoteMarketTicks(true, 10);
+        assertEquals((100 * 4 + 101 * 4 + 110 * 2) / 10.0, quote, 1e-9);
+        assertTrue(Double.isNaN(book.quoteMarketTicks(true, 13)), "zu wenig Tiefe");
+
+        long notional = book.getTradedNotionalTicks();
+        book.submitMarket(true, 10, TAKER);
+        assertEquals(quote, (book.getTradedNotionalTicks() - notional) / 10.0, 1e-9);
+    }
+}
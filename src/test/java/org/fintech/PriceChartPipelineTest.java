@@ -0,0 +1,79 @@
+package org.fintech;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceChartPipelineTest {
+
+    private static long[] times(int n) {
+        long[] x = new long[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = 1_700_000_000_000L + i * 10L; // Epoch-Millisekunden wie im Betrieb
+        }
+        return x;
+    }
+
+    @Test
+    void keepsFirstAndLastPoint() {
+        int n = 10_000;
+        long[] x = times(n);
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            y[i] = Math.sin(i / 50.0);
+        }
+        long[] outX = new long[100];
+        double[] outY = new double[100];
+
+        int size = PriceChartPipeline.downsample(x, y, n, 100, outX, outY);
+
+        assertEquals(100, size);
+        assertEquals(x[0], outX[0]);
+        assertEquals(y[0], outY[0]);
+        assertEquals(x[n - 1], outX[size - 1]);
+        assertEquals(y[n - 1], outY[size - 1]);
+        for (int i = 1; i < size; i++) {
+            assertTrue(outX[i] > outX[i - 1], "chronologisch");
+        }
+    }
+
+    @Test
+    void keepsSingleSpikeAndDip() {
+        int n = 5_000;
+        long[] x = times(n);
+        double[] y = new double[n];
+        Arrays.fill(y, 2.0);
+        y[1234] = 9.0;
+        y[3777] = 0.5;
+        long[] outX = new long[50];
+        double[] outY = new double[50];
+
+        int size = PriceChartPipeline.downsample(x, y, n, 50, outX, outY);
+
+        boolean spike = false;
+        boolean dip = false;
+        for (int i = 0; i < size; i++) {
+            if (outX[i] == x[1234] && outY[i] == 9.0) spike = true;
+            if (outX[i] == x[3777] && outY[i] == 0.5) dip = true;
+        }
+        assertTrue(spike, "Spitze fehlt");
+        assertTrue(dip, "Einbruch fehlt");
+    }
+
+    @Test
+    void copiesUnchangedWhenThresholdNotBelowSize() {
+        long[] x = times(20);
+        double[] y = new double[20];
+        for (int i = 0; i < 20; i++) {
+            y[i] = i;
+        }
+        long[] outX = new long[20];
+        double[] outY = new double[20];
+
+        assertEquals(20, PriceChartPipeline.downsample(x, y, 20, 20, outX, outY));
+        assertArrayEquals(x, outX);
+        assertArrayEquals(y, outY);
+    }
+}
@@ -0,0 +1,97 @@
+package org.fintech;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceHistoryTest {
+
+    private static final int CAPACITY = 4096; // kleinste erlaubte Kapazität
+
+    @Test
+    void emptyHistoryHasNoTicks() {
+        PriceHistory history = new PriceHistory(CAPACITY);
+        PriceHistory.Range range = new PriceHistory.Range();
+
+        assertEquals(Long.MIN_VALUE, history.getLatestMillis());
+        assertEquals(Long.MIN_VALUE, history.getOldestMillis());
+        assertEquals(0, history.copy(0, Long.MAX_VALUE, range));
+        assertEquals(0, range.size());
+    }
+
+    @Test
+    void rangeBoundsAreInclusive() {
+        PriceHistory history = new PriceHistory(CAPACITY);
+        for (int t = 0; t < 100; t++) {
+            history.add(t * 10L, t);
+        }
+        PriceHistory.Range range = new PriceHistory.Range();
+
+        assertEquals(3, history.copy(200, 220, range));
+        assertEquals(200, range.getTimeMillis(0));
+        assertEquals(220, range.getTimeMillis(2));
+        assertEquals(22.0, range.getPrice(2));
+
+        // Grenzen zwischen zwei Ticks, vor dem ersten und nach dem letzten
+        assertEquals(2, history.copy(195, 215, range));
+        assertEquals(200, range.getTimeMillis(0));
+        assertEquals(0, history.copy(-50, -1, range));
+        assertEquals(0, history.copy(991, 5000, range));
+        assertEquals(1, history.copy(990, Long.MAX_VALUE, range));
+        assertEquals(100, history.copy(Long.MIN_VALUE, Long.MAX_VALUE, range));
+    }
+
+    @Test
+    void earlierTimestampIsRaisedToKeepOrder() {
+        PriceHistory history = new PriceHistory(CAPACITY);
+        history.add(100, 1.0);
+        history.add(90, 2.0);
+
+        PriceHistory.Range range = new PriceHistory.Range();
+        assertEquals(2, history.copy(100, 100, range));
+        assertEquals(100, range.getTimeMillis(1));
+        assertEquals(2.0, range.getPrice(1));
+    }
+
+    @Test
+    void ringOverwritesOldestTicksWhenFull() {
+        PriceHistory history = new PriceHistory(CAPACITY);
+        int total = CAPACITY + 1000;
+        for (int t = 0; t < total; t++) {
+            history.add(t, t);
+        }
+
+        assertEquals(CAPACITY, history.size());
+        assertEquals(total, history.getVersion());
+        assertEquals(1000, history.getOldestMillis());
+        assertEquals(total - 1, history.getLatestMillis());
+
+        // Abfrage über die Umbruchstelle: chronologisch und lückenlos
+        PriceHistory.Range range = new PriceHistory.Range();
+        int n = history.copy(CAPACITY - 10, CAPACITY + 10, range);
+        assertEquals(21, n);
+        for (int i = 0; i < n; i++) {
+            assertEquals(CAPACITY - 10 + i, range.getTimeMillis(i));
+            assertEquals(CAPACITY - 10 + i, range.getPrice(i));
+        }
+        assertEquals(0, history.copy(0, 999, range), "überschriebene Ticks");
+    }
+
+    @Test
+    void growsBeforeWrappingAndKeepsOrder() {
+        PriceHistory history = new PriceHistory(4 * CAPACITY);
+        int total = 5 * CAPACITY;
+        for (int t = 0; t < total; t++) {
+            history.add(t, t * 0.5);
+        }
+
+        assertEquals(4 * CAPACITY, history.size());
+        PriceHistory.Range range = new PriceHistory.Range();
+        int n = history.copy(Long.MIN_VALUE, Long.MAX_VALUE, range);
+        assertEquals(4 * CAPACITY, n);
+        assertEquals(n, range.size());
+        for (int i = 0; i < n; i++) {
+            assertEquals(CAPACITY + i, range.getTimeMillis(i));
+        }
+    }
+}